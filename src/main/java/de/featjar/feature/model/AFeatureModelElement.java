@@ -25,6 +25,7 @@ import de.featjar.base.data.IAttributable.IMutatableAttributable;
 import de.featjar.base.data.IAttribute;
 import de.featjar.base.data.identifier.AIdentifier;
 import de.featjar.base.data.identifier.IIdentifier;
+import de.featjar.feature.model.event.FeatureModelEvent;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -42,7 +43,12 @@ import java.util.Optional;
 public abstract class AFeatureModelElement implements IFeatureModelElement, IMutatableAttributable {
     protected final IFeatureModel featureModel;
     protected final IIdentifier identifier;
-    protected final LinkedHashMap<IAttribute<?>, Object> attributeValues;
+    protected LinkedHashMap<IAttribute<?>, Object> attributeValues;
+
+    /**
+     * Whether {@link #attributeValues} is shared with a copy-on-write clone and has to be copied before a change.
+     */
+    protected boolean sharedAttributeValues;
 
     public AFeatureModelElement(IFeatureModel featureModel) {
         this.featureModel = Objects.requireNonNull(featureModel);
@@ -51,9 +57,19 @@ public abstract class AFeatureModelElement implements IFeatureModelElement, IMut
     }
 
     protected AFeatureModelElement(AFeatureModelElement otherElement, IFeatureModel featureModel) {
+        this(otherElement, featureModel, false);
+    }
+
+    protected AFeatureModelElement(AFeatureModelElement otherElement, IFeatureModel featureModel, boolean copyOnWrite) {
         this.featureModel = featureModel;
         identifier = otherElement.getNewIdentifier();
-        attributeValues = otherElement.cloneAttributes();
+        if (copyOnWrite) {
+            attributeValues = otherElement.attributeValues;
+            otherElement.sharedAttributeValues = true;
+            sharedAttributeValues = true;
+        } else {
+            attributeValues = otherElement.cloneAttributes();
+        }
     }
 
     @Override
@@ -74,13 +90,57 @@ public abstract class AFeatureModelElement implements IFeatureModelElement, IMut
         }
         checkType(attribute, value);
         validate(attribute, value);
-        attributeValues.put(attribute, value);
+        Object oldValue = getMutableAttributeValues().put(attribute, value);
+        fireAttributeEvent(attribute, oldValue, value);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <S> S removeAttributeValue(Attribute<S> attribute) {
-        return (S) attributeValues.remove(attribute);
+        S oldValue = (S) getMutableAttributeValues().remove(attribute);
+        if (oldValue != null) {
+            fireAttributeEvent(attribute, oldValue, null);
+        }
+        return oldValue;
+    }
+
+    /**
+     * Returns the attribute values of this element for a change, copying them first if they are shared.
+     *
+     * @return the attribute values
+     */
+    protected LinkedHashMap<IAttribute<?>, Object> getMutableAttributeValues() {
+        if (sharedAttributeValues) {
+            attributeValues = new LinkedHashMap<>(attributeValues);
+            sharedAttributeValues = false;
+        }
+        return attributeValues;
+    }
+
+    /**
+     * Notifies the listeners of the feature model about a change of this element.
+     *
+     * @param type the type of the change
+     * @param oldValue the value before the change
+     * @param newValue the value after the change
+     */
+    protected void fireEvent(FeatureModelEvent.Type type, Object oldValue, Object newValue) {
+        if (featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).fireEvent(type, this, oldValue, newValue);
+        }
+    }
+
+    /**
+     * Notifies the listeners of the feature model about a changed attribute value of this element.
+     *
+     * @param attribute the changed attribute
+     * @param oldValue the value before the change
+     * @param newValue the value after the change
+     */
+    protected void fireAttributeEvent(IAttribute<?> attribute, Object oldValue, Object newValue) {
+        if (featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).fireAttributeEvent(this, attribute, oldValue, newValue);
+        }
     }
 
     @Override
@@ -0,0 +1,918 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.Attribute;
+import de.featjar.base.data.IAttribute;
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.IIdentifier;
+import de.featjar.base.tree.Trees;
+import de.featjar.feature.model.IConstraint.IMutableConstraint;
+import de.featjar.feature.model.IFeature.IMutableFeature;
+import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import de.featjar.feature.model.event.FeatureModelEvent;
+import de.featjar.feature.model.event.IFeatureModelListener;
+import de.featjar.formula.structure.IFormula;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A feature model that can be read by many threads while another thread mutates it.
+ * Guards a mutable feature model with a {@link StampedLock}: mutators take the write lock, lookups by identifier,
+ * name, or index and copies of features, constraints, and the feature tree first try an optimistic read and only take
+ * the read lock if a mutation interfered.
+ * Collections and streams are copies taken under the lock, so iterating them always sees a consistent snapshot.
+ * Features and constraints returned by this feature model wrap the elements of the guarded feature model: their
+ * accessors take the read lock, and their mutators take the write lock.
+ * Feature tree nodes are read-only nodes of a {@link FeatureTreeSnapshot} that is taken under the read lock and
+ * reused until the feature model is modified, so the feature tree can only be mutated inside
+ * {@link #write(Function)}.
+ * Only {@link #read(Function)}, {@link #write(Function)}, and {@link #batch(Consumer)} give access to the elements of
+ * the guarded feature model itself.
+ * Listeners receive events whose feature model, source, and values are the elements of this feature model.
+ * They are notified after the write lock has been released, so they may read and mutate this feature model, and in the
+ * order of the writes, possibly on the thread of a later write.
+ */
+public class ConcurrentFeatureModel implements IMutableFeatureModel {
+
+    protected final IMutableFeatureModel featureModel;
+    protected final StampedLock lock = new StampedLock();
+
+    private final ConcurrentHashMap<IFeature, GuardedFeature> guardedFeatures = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<IConstraint, GuardedConstraint> guardedConstraints = new ConcurrentHashMap<>();
+
+    /**
+     * Registered listeners, {@code null} if there are none.
+     * Replaced on every registration, so listeners can safely (un-)register while an event is delivered.
+     */
+    private volatile List<IFeatureModelListener> listeners;
+
+    /**
+     * The events raised by the guarded feature model and the features and constraints removed from it during the
+     * current write.
+     * Only accessed while holding the write lock.
+     */
+    private final ArrayList<Events> writeEvents = new ArrayList<>();
+
+    private final ArrayList<Object> removedElements = new ArrayList<>();
+
+    /**
+     * The events of finished writes that are yet to be delivered, in the order of the writes.
+     * Only one thread at a time delivers events, the one holding the delivery lock.
+     */
+    private final ConcurrentLinkedQueue<Events> pendingEvents = new ConcurrentLinkedQueue<>();
+
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+
+    /**
+     * The last snapshot of the feature tree, together with the modification count it was taken at.
+     */
+    private volatile TreeSnapshot treeSnapshot;
+
+    private static final class TreeSnapshot {
+        private final FeatureTreeSnapshot snapshot;
+        private final long modificationCount;
+
+        private TreeSnapshot(FeatureTreeSnapshot snapshot, long modificationCount) {
+            this.snapshot = snapshot;
+            this.modificationCount = modificationCount;
+        }
+    }
+
+    /**
+     * The events of a single change, or of a batch if they have to be delivered via
+     * {@link IFeatureModelListener#onEvents(List)}.
+     */
+    private static final class Events {
+        private final List<FeatureModelEvent> events;
+        private final boolean batch;
+
+        private Events(List<FeatureModelEvent> events, boolean batch) {
+            this.events = events;
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * Collects the events of the guarded feature model while the write lock is held.
+     */
+    private final class GuardedModelListener implements IFeatureModelListener {
+        @Override
+        public void onEvent(FeatureModelEvent event) {
+            collect(List.of(event), false);
+        }
+
+        @Override
+        public void onEvents(List<FeatureModelEvent> events) {
+            collect(events, true);
+        }
+    }
+
+    /**
+     * A feature of the guarded feature model whose accessors take the read lock and whose mutators take the write
+     * lock.
+     */
+    private final class GuardedFeature implements IMutableFeature {
+        private final IFeature feature;
+
+        private GuardedFeature(IFeature feature) {
+            this.feature = feature;
+        }
+
+        @Override
+        public IIdentifier getIdentifier() {
+            return feature.getIdentifier();
+        }
+
+        @Override
+        public Optional<Map<IAttribute<?>, Object>> getAttributes() {
+            return optimisticRead(() -> copyAttributes(feature));
+        }
+
+        @Override
+        public IFeatureModel getFeatureModel() {
+            return ConcurrentFeatureModel.this;
+        }
+
+        @Override
+        public Result<IFeatureTree> getFeatureTree() {
+            return ConcurrentFeatureModel.this.getFeatureTree(this);
+        }
+
+        @Override
+        public Class<?> getType() {
+            return optimisticRead(feature::getType);
+        }
+
+        @Override
+        public IFeature clone() {
+            return read(featureModel -> feature.clone());
+        }
+
+        @Override
+        public IFeature clone(IFeatureModel newFeatureModel) {
+            return read(featureModel -> feature.clone(newFeatureModel));
+        }
+
+        @Override
+        public void setType(Class<?> type) {
+            write(featureModel -> {
+                feature.mutate().setType(type);
+                return null;
+            });
+        }
+
+        @Override
+        public void setName(String name) {
+            write(featureModel -> {
+                feature.mutate().setName(name);
+                return null;
+            });
+        }
+
+        @Override
+        public void setDescription(String description) {
+            write(featureModel -> {
+                feature.mutate().setDescription(description);
+                return null;
+            });
+        }
+
+        @Override
+        public <S> void setAttributeValue(Attribute<S> attribute, S value) {
+            write(featureModel -> {
+                feature.mutate().setAttributeValue(attribute, value);
+                return null;
+            });
+        }
+
+        @Override
+        public <S> S removeAttributeValue(Attribute<S> attribute) {
+            return write(featureModel -> feature.mutate().removeAttributeValue(attribute));
+        }
+
+        @Override
+        public String toString() {
+            return optimisticRead(feature::toString);
+        }
+    }
+
+    /**
+     * A constraint of the guarded feature model whose accessors take the read lock and whose mutators take the write
+     * lock.
+     */
+    private final class GuardedConstraint implements IMutableConstraint {
+        private final IConstraint constraint;
+
+        private GuardedConstraint(IConstraint constraint) {
+            this.constraint = constraint;
+        }
+
+        @Override
+        public IIdentifier getIdentifier() {
+            return constraint.getIdentifier();
+        }
+
+        @Override
+        public Optional<Map<IAttribute<?>, Object>> getAttributes() {
+            return optimisticRead(() -> copyAttributes(constraint));
+        }
+
+        @Override
+        public IFeatureModel getFeatureModel() {
+            return ConcurrentFeatureModel.this;
+        }
+
+        /**
+         * {@inheritDoc}
+         * Returns a copy of the formula, taken under the read lock.
+         */
+        @Override
+        public IFormula getFormula() {
+            return read(featureModel -> Trees.clone(constraint.getFormula()));
+        }
+
+        @Override
+        public long getContentHash() {
+            return read(featureModel -> constraint.getContentHash());
+        }
+
+        @Override
+        public List<IFeature> getReferencedFeatureList() {
+            return read(featureModel -> constraint.getReferencedFeatureList()).stream()
+                    .map(ConcurrentFeatureModel.this::guard)
+                    .collect(Collectors.toUnmodifiableList());
+        }
+
+        @Override
+        public LinkedHashSet<String> getTags() {
+            return optimisticRead(() -> new LinkedHashSet<>(constraint.getTags()));
+        }
+
+        @Override
+        public IConstraint clone() {
+            return read(featureModel -> constraint.clone());
+        }
+
+        @Override
+        public IConstraint clone(IFeatureModel newFeatureModel) {
+            return read(featureModel -> constraint.clone(newFeatureModel));
+        }
+
+        @Override
+        public void setFormula(IFormula formula) {
+            write(featureModel -> {
+                constraint.mutate().setFormula(formula);
+                return null;
+            });
+        }
+
+        @Override
+        public boolean addTag(String tag) {
+            return write(featureModel -> constraint.mutate().addTag(tag));
+        }
+
+        @Override
+        public boolean removeTag(String tag) {
+            return write(featureModel -> constraint.mutate().removeTag(tag));
+        }
+
+        @Override
+        public void setName(String name) {
+            write(featureModel -> {
+                constraint.mutate().setName(name);
+                return null;
+            });
+        }
+
+        @Override
+        public void setDescription(String description) {
+            write(featureModel -> {
+                constraint.mutate().setDescription(description);
+                return null;
+            });
+        }
+
+        @Override
+        public <S> void setAttributeValue(Attribute<S> attribute, S value) {
+            write(featureModel -> {
+                constraint.mutate().setAttributeValue(attribute, value);
+                return null;
+            });
+        }
+
+        @Override
+        public <S> S removeAttributeValue(Attribute<S> attribute) {
+            return write(featureModel -> constraint.mutate().removeAttributeValue(attribute));
+        }
+
+        @Override
+        public String toString() {
+            return optimisticRead(constraint::toString);
+        }
+    }
+
+    /**
+     * Creates a concurrent feature model that guards a given feature model.
+     * The given feature model must not be accessed directly afterwards.
+     *
+     * @param featureModel the guarded feature model
+     */
+    public ConcurrentFeatureModel(IMutableFeatureModel featureModel) {
+        this.featureModel = Objects.requireNonNull(featureModel);
+        featureModel.addListener(new GuardedModelListener());
+    }
+
+    /**
+     * Reads the guarded feature model while holding the read lock.
+     * Use this to combine several reads into a consistent view.
+     * The reader must not mutate the feature model or let it escape.
+     *
+     * @param <T> the type of the result
+     * @param reader the reader
+     * @return the result of the reader
+     */
+    public <T> T read(Function<? super IFeatureModel, T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.apply(featureModel);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reads or mutates the guarded feature model and its elements while holding the write lock.
+     * The writer must not let the feature model escape, and must not access this feature model, as the write lock is
+     * not reentrant.
+     * Listeners are notified about the changes after the write lock has been released, also if the writer fails.
+     *
+     * @param <T> the type of the result
+     * @param writer the writer
+     * @return the result of the writer
+     */
+    public <T> T write(Function<? super IMutableFeatureModel, T> writer) {
+        long stamp = lock.writeLock();
+        try {
+            return writer.apply(featureModel);
+        } finally {
+            try {
+                finishWrite();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            deliverEvents();
+        }
+    }
+
+    private void collect(List<FeatureModelEvent> events, boolean batch) {
+        for (FeatureModelEvent event : events) {
+            if (event.getType() == FeatureModelEvent.Type.FEATURE_REMOVED
+                    || event.getType() == FeatureModelEvent.Type.CONSTRAINT_REMOVED) {
+                removedElements.add(event.getSource());
+            }
+        }
+        if (listeners != null) {
+            writeEvents.add(new Events(events, batch));
+        }
+    }
+
+    /**
+     * Translates the events of the current write to the elements of this feature model and queues them for delivery,
+     * then discards the wrappers of removed features and constraints.
+     * Called while holding the write lock.
+     */
+    private void finishWrite() {
+        for (Events events : writeEvents) {
+            List<FeatureModelEvent> guardedEvents = new ArrayList<>(events.events.size());
+            for (FeatureModelEvent event : events.events) {
+                guardedEvents.add(new FeatureModelEvent(
+                        this,
+                        event.getType(),
+                        guardValue(event.getSource()),
+                        event.getAttribute().orElse(null),
+                        guardValue(event.getOldValue()),
+                        guardValue(event.getNewValue())));
+            }
+            pendingEvents.add(new Events(Collections.unmodifiableList(guardedEvents), events.batch));
+        }
+        writeEvents.clear();
+        for (Object element : removedElements) {
+            if (element instanceof IFeature && !featureModel.hasFeature((IFeature) element)) {
+                guardedFeatures.remove(element);
+            } else if (element instanceof IConstraint && !featureModel.hasConstraint((IConstraint) element)) {
+                guardedConstraints.remove(element);
+            }
+        }
+        removedElements.clear();
+    }
+
+    /**
+     * Delivers the queued events unless another thread is already delivering them.
+     * The delivery lock is reentrant, so the events of writes made by listeners are delivered right away.
+     */
+    private void deliverEvents() {
+        while (!pendingEvents.isEmpty() && deliveryLock.tryLock()) {
+            try {
+                Events events;
+                while ((events = pendingEvents.poll()) != null) {
+                    List<IFeatureModelListener> currentListeners = listeners;
+                    if (currentListeners != null) {
+                        for (IFeatureModelListener listener : currentListeners) {
+                            if (events.batch) {
+                                listener.onEvents(events.events);
+                            } else {
+                                events.events.forEach(listener::onEvent);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                deliveryLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Maps a value of an event of the guarded feature model to a value that does not give access to the guarded
+     * feature model.
+     * Tree nodes are mapped to the nodes of a snapshot taken after the write, formulas and ranges are copied.
+     * Called while holding the write lock.
+     */
+    private Object guardValue(Object value) {
+        if (value == featureModel) {
+            return this;
+        } else if (value instanceof IFeature) {
+            return guardEventFeature((IFeature) value);
+        } else if (value instanceof IConstraint) {
+            IConstraint constraint = (IConstraint) value;
+            GuardedConstraint guardedConstraint = guardedConstraints.get(constraint);
+            if (guardedConstraint != null) {
+                return guardedConstraint;
+            }
+            return featureModel.hasConstraint(constraint) ? guard(constraint) : new GuardedConstraint(constraint);
+        } else if (value instanceof IFeatureTree) {
+            IFeatureTree featureTree = (IFeatureTree) value;
+            if (FeatureTreeSnapshot.isNode(featureTree)) {
+                return featureTree;
+            }
+            FeatureTreeSnapshot snapshot = takeTreeSnapshot();
+            IFeature guardedFeature = guardedFeatures.get(featureTree.getFeature());
+            int index = guardedFeature == null ? -1 : snapshot.indexOf(guardedFeature);
+            return index >= 0
+                    ? snapshot.getNode(index)
+                    : FeatureTreeSnapshot.of(featureTree, this::guardEventFeature)
+                            .getRoots()
+                            .get(0);
+        } else if (value instanceof IFormula) {
+            return Trees.clone((IFormula) value);
+        } else if (value instanceof Range) {
+            return Range.copy((Range) value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the wrapper of a feature for an event without creating a lasting wrapper for removed features.
+     */
+    private IFeature guardEventFeature(IFeature feature) {
+        GuardedFeature guardedFeature = guardedFeatures.get(feature);
+        if (guardedFeature != null) {
+            return guardedFeature;
+        }
+        return featureModel.hasFeature(feature) ? guard(feature) : new GuardedFeature(feature);
+    }
+
+    /**
+     * Reads the guarded feature model optimistically without locking, and again under the read lock if a mutation
+     * interfered.
+     * Only used for reads that do not fill caches of the guarded feature model, as an interfered read may compute
+     * inconsistent values.
+     *
+     * @param <T> the type of the result
+     * @param reader the reader
+     * @return the result of the reader
+     */
+    protected <T> T optimisticRead(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // a concurrent mutation left the feature model in an inconsistent state, retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static Optional<Map<IAttribute<?>, Object>> copyAttributes(IFeatureModelElement element) {
+        return element.getAttributes().map(attributes -> Collections.unmodifiableMap(new LinkedHashMap<>(attributes)));
+    }
+
+    private IFeature guard(IFeature feature) {
+        return feature == null || feature instanceof GuardedFeature
+                ? feature
+                : guardedFeatures.computeIfAbsent(feature, GuardedFeature::new);
+    }
+
+    private IConstraint guard(IConstraint constraint) {
+        return constraint == null || constraint instanceof GuardedConstraint
+                ? constraint
+                : guardedConstraints.computeIfAbsent(constraint, GuardedConstraint::new);
+    }
+
+    /**
+     * Looks up a feature in a snapshot without creating a wrapper for it, so that lookups of features that are not
+     * contained in the feature model do not leave wrappers behind.
+     */
+    private int indexOf(FeatureTreeSnapshot snapshot, IFeature feature) {
+        Objects.requireNonNull(feature);
+        IFeature guardedFeature = feature instanceof GuardedFeature ? feature : guardedFeatures.get(feature);
+        return guardedFeature == null ? -1 : snapshot.indexOf(guardedFeature);
+    }
+
+    private static IFeature unwrap(IFeature feature) {
+        return feature instanceof GuardedFeature ? ((GuardedFeature) feature).feature : feature;
+    }
+
+    private static IConstraint unwrap(IConstraint constraint) {
+        return constraint instanceof GuardedConstraint ? ((GuardedConstraint) constraint).constraint : constraint;
+    }
+
+    /**
+     * Returns a snapshot of the feature tree, taking a new one under the read lock if the feature model has been
+     * modified since the last one.
+     * The nodes of the snapshot are labeled with guarded features.
+     *
+     * @return the snapshot
+     */
+    protected FeatureTreeSnapshot getTreeSnapshot() {
+        TreeSnapshot current = treeSnapshot;
+        if (current != null && current.modificationCount >= 0 && current.modificationCount == getModificationCount()) {
+            return current.snapshot;
+        }
+        return read(featureModel -> takeTreeSnapshot());
+    }
+
+    /**
+     * Returns a snapshot of the feature tree, taking a new one if the feature model has been modified since the last
+     * one.
+     * Called while holding the read or write lock.
+     *
+     * @return the snapshot
+     */
+    private FeatureTreeSnapshot takeTreeSnapshot() {
+        TreeSnapshot current = treeSnapshot;
+        long modificationCount = featureModel.getModificationCount();
+        if (current != null && modificationCount >= 0 && current.modificationCount == modificationCount) {
+            return current.snapshot;
+        }
+        TreeSnapshot newSnapshot =
+                new TreeSnapshot(FeatureTreeSnapshot.of(featureModel, this::guard), modificationCount);
+        treeSnapshot = newSnapshot;
+        return newSnapshot.snapshot;
+    }
+
+    @Override
+    public ConcurrentFeatureModel clone() {
+        return new ConcurrentFeatureModel(read(IFeatureModel::clone).mutate());
+    }
+
+    @Override
+    public IFeatureModel getFeatureModel() {
+        return this;
+    }
+
+    @Override
+    public IIdentifier getIdentifier() {
+        return featureModel.getIdentifier();
+    }
+
+    @Override
+    public Optional<Map<IAttribute<?>, Object>> getAttributes() {
+        return optimisticRead(() -> featureModel
+                .getAttributes()
+                .map(attributes -> Collections.unmodifiableMap(new LinkedHashMap<>(attributes))));
+    }
+
+    @Override
+    public <S> void setAttributeValue(Attribute<S> attribute, S value) {
+        write(featureModel -> {
+            featureModel.mutate().setAttributeValue(attribute, value);
+            return null;
+        });
+    }
+
+    @Override
+    public <S> S removeAttributeValue(Attribute<S> attribute) {
+        return write(featureModel -> featureModel.mutate().removeAttributeValue(attribute));
+    }
+
+    @Override
+    public void setName(String name) {
+        write(featureModel -> {
+            featureModel.setName(name);
+            return null;
+        });
+    }
+
+    @Override
+    public void setDescription(String description) {
+        write(featureModel -> {
+            featureModel.setDescription(description);
+            return null;
+        });
+    }
+
+    @Override
+    public Collection<IFeature> getFeatures() {
+        return optimisticRead(() -> featureModel.getFeatures().stream()
+                .map(this::guard)
+                .collect(Collectors.toUnmodifiableList()));
+    }
+
+    @Override
+    public int getNumberOfFeatures() {
+        return optimisticRead(featureModel::getNumberOfFeatures);
+    }
+
+    @Override
+    public long getModificationCount() {
+        return optimisticRead(featureModel::getModificationCount);
+    }
+
+    @Override
+    public long getContentHash() {
+        return read(IFeatureModel::getContentHash);
+    }
+
+    @Override
+    public Result<IFeature> getFeature(IIdentifier identifier) {
+        return optimisticRead(() -> featureModel.getFeature(identifier)).map(this::guard);
+    }
+
+    @Override
+    public Result<IFeature> getFeature(String name) {
+        return optimisticRead(() -> featureModel.getFeature(name)).map(this::guard);
+    }
+
+    @Override
+    public IFeature getFeature(int index) {
+        return guard(optimisticRead(() -> featureModel.getFeature(index)));
+    }
+
+    @Override
+    public int indexOf(IFeature feature) {
+        return optimisticRead(() -> featureModel.indexOf(unwrap(feature)));
+    }
+
+    @Override
+    public boolean hasFeature(IIdentifier identifier) {
+        return optimisticRead(() -> featureModel.hasFeature(identifier));
+    }
+
+    @Override
+    public boolean hasFeature(IFeature feature) {
+        return optimisticRead(() -> featureModel.hasFeature(unwrap(feature)));
+    }
+
+    @Override
+    public Collection<IConstraint> getConstraints() {
+        return optimisticRead(() -> featureModel.getConstraints().stream()
+                .map(this::guard)
+                .collect(Collectors.toUnmodifiableList()));
+    }
+
+    @Override
+    public Result<IConstraint> getConstraint(IIdentifier identifier) {
+        return optimisticRead(() -> featureModel.getConstraint(identifier)).map(this::guard);
+    }
+
+    @Override
+    public boolean hasConstraint(IIdentifier identifier) {
+        return optimisticRead(() -> featureModel.hasConstraint(identifier));
+    }
+
+    @Override
+    public boolean hasConstraint(IConstraint constraint) {
+        return optimisticRead(() -> featureModel.hasConstraint(unwrap(constraint)));
+    }
+
+    @Override
+    public int getNumberOfConstraints() {
+        return optimisticRead(featureModel::getNumberOfConstraints);
+    }
+
+    @Override
+    public List<IFeatureTree> getRoots() {
+        return getTreeSnapshot().getRoots();
+    }
+
+    @Override
+    public Stream<IFeatureTree> getFeatureTreeStream() {
+        return getTreeSnapshot().getFeatureTreeStream();
+    }
+
+    @Override
+    public LinkedHashSet<IFeature> getTreeFeatures() {
+        return getTreeSnapshot().getTreeFeatures();
+    }
+
+    @Override
+    public int getNumberOfTreeFeatures() {
+        return getTreeSnapshot().getNumberOfTreeFeatures();
+    }
+
+    @Override
+    public List<IFeature> getRootFeatures() {
+        return getTreeSnapshot().getRootFeatures();
+    }
+
+    @Override
+    public Result<IFeature> getTreeFeature(IIdentifier identifier) {
+        return getTreeSnapshot().getTreeFeature(identifier);
+    }
+
+    @Override
+    public Result<IFeature> getTreeFeature(String name) {
+        return getTreeSnapshot().getTreeFeature(name);
+    }
+
+    @Override
+    public Result<IFeatureTree> getFeatureTree(String name) {
+        return getTreeSnapshot().getFeatureTree(name);
+    }
+
+    @Override
+    public Result<IFeatureTree> getFeatureTree(IFeature feature) {
+        FeatureTreeSnapshot snapshot = getTreeSnapshot();
+        int index = indexOf(snapshot, feature);
+        return index < 0 ? Result.empty() : Result.of(snapshot.getNode(index));
+    }
+
+    @Override
+    public boolean hasTreeFeature(IIdentifier identifier) {
+        return getTreeSnapshot().getTreeFeature(identifier).isPresent();
+    }
+
+    @Override
+    public boolean hasTreeFeature(IFeature feature) {
+        return indexOf(getTreeSnapshot(), feature) >= 0;
+    }
+
+    @Override
+    public IFeature addFeature(String name) {
+        return guard(write(featureModel -> featureModel.addFeature(name)));
+    }
+
+    @Override
+    public boolean removeFeature(IFeature feature) {
+        return write(featureModel -> featureModel.removeFeature(unwrap(feature)));
+    }
+
+    @Override
+    public IConstraint addConstraint(IFormula formula) {
+        return guard(write(featureModel -> featureModel.addConstraint(formula)));
+    }
+
+    @Override
+    public boolean removeConstraint(IConstraint constraint) {
+        return write(featureModel -> featureModel.removeConstraint(unwrap(constraint)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Returns a read-only node of a snapshot taken after the root was added.
+     */
+    @Override
+    public IFeatureTree addFeatureTreeRoot(IFeature feature) {
+        write(featureModel -> featureModel.addFeatureTreeRoot(unwrap(feature)));
+        return getFeatureTree(feature).orElse(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the tree is a read-only node of a snapshot, such as the nodes returned by
+     *     this feature model
+     */
+    @Override
+    public void addFeatureTreeRoot(IFeatureTree featureTree) {
+        if (FeatureTreeSnapshot.isNode(featureTree) || featureTree.getFeature() instanceof GuardedFeature) {
+            throw new IllegalArgumentException("read-only tree nodes cannot be added as root");
+        }
+        write(featureModel -> {
+            featureModel.addFeatureTreeRoot(featureTree);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * Root nodes returned by this feature model remove the root of the guarded feature tree they were taken from,
+     * even if the feature model has been modified since.
+     */
+    @Override
+    public void removeFeatureTreeRoot(IFeatureTree featureTree) {
+        IFeatureTree sourceRoot = FeatureTreeSnapshot.getSourceRoot(featureTree);
+        IFeatureTree root = sourceRoot == null ? featureTree : sourceRoot;
+        write(featureModel -> {
+            featureModel.removeFeatureTreeRoot(root);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeFeatureTreeRoot(IFeature feature) {
+        write(featureModel -> {
+            featureModel.removeFeatureTreeRoot(unwrap(feature));
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The mutations are applied to the guarded feature model while holding the write lock, like a writer of
+     * {@link #write(Function)}: they must not let the feature model escape and must not access this feature model.
+     */
+    @Override
+    public void batch(Consumer<? super IMutableFeatureModel> mutations) {
+        write(featureModel -> {
+            featureModel.batch(mutations);
+            return null;
+        });
+    }
+
+    @Override
+    public void addListener(IFeatureModelListener listener) {
+        Objects.requireNonNull(listener);
+        write(featureModel -> {
+            List<IFeatureModelListener> newListeners =
+                    listeners == null ? new ArrayList<>(1) : new ArrayList<>(listeners);
+            newListeners.add(listener);
+            listeners = newListeners;
+            return null;
+        });
+    }
+
+    @Override
+    public boolean removeListener(IFeatureModelListener listener) {
+        return write(featureModel -> {
+            if (listeners == null || !listeners.contains(listener)) {
+                return false;
+            }
+            List<IFeatureModelListener> newListeners = new ArrayList<>(listeners);
+            newListeners.remove(listener);
+            listeners = newListeners.isEmpty() ? null : newListeners;
+            return true;
+        });
+    }
+
+    @Override
+    public String toString() {
+        return read(Object::toString);
+    }
+}
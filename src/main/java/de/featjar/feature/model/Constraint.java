@@ -20,15 +20,26 @@
  */
 package de.featjar.feature.model;
 
-import de.featjar.base.data.Sets;
 import de.featjar.base.tree.Trees;
 import de.featjar.feature.model.IConstraint.IMutableConstraint;
+import de.featjar.feature.model.event.FeatureModelEvent;
 import de.featjar.formula.structure.IFormula;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class Constraint extends AFeatureModelElement implements IMutableConstraint {
     protected IFormula formula;
-    protected final LinkedHashSet<IFeature> containedFeaturesCache = Sets.empty();
+    /**
+     * The distinct features referenced by {@link #formula}, resolved whenever the formula is set, or at the end of
+     * the current {@link FeatureModel#batch(java.util.function.Consumer) batch}.
+     */
+    protected IFeature[] referencedFeatures = new IFeature[0];
+
+    /**
+     * The content hash of {@link #formula}, 0 if it has to be recomputed.
+     */
+    protected volatile long contentHash;
 
     protected Constraint(IFeatureModel featureModel, IFormula formula) {
         super(featureModel);
@@ -44,6 +55,22 @@ public class Constraint extends AFeatureModelElement implements IMutableConstrai
         setFormula(Trees.clone(otherConstraint.formula));
     }
 
+    /**
+     * Copies a constraint into a copy-on-write clone of its feature model.
+     * Shares the formula and the attribute values with the other constraint instead of cloning them.
+     * As {@link #setFormula(IFormula)} replaces formulas, the shared formula must not be mutated in place.
+     *
+     * @param otherConstraint the constraint to copy
+     * @param newFeatureModel the clone of the feature model
+     * @param referencedFeatures the features of the clone that are referenced by the formula
+     */
+    protected Constraint(Constraint otherConstraint, IFeatureModel newFeatureModel, IFeature[] referencedFeatures) {
+        super(otherConstraint, newFeatureModel, true);
+        formula = otherConstraint.formula;
+        this.referencedFeatures = referencedFeatures;
+        contentHash = otherConstraint.contentHash;
+    }
+
     @Override
     public Constraint clone() {
         return new Constraint(this);
@@ -51,7 +78,7 @@ public class Constraint extends AFeatureModelElement implements IMutableConstrai
 
     @Override
     public Constraint clone(IFeatureModel newFeatureModel) {
-        return new Constraint(this);
+        return new Constraint(this, newFeatureModel);
     }
 
     @Override
@@ -60,8 +87,21 @@ public class Constraint extends AFeatureModelElement implements IMutableConstrai
     }
 
     @Override
-    public LinkedHashSet<IFeature> getReferencedFeatures() {
-        return containedFeaturesCache;
+    public long getContentHash() {
+        long hash = contentHash;
+        if (hash == 0) {
+            hash = ContentHashes.of(formula);
+            if (hash == 0) {
+                hash = 1;
+            }
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    @Override
+    public List<IFeature> getReferencedFeatureList() {
+        return Collections.unmodifiableList(Arrays.asList(referencedFeatures));
     }
 
     @Override
@@ -71,18 +111,38 @@ public class Constraint extends AFeatureModelElement implements IMutableConstrai
 
     @Override
     public void setFormula(IFormula formula) {
-        containedFeaturesCache.clear();
-        containedFeaturesCache.addAll(IConstraint.getReferencedFeatures(formula, featureModel));
-        Constraint.this.formula = formula;
+        IFormula oldFormula = this.formula;
+        this.formula = formula;
+        contentHash = 0;
+        if (!(featureModel instanceof FeatureModel && ((FeatureModel) featureModel).deferReferencedFeatures(this))) {
+            updateReferencedFeatures();
+        }
+        if (oldFormula != null && featureModel.hasConstraint(this)) {
+            fireEvent(FeatureModelEvent.Type.CONSTRAINT_CHANGED, oldFormula, formula);
+        }
+    }
+
+    /**
+     * Resolves the features referenced by the formula and updates the reference index of the feature model.
+     */
+    protected void updateReferencedFeatures() {
+        IFeature[] newFeatures = IConstraint.resolveReferencedFeatures(formula, featureModel);
+        if (featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel)
+                    .updateReferences(this, Arrays.asList(referencedFeatures), Arrays.asList(newFeatures));
+        }
+        referencedFeatures = newFeatures;
     }
 
     @Override
     public void setName(String name) {
-        attributeValues.put(Attributes.NAME, name);
+        Object oldName = getMutableAttributeValues().put(Attributes.NAME, name);
+        fireAttributeEvent(Attributes.NAME, oldName, name);
     }
 
     @Override
     public void setDescription(String description) {
-        attributeValues.put(Attributes.DESCRIPTION, description);
+        Object oldDescription = getMutableAttributeValues().put(Attributes.DESCRIPTION, description);
+        fireAttributeEvent(Attributes.DESCRIPTION, oldDescription, description);
     }
 }
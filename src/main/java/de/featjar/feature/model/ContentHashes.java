@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.List;
+
+/**
+ * Computes Merkle-style content hashes of feature trees, constraints, and feature models.
+ * The hash of a node is derived from its own content and the hashes of its children, so structurally equal subtrees
+ * have equal hashes regardless of the identity of their features, and the hash of a subtree can be reused by its
+ * ancestors until the subtree changes.
+ */
+final class ContentHashes {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private ContentHashes() {}
+
+    /**
+     * Computes the content hash of a feature tree node.
+     * Covers the name of its feature, its feature range and group ID, the ranges of its groups, and the content hashes
+     * of its children in order.
+     *
+     * @param tree the feature tree node
+     * @return the content hash
+     */
+    static long of(IFeatureTree tree) {
+        long hash = combine(SEED, of(tree.getFeature().getName().orElse("")));
+        hash = combine(hash, tree.getFeatureRangeLowerBound());
+        hash = combine(hash, tree.getFeatureRangeUpperBound());
+        hash = combine(hash, tree.getGroupID());
+        List<Group> groups = tree.getGroups();
+        hash = combine(hash, groups.size());
+        for (Group group : groups) {
+            hash = combine(hash, group.getLowerBound());
+            hash = combine(hash, group.getUpperBound());
+        }
+        List<? extends IFeatureTree> children = tree.getChildren();
+        hash = combine(hash, children.size());
+        for (IFeatureTree child : children) {
+            hash = combine(hash, child.getContentHash());
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the content hash of a formula or any of its subexpressions.
+     *
+     * @param expression the expression
+     * @return the content hash
+     */
+    static long of(IExpression expression) {
+        long hash = combine(SEED, expression.getClass().getName().hashCode());
+        hash = combine(hash, expression.hashCodeNode());
+        if (expression instanceof Variable) {
+            hash = combine(hash, of(((Variable) expression).getName()));
+        }
+        List<? extends IExpression> children = expression.getChildren();
+        hash = combine(hash, children.size());
+        for (IExpression child : children) {
+            hash = combine(hash, of(child));
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the content hash of a feature model from the content hashes of its feature trees and constraints.
+     *
+     * @param featureModel the feature model
+     * @return the content hash
+     */
+    static long of(IFeatureModel featureModel) {
+        List<IFeatureTree> roots = featureModel.getRoots();
+        long hash = combine(SEED, roots.size());
+        for (IFeatureTree root : roots) {
+            hash = combine(hash, root.getContentHash());
+        }
+        hash = combine(hash, featureModel.getNumberOfConstraints());
+        for (IConstraint constraint : featureModel.getConstraints()) {
+            hash = combine(hash, constraint.getContentHash());
+        }
+        return hash;
+    }
+
+    private static long of(String string) {
+        // 64-bit FNV-1a, as String#hashCode collides too often for deduplication
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < string.length(); i++) {
+            hash = (hash ^ string.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static long combine(long hash, long value) {
+        // finalizer of SplitMix64, so that every bit of the inputs affects every bit of the result
+        long z = hash * 31 + value + SEED;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
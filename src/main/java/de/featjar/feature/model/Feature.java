@@ -20,12 +20,20 @@
  */
 package de.featjar.feature.model;
 
+import de.featjar.base.data.Attribute;
 import de.featjar.base.data.Result;
 import de.featjar.feature.model.IFeature.IMutableFeature;
+import de.featjar.feature.model.event.FeatureModelEvent;
+import java.util.LinkedHashSet;
 
 public class Feature extends AFeatureModelElement implements IMutableFeature {
     protected Class<?> type;
 
+    /**
+     * The dense index of this feature in its feature model, maintained by {@link FeatureModel}.
+     */
+    protected int index = -1;
+
     protected Feature(IFeatureModel featureModel) {
         super(featureModel);
     }
@@ -35,7 +43,11 @@ public class Feature extends AFeatureModelElement implements IMutableFeature {
     }
 
     protected Feature(Feature otherFeature, IFeatureModel newFeatureModel) {
-        super(otherFeature, newFeatureModel);
+        this(otherFeature, newFeatureModel, false);
+    }
+
+    protected Feature(Feature otherFeature, IFeatureModel newFeatureModel, boolean copyOnWrite) {
+        super(otherFeature, newFeatureModel, copyOnWrite);
         type = otherFeature.type;
     }
 
@@ -46,7 +58,7 @@ public class Feature extends AFeatureModelElement implements IMutableFeature {
 
     @Override
     public Feature clone(IFeatureModel newFeatureModel) {
-        return new Feature(this);
+        return new Feature(this, newFeatureModel);
     }
 
     @Override
@@ -61,7 +73,25 @@ public class Feature extends AFeatureModelElement implements IMutableFeature {
 
     @Override
     public void setType(Class<?> type) {
+        Class<?> oldType = this.type;
         this.type = type;
+        fireEvent(FeatureModelEvent.Type.FEATURE_TYPE_CHANGED, oldType, type);
+    }
+
+    @Override
+    public boolean hasHiddenParent() {
+        if (index >= 0 && featureModel instanceof FeatureModel) {
+            return ((FeatureModel) featureModel).hasHiddenParent(this);
+        }
+        return IMutableFeature.super.hasHiddenParent();
+    }
+
+    @Override
+    public LinkedHashSet<IConstraint> getReferencingConstraints() {
+        if (index >= 0 && featureModel instanceof FeatureModel) {
+            return ((FeatureModel) featureModel).getReferencingConstraints(this);
+        }
+        return IMutableFeature.super.getReferencingConstraints();
     }
 
     @Override
@@ -71,11 +101,45 @@ public class Feature extends AFeatureModelElement implements IMutableFeature {
 
     @Override
     public void setName(String name) {
-        attributeValues.put(Attributes.NAME, name);
+        String oldName = getName().orElse(null);
+        getMutableAttributeValues().put(Attributes.NAME, name);
+        nameChanged(oldName);
+    }
+
+    @Override
+    public <S> void setAttributeValue(Attribute<S> attribute, S value) {
+        if (value != null && Attributes.NAME.equals(attribute)) {
+            checkType(attribute, value);
+            if (!(featureModel instanceof FeatureModel && ((FeatureModel) featureModel).deferNameValidation(this))) {
+                validate(attribute, value);
+            }
+            setName((String) value);
+        } else {
+            super.setAttributeValue(attribute, value);
+        }
+    }
+
+    @Override
+    public <S> S removeAttributeValue(Attribute<S> attribute) {
+        if (Attributes.NAME.equals(attribute)) {
+            String oldName = getName().orElse(null);
+            @SuppressWarnings("unchecked")
+            S value = (S) getMutableAttributeValues().remove(attribute);
+            nameChanged(oldName);
+            return value;
+        }
+        return super.removeAttributeValue(attribute);
+    }
+
+    private void nameChanged(String oldName) {
+        if (featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).updateFeatureName(this, oldName, getName().get());
+        }
     }
 
     @Override
     public void setDescription(String description) {
-        attributeValues.put(Attributes.DESCRIPTION, description);
+        Object oldDescription = getMutableAttributeValues().put(Attributes.DESCRIPTION, description);
+        fireAttributeEvent(Attributes.DESCRIPTION, oldDescription, description);
     }
 }
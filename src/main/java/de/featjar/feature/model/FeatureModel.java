@@ -25,20 +25,27 @@ import de.featjar.base.data.IAttributable.IMutatableAttributable;
 import de.featjar.base.data.IAttribute;
 import de.featjar.base.data.Maps;
 import de.featjar.base.data.Result;
+import de.featjar.base.data.Sets;
 import de.featjar.base.data.identifier.IIdentifier;
 import de.featjar.base.data.identifier.UUIDIdentifier;
 import de.featjar.base.tree.Trees;
 import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import de.featjar.feature.model.event.FeatureModelEvent;
+import de.featjar.feature.model.event.IFeatureModelListener;
 import de.featjar.formula.structure.IFormula;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class FeatureModel implements IMutableFeatureModel, IMutatableAttributable {
 
@@ -48,7 +55,71 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
     protected final LinkedHashMap<IIdentifier, IFeature> features;
     protected final LinkedHashMap<IIdentifier, IConstraint> constraints;
 
-    protected final LinkedHashMap<IAttribute<?>, Object> attributeValues;
+    /**
+     * Index from feature names to the features with that name, in the order in which they took the name.
+     * Names are not guaranteed to be unique, so {@link #getFeature(String)} returns the first of these features.
+     */
+    protected final HashMap<String, List<IFeature>> featuresByName;
+
+    protected final ArrayList<IFeature> featuresByIndex;
+    protected final HashMap<IIdentifier, LinkedHashSet<IConstraint>> constraintsByFeature;
+
+    protected LinkedHashMap<IAttribute<?>, Object> attributeValues;
+
+    /**
+     * Whether {@link #attributeValues} is shared with a copy-on-write clone and has to be copied before a change.
+     */
+    protected boolean sharedAttributeValues;
+
+    /**
+     * Bitsets over the feature indices that mark features in the feature tree and features with a hidden ancestor,
+     * {@code null} if they have to be recomputed.
+     * Volatile like the other lazily computed indices, so that concurrent readers can safely publish them.
+     */
+    protected volatile long[] treeFeatureMask, hiddenParentMask;
+
+    /**
+     * Indices from feature identifiers and feature names to the first node in pre-order of the feature tree that
+     * holds the feature, {@code null} if they have to be recomputed.
+     */
+    protected volatile LinkedHashMap<IIdentifier, IFeatureTree> treesByFeature;
+
+    protected volatile HashMap<String, IFeatureTree> treesByName;
+
+    /**
+     * The number of changes of this feature model, see {@link #getModificationCount()}.
+     */
+    protected long modificationCount;
+
+    /**
+     * The content hash of this feature model and the modification count it was computed at.
+     */
+    protected volatile long contentHash;
+
+    protected volatile long contentHashModificationCount = -1;
+
+    /**
+     * The nesting depth of {@link #batch(Consumer)}.
+     */
+    protected int batchDepth;
+
+    /**
+     * Work deferred until the outermost batch ends: the constraints whose referenced features have to be resolved,
+     * and the renamed features whose names have to be checked for uniqueness, mapped to their names before the batch.
+     */
+    protected LinkedHashSet<Constraint> deferredConstraints;
+    protected LinkedHashMap<IFeature, String> deferredNameValidations;
+
+    /**
+     * Registered listeners, {@code null} if there are none.
+     * Replaced on every registration, so listeners can safely (un-)register while an event is delivered.
+     */
+    protected List<IFeatureModelListener> listeners;
+
+    /**
+     * Events that occurred in the current batch, {@code null} if there are none.
+     */
+    protected List<FeatureModelEvent> deferredEvents;
 
     public FeatureModel() {
         this(UUIDIdentifier.newInstance());
@@ -59,26 +130,115 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
         featureTreeRoots = new ArrayList<>(1);
         features = Maps.empty();
         constraints = Maps.empty();
+        featuresByName = new HashMap<>();
+        featuresByIndex = new ArrayList<>();
+        constraintsByFeature = new HashMap<>();
         attributeValues = new LinkedHashMap<>(4);
     }
 
     protected FeatureModel(FeatureModel otherFeatureModel) {
+        this(otherFeatureModel, false);
+    }
+
+    /**
+     * Copies a feature model.
+     * Features keep their dense indices, and the feature tree is rebuilt for the copied features.
+     *
+     * @param otherFeatureModel the feature model to copy
+     * @param copyOnWrite whether to share formulas, groups, feature ranges, and attribute values with the other
+     *     feature model until either model changes them
+     */
+    protected FeatureModel(FeatureModel otherFeatureModel, boolean copyOnWrite) {
         identifier = otherFeatureModel.getNewIdentifier();
 
-        featureTreeRoots = new ArrayList<>(otherFeatureModel.featureTreeRoots.size());
-        otherFeatureModel.featureTreeRoots.stream().forEach(t -> featureTreeRoots.add(Trees.clone(t)));
-
+        IFeature[] copiedFeatures = new IFeature[otherFeatureModel.featuresByIndex.size()];
         features = new LinkedHashMap<>((int) (otherFeatureModel.features.size() * 1.5));
-        otherFeatureModel.features.entrySet().stream()
-                .map(e -> e.getValue().clone(this))
-                .forEach(f -> features.put(f.getIdentifier(), f));
+        for (IFeature otherFeature : otherFeatureModel.features.values()) {
+            IFeature feature = copyOnWrite && otherFeature instanceof Feature
+                    ? new Feature((Feature) otherFeature, this, true)
+                    : otherFeature.clone(this);
+            features.put(feature.getIdentifier(), feature);
+            copiedFeatures[getIndex(otherFeatureModel, otherFeature)] = feature;
+        }
+        featuresByIndex = new ArrayList<>(copiedFeatures.length);
+        for (IFeature feature : copiedFeatures) {
+            addToIndex(feature);
+        }
+        featuresByName = new HashMap<>((int) (otherFeatureModel.featuresByName.size() * 1.5));
+        for (Map.Entry<String, List<IFeature>> entry : otherFeatureModel.featuresByName.entrySet()) {
+            List<IFeature> namedFeatures = new ArrayList<>(entry.getValue().size());
+            for (IFeature otherFeature : entry.getValue()) {
+                namedFeatures.add(copiedFeatures[getIndex(otherFeatureModel, otherFeature)]);
+            }
+            featuresByName.put(entry.getKey(), namedFeatures);
+        }
+
+        featureTreeRoots = new ArrayList<>(otherFeatureModel.featureTreeRoots.size());
+        for (IFeatureTree otherRoot : otherFeatureModel.featureTreeRoots) {
+            featureTreeRoots.add(copyFeatureTree(otherRoot, otherFeatureModel, copiedFeatures, copyOnWrite));
+        }
 
         constraints = new LinkedHashMap<>((int) (otherFeatureModel.constraints.size() * 1.5));
-        otherFeatureModel.constraints.entrySet().stream()
-                .map(e -> e.getValue().clone(this))
-                .forEach(c -> constraints.put(c.getIdentifier(), c));
+        for (IConstraint otherConstraint : otherFeatureModel.constraints.values()) {
+            IFeature[] referencedFeatures = copyOnWrite && otherConstraint instanceof Constraint
+                    ? getCopiedFeatures(otherConstraint.getReferencedFeatureList(), otherFeatureModel, copiedFeatures)
+                    : null;
+            IConstraint constraint = referencedFeatures != null
+                    ? new Constraint((Constraint) otherConstraint, this, referencedFeatures)
+                    : otherConstraint.clone(this);
+            constraints.put(constraint.getIdentifier(), constraint);
+        }
+        constraintsByFeature = new HashMap<>((int) (otherFeatureModel.constraintsByFeature.size() * 1.5));
+        constraints.values().forEach(c -> addReferences(c, c.getReferencedFeatureList()));
+
+        if (copyOnWrite) {
+            attributeValues = otherFeatureModel.attributeValues;
+            otherFeatureModel.sharedAttributeValues = true;
+            sharedAttributeValues = true;
+        } else {
+            attributeValues = otherFeatureModel.cloneAttributes();
+        }
+    }
 
-        attributeValues = otherFeatureModel.cloneAttributes();
+    private static int getIndex(FeatureModel featureModel, IFeature feature) {
+        int index = featureModel.indexOf(feature);
+        if (index < 0) {
+            throw new IllegalStateException("Feature " + feature.getIdentifier() + " is not indexed");
+        }
+        return index;
+    }
+
+    /**
+     * Maps features of another feature model to their copies.
+     *
+     * @return the copied features, or {@code null} if any of the features is not indexed in the other feature model
+     */
+    private static IFeature[] getCopiedFeatures(
+            List<IFeature> otherFeatures, FeatureModel otherFeatureModel, IFeature[] copiedFeatures) {
+        IFeature[] features = new IFeature[otherFeatures.size()];
+        for (int i = 0; i < features.length; i++) {
+            int index = otherFeatureModel.indexOf(otherFeatures.get(i));
+            if (index < 0) {
+                return null;
+            }
+            features[i] = copiedFeatures[index];
+        }
+        return features;
+    }
+
+    private static IFeatureTree copyFeatureTree(
+            IFeatureTree otherTree, FeatureModel otherFeatureModel, IFeature[] copiedFeatures, boolean copyOnWrite) {
+        if (!(otherTree instanceof FeatureTree)) {
+            return Trees.clone(otherTree);
+        }
+        IFeature otherFeature = otherTree.getFeature();
+        int index = otherFeatureModel.indexOf(otherFeature);
+        FeatureTree tree =
+                new FeatureTree((FeatureTree) otherTree, index < 0 ? otherFeature : copiedFeatures[index], copyOnWrite);
+        for (IFeatureTree otherChild : otherTree.getChildren()) {
+            tree.addChild(copyFeatureTree(otherChild, otherFeatureModel, copiedFeatures, copyOnWrite));
+        }
+        return tree;
     }
 
     @Override
@@ -86,6 +246,20 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
         return new FeatureModel(this);
     }
 
+    /**
+     * Creates a copy of this feature model that shares formulas, groups, feature ranges, and attribute values with
+     * this feature model.
+     * A shared structure is only copied by the first mutator that changes it in either model, so cloning a large
+     * model to change only a few of its elements allocates little beyond the features, constraints, and tree nodes.
+     * Formulas of constraints are replaced, never copied, by {@link IConstraint.IMutableConstraint#setFormula}, so
+     * they must not be mutated in place.
+     *
+     * @return the copy-on-write clone
+     */
+    public FeatureModel cloneCopyOnWrite() {
+        return new FeatureModel(this, true);
+    }
+
     @Override
     public FeatureModel getFeatureModel() {
         return this;
@@ -149,13 +323,18 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
         }
         checkType(attribute, value);
         validate(attribute, value);
-        attributeValues.put(attribute, value);
+        Object oldValue = getMutableAttributeValues().put(attribute, value);
+        fireAttributeEvent(this, attribute, oldValue, value);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <S> S removeAttributeValue(Attribute<S> attribute) {
-        return (S) attributeValues.remove(attribute);
+        S oldValue = (S) getMutableAttributeValues().remove(attribute);
+        if (oldValue != null) {
+            fireAttributeEvent(this, attribute, oldValue, null);
+        }
+        return oldValue;
     }
 
     @Override
@@ -183,31 +362,45 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
 
     @Override
     public void setName(String name) {
-        attributeValues.put(Attributes.NAME, name);
+        Object oldName = getMutableAttributeValues().put(Attributes.NAME, name);
+        fireAttributeEvent(this, Attributes.NAME, oldName, name);
     }
 
     @Override
     public void setDescription(String description) {
-        attributeValues.put(Attributes.DESCRIPTION, description);
+        Object oldDescription = getMutableAttributeValues().put(Attributes.DESCRIPTION, description);
+        fireAttributeEvent(this, Attributes.DESCRIPTION, oldDescription, description);
+    }
+
+    private LinkedHashMap<IAttribute<?>, Object> getMutableAttributeValues() {
+        if (sharedAttributeValues) {
+            attributeValues = new LinkedHashMap<>(attributeValues);
+            sharedAttributeValues = false;
+        }
+        return attributeValues;
     }
 
     @Override
     public IFeatureTree addFeatureTreeRoot(IFeature feature) {
         FeatureTree newTree = new FeatureTree(feature);
         featureTreeRoots.add(newTree);
+        fireEvent(FeatureModelEvent.Type.ROOT_ADDED, newTree, null, null);
         return newTree;
     }
 
     @Override
     public void addFeatureTreeRoot(IFeatureTree featureTree) {
         featureTreeRoots.add(featureTree);
+        fireEvent(FeatureModelEvent.Type.ROOT_ADDED, featureTree, null, null);
     }
 
     @Override
     public void removeFeatureTreeRoot(IFeature feature) {
         for (Iterator<IFeatureTree> it = featureTreeRoots.listIterator(); it.hasNext(); ) {
-            if (it.next().getFeature().equals(feature)) {
+            IFeatureTree featureTree = it.next();
+            if (featureTree.getFeature().equals(feature)) {
                 it.remove();
+                fireEvent(FeatureModelEvent.Type.ROOT_REMOVED, featureTree, null, null);
             }
         }
     }
@@ -217,6 +410,7 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
         for (Iterator<IFeatureTree> it = featureTreeRoots.listIterator(); it.hasNext(); ) {
             if (it.next() == featureTree) {
                 it.remove();
+                fireEvent(FeatureModelEvent.Type.ROOT_REMOVED, featureTree, null, null);
             }
         }
     }
@@ -225,13 +419,20 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
     public IConstraint addConstraint(IFormula formula) {
         IConstraint newConstraint = new Constraint(this, Trees.clone(formula));
         constraints.put(newConstraint.getIdentifier(), newConstraint);
+        addReferences(newConstraint, newConstraint.getReferencedFeatureList());
+        fireEvent(FeatureModelEvent.Type.CONSTRAINT_ADDED, newConstraint, null, null);
         return newConstraint;
     }
 
     @Override
     public boolean removeConstraint(IConstraint constraint) {
         Objects.requireNonNull(constraint);
-        return constraints.remove(constraint.getIdentifier()) != null;
+        if (constraints.remove(constraint.getIdentifier()) == null) {
+            return false;
+        }
+        removeReferences(constraint, constraint.getReferencedFeatureList());
+        fireEvent(FeatureModelEvent.Type.CONSTRAINT_REMOVED, constraint, null, null);
+        return true;
     }
 
     @Override
@@ -240,12 +441,513 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
         Feature feature = new Feature(this);
         feature.setName(name);
         features.put(feature.getIdentifier(), feature);
+        addToNameIndex(feature, name);
+        addToIndex(feature);
+        fireEvent(FeatureModelEvent.Type.FEATURE_ADDED, feature, null, null);
         return feature;
     }
 
     @Override
     public boolean removeFeature(IFeature feature) {
-        return features.remove(feature.getIdentifier()) != null;
+        IFeature removedFeature = features.remove(feature.getIdentifier());
+        if (removedFeature == null) {
+            return false;
+        }
+        removeFromNameIndex(removedFeature, removedFeature.getName().orElse(null));
+        removeFromIndex(removedFeature);
+        fireEvent(FeatureModelEvent.Type.FEATURE_REMOVED, removedFeature, null, null);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Until the outermost batch ends, referenced features of added or changed constraints are not resolved, and the
+     * uniqueness of names set as {@link Attributes#NAME name attribute} is not checked.
+     * If the names are not unique then, the features renamed in the batch get back their previous names before the
+     * exception is thrown, while the other mutations of the batch stay applied.
+     * Listeners receive the events of the batch at once by {@link IFeatureModelListener#onEvents(List)}.
+     *
+     * @throws IllegalArgumentException if a feature was given a name in the batch that another feature has
+     */
+    @Override
+    public void batch(Consumer<? super IMutableFeatureModel> mutations) {
+        if (batchDepth++ == 0) {
+            deferredConstraints = new LinkedHashSet<>();
+            deferredNameValidations = new LinkedHashMap<>();
+        }
+        boolean completed = false;
+        try {
+            mutations.accept(this);
+            completed = true;
+        } finally {
+            if (batchDepth == 1) {
+                // events of reverted names are still collected, so listeners receive them after the batch events
+                try {
+                    commitBatch(completed);
+                } finally {
+                    batchDepth = 0;
+                    fireDeferredEvents();
+                }
+            } else {
+                batchDepth--;
+            }
+        }
+    }
+
+    /**
+     * Performs the work deferred in the current batch.
+     * Names are validated first, so that referenced features are resolved against the final names, and all
+     * constraints are resolved even if the validation or the resolution of another constraint fails.
+     *
+     * @param throwOnDuplicateNames whether to throw if names are not unique, false if the batch failed anyway
+     */
+    private void commitBatch(boolean throwOnDuplicateNames) {
+        LinkedHashSet<Constraint> constraintsToResolve = deferredConstraints;
+        LinkedHashMap<IFeature, String> renamedFeatures = deferredNameValidations;
+        deferredConstraints = null;
+        deferredNameValidations = null;
+        try {
+            validateNames(renamedFeatures, throwOnDuplicateNames);
+        } finally {
+            resolveReferencedFeatures(constraintsToResolve);
+        }
+    }
+
+    private void validateNames(LinkedHashMap<IFeature, String> renamedFeatures, boolean throwOnDuplicateNames) {
+        List<String> duplicateNames = new ArrayList<>();
+        for (IFeature feature : renamedFeatures.keySet()) {
+            String name = feature.getName().orElse(null);
+            if (name != null && hasFeature(feature) && featuresByName.get(name).size() > 1) {
+                duplicateNames.add(name);
+            }
+        }
+        if (duplicateNames.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<IFeature, String> entry : renamedFeatures.entrySet()) {
+            IFeature feature = entry.getKey();
+            if (hasFeature(feature) && !Objects.equals(feature.getName().orElse(null), entry.getValue())) {
+                if (entry.getValue() == null) {
+                    feature.mutate().removeAttributeValue(Attributes.NAME);
+                } else {
+                    feature.mutate().setName(entry.getValue());
+                }
+            }
+        }
+        if (throwOnDuplicateNames) {
+            throw new IllegalArgumentException(String.format("feature names are not unique: %s", duplicateNames));
+        }
+    }
+
+    private static void resolveReferencedFeatures(Collection<Constraint> constraints) {
+        RuntimeException failure = null;
+        for (Constraint constraint : constraints) {
+            try {
+                constraint.updateReferencedFeatures();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void fireDeferredEvents() {
+        List<FeatureModelEvent> events = deferredEvents;
+        deferredEvents = null;
+        if (events != null && listeners != null) {
+            events = Collections.unmodifiableList(events);
+            for (IFeatureModelListener listener : listeners) {
+                listener.onEvents(events);
+            }
+        }
+    }
+
+    /**
+     * Defers resolving the referenced features of a constraint to the end of the current batch.
+     * Called by {@link Constraint} whenever its formula is replaced.
+     *
+     * @param constraint the constraint
+     * @return true if the resolution was deferred, false if there is no current batch
+     */
+    protected boolean deferReferencedFeatures(Constraint constraint) {
+        if (deferredConstraints == null) {
+            return false;
+        }
+        deferredConstraints.add(constraint);
+        return true;
+    }
+
+    /**
+     * Defers checking the uniqueness of the new name of a feature to the end of the current batch.
+     * Called by {@link Feature} whenever its {@link Attributes#NAME name attribute} is set.
+     *
+     * @param feature the renamed feature
+     * @return true if the check was deferred, false if there is no current batch
+     */
+    protected boolean deferNameValidation(IFeature feature) {
+        if (deferredNameValidations == null) {
+            return false;
+        }
+        deferredNameValidations.putIfAbsent(feature, feature.getName().orElse(null));
+        return true;
+    }
+
+    @Override
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    @Override
+    public long getContentHash() {
+        long modificationCount = this.modificationCount;
+        if (contentHashModificationCount != modificationCount) {
+            contentHash = ContentHashes.of(this);
+            contentHashModificationCount = modificationCount;
+        }
+        return contentHash;
+    }
+
+    @Override
+    public void addListener(IFeatureModelListener listener) {
+        Objects.requireNonNull(listener);
+        List<IFeatureModelListener> newListeners =
+                listeners == null ? new ArrayList<>(1) : new ArrayList<>(listeners);
+        newListeners.add(listener);
+        listeners = newListeners;
+    }
+
+    @Override
+    public boolean removeListener(IFeatureModelListener listener) {
+        if (listeners == null || !listeners.contains(listener)) {
+            return false;
+        }
+        List<IFeatureModelListener> newListeners = new ArrayList<>(listeners);
+        newListeners.remove(listener);
+        listeners = newListeners.isEmpty() ? null : newListeners;
+        return true;
+    }
+
+    /**
+     * Notifies all listeners about a change of this feature model and counts the modification.
+     * Does not create an event if there are no listeners.
+     *
+     * @param type the type of the change
+     * @param source the changed element
+     * @param oldValue the value before the change
+     * @param newValue the value after the change
+     */
+    protected void fireEvent(FeatureModelEvent.Type type, Object source, Object oldValue, Object newValue) {
+        modificationCount++;
+        switch (type) {
+            case ROOT_ADDED:
+            case ROOT_REMOVED:
+            case TREE_NODE_MOVED:
+                treesByFeature = null;
+                treesByName = null;
+                // fall through
+            case FEATURE_ADDED:
+            case FEATURE_REMOVED:
+                hiddenParentMask = null;
+                break;
+            default:
+        }
+        if (listeners != null) {
+            fireEvent(new FeatureModelEvent(this, type, source, oldValue, newValue));
+        }
+    }
+
+    /**
+     * Notifies all listeners about a changed attribute value of an element of this feature model.
+     *
+     * @param source the changed element
+     * @param attribute the changed attribute
+     * @param oldValue the value before the change
+     * @param newValue the value after the change
+     */
+    protected void fireAttributeEvent(Object source, IAttribute<?> attribute, Object oldValue, Object newValue) {
+        modificationCount++;
+        if (Attributes.HIDDEN.equals(attribute)) {
+            hiddenParentMask = null;
+        } else if (Attributes.NAME.equals(attribute)) {
+            treesByName = null;
+            if (source instanceof IFeature) {
+                getFeatureTree((IFeature) source).ifPresent(FeatureTree::invalidateContentHash);
+            }
+        }
+        if (listeners != null) {
+            fireEvent(new FeatureModelEvent(
+                    this, FeatureModelEvent.Type.ATTRIBUTE_CHANGED, source, attribute, oldValue, newValue));
+        }
+    }
+
+    protected void fireEvent(FeatureModelEvent event) {
+        if (batchDepth > 0) {
+            if (deferredEvents == null) {
+                deferredEvents = new ArrayList<>();
+            }
+            deferredEvents.add(event);
+            return;
+        }
+        for (IFeatureModelListener listener : listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    /**
+     * Updates the name index after a feature of this model has been renamed.
+     * Called by {@link Feature} whenever its {@link Attributes#NAME name attribute} changes.
+     *
+     * @param feature the renamed feature
+     * @param oldName the previous name of the feature
+     * @param newName the current name of the feature
+     */
+    protected void updateFeatureName(IFeature feature, String oldName, String newName) {
+        if (!features.containsKey(feature.getIdentifier())) {
+            return;
+        }
+        removeFromNameIndex(feature, oldName);
+        addToNameIndex(feature, newName);
+        fireAttributeEvent(feature, Attributes.NAME, oldName, newName);
+    }
+
+    private void addToNameIndex(IFeature feature, String name) {
+        if (name != null) {
+            featuresByName.computeIfAbsent(name, key -> new ArrayList<>(1)).add(feature);
+        }
+    }
+
+    private void removeFromNameIndex(IFeature feature, String name) {
+        if (name == null) {
+            return;
+        }
+        List<IFeature> namedFeatures = featuresByName.get(name);
+        // if the name is not unique, the next feature with the name takes it over
+        if (namedFeatures != null && namedFeatures.remove(feature) && namedFeatures.isEmpty()) {
+            featuresByName.remove(name);
+        }
+    }
+
+    private void addToIndex(IFeature feature) {
+        if (feature instanceof Feature) {
+            ((Feature) feature).index = featuresByIndex.size();
+        }
+        featuresByIndex.add(feature);
+    }
+
+    private void removeFromIndex(IFeature feature) {
+        int index = indexOf(feature);
+        if (index < 0) {
+            return;
+        }
+        // keep indices dense by moving the last feature into the freed index
+        IFeature lastFeature = featuresByIndex.remove(featuresByIndex.size() - 1);
+        if (lastFeature != feature) {
+            featuresByIndex.set(index, lastFeature);
+            if (lastFeature instanceof Feature) {
+                ((Feature) lastFeature).index = index;
+            }
+        }
+        if (feature instanceof Feature) {
+            ((Feature) feature).index = -1;
+        }
+    }
+
+    /**
+     * Returns all constraints of this feature model that reference a given feature.
+     * Answers from an index that is maintained when constraints are added, removed, or change their formula.
+     *
+     * @param feature the feature
+     * @return the referencing constraints
+     */
+    public LinkedHashSet<IConstraint> getReferencingConstraints(IFeature feature) {
+        LinkedHashSet<IConstraint> referencingConstraints = constraintsByFeature.get(feature.getIdentifier());
+        return referencingConstraints == null ? Sets.empty() : new LinkedHashSet<>(referencingConstraints);
+    }
+
+    /**
+     * Updates the index of referencing constraints after the formula of a constraint of this model has changed.
+     * Called by {@link Constraint} whenever its formula is replaced.
+     *
+     * @param constraint the changed constraint
+     * @param oldFeatures the features referenced by the previous formula
+     * @param newFeatures the features referenced by the current formula
+     */
+    protected void updateReferences(
+            IConstraint constraint, Collection<IFeature> oldFeatures, Collection<IFeature> newFeatures) {
+        if (!constraints.containsKey(constraint.getIdentifier())) {
+            return;
+        }
+        for (IFeature feature : oldFeatures) {
+            if (!newFeatures.contains(feature)) {
+                removeReference(constraint, feature);
+            }
+        }
+        addReferences(constraint, newFeatures);
+    }
+
+    private void addReferences(IConstraint constraint, Collection<IFeature> referencedFeatures) {
+        for (IFeature feature : referencedFeatures) {
+            constraintsByFeature
+                    .computeIfAbsent(feature.getIdentifier(), id -> new LinkedHashSet<>(4))
+                    .add(constraint);
+        }
+    }
+
+    private void removeReferences(IConstraint constraint, Collection<IFeature> referencedFeatures) {
+        for (IFeature feature : referencedFeatures) {
+            removeReference(constraint, feature);
+        }
+    }
+
+    private void removeReference(IConstraint constraint, IFeature feature) {
+        LinkedHashSet<IConstraint> referencingConstraints = constraintsByFeature.get(feature.getIdentifier());
+        if (referencingConstraints != null) {
+            referencingConstraints.remove(constraint);
+            if (referencingConstraints.isEmpty()) {
+                constraintsByFeature.remove(feature.getIdentifier());
+            }
+        }
+    }
+
+    /**
+     * Checks whether a feature has a hidden ancestor in the feature tree.
+     * Answers from a mask that is computed once for all features in linear time and that is invalidated when the
+     * feature tree or the {@link Attributes#HIDDEN hidden attribute} of a feature changes.
+     *
+     * @param feature the feature
+     * @return true if there is a hidden ancestor, false if there's not.
+     * @throws IllegalArgumentException if the feature is part of this feature model, but not of its feature tree
+     */
+    public boolean hasHiddenParent(IFeature feature) {
+        int index = indexOf(feature);
+        if (index < 0) {
+            return feature.hasHiddenParent();
+        }
+        if (hiddenParentMask == null) {
+            computeHiddenParentMask();
+        }
+        long mask = 1L << index;
+        if ((treeFeatureMask[index >>> 6] & mask) == 0) {
+            throw new IllegalArgumentException("feature is not part of the feature tree");
+        }
+        return (hiddenParentMask[index >>> 6] & mask) != 0;
+    }
+
+    private void computeHiddenParentMask() {
+        int words = (featuresByIndex.size() + 63) >>> 6;
+        long[] newTreeFeatureMask = new long[words];
+        long[] newHiddenParentMask = new long[words];
+        ArrayDeque<IFeatureTree> nodes = new ArrayDeque<>();
+        ArrayDeque<Boolean> hiddenParents = new ArrayDeque<>();
+        for (IFeatureTree root : featureTreeRoots) {
+            nodes.push(root);
+            hiddenParents.push(Boolean.FALSE);
+        }
+        while (!nodes.isEmpty()) {
+            IFeatureTree node = nodes.pop();
+            boolean hiddenParent = hiddenParents.pop();
+            IFeature feature = node.getFeature();
+            int index = indexOf(feature);
+            if (index >= 0) {
+                newTreeFeatureMask[index >>> 6] |= 1L << index;
+                if (hiddenParent) {
+                    newHiddenParentMask[index >>> 6] |= 1L << index;
+                }
+            }
+            Boolean hiddenChildParent = hiddenParent || feature.isHidden();
+            for (IFeatureTree child : node.getChildren()) {
+                nodes.push(child);
+                hiddenParents.push(hiddenChildParent);
+            }
+        }
+        treeFeatureMask = newTreeFeatureMask;
+        hiddenParentMask = newHiddenParentMask;
+    }
+
+    @Override
+    public LinkedHashSet<IFeature> getTreeFeatures() {
+        LinkedHashMap<IIdentifier, IFeatureTree> trees = getTreesByFeature();
+        LinkedHashSet<IFeature> treeFeatures = new LinkedHashSet<>((int) (trees.size() * 1.5));
+        trees.values().forEach(tree -> treeFeatures.add(tree.getFeature()));
+        return treeFeatures;
+    }
+
+    @Override
+    public int getNumberOfTreeFeatures() {
+        return getTreesByFeature().size();
+    }
+
+    @Override
+    public Result<IFeature> getTreeFeature(IIdentifier identifier) {
+        return Result.ofNullable(getTreesByFeature().get(Objects.requireNonNull(identifier)))
+                .map(IFeatureTree::getFeature);
+    }
+
+    @Override
+    public Result<IFeature> getTreeFeature(String name) {
+        return getFeatureTree(name).map(IFeatureTree::getFeature);
+    }
+
+    @Override
+    public Result<IFeatureTree> getFeatureTree(String name) {
+        Objects.requireNonNull(name);
+        if (treesByName == null) {
+            HashMap<String, IFeatureTree> newTreesByName = new HashMap<>();
+            for (IFeatureTree tree : getTreesByFeature().values()) {
+                tree.getFeature().getName().ifPresent(featureName -> newTreesByName.putIfAbsent(featureName, tree));
+            }
+            treesByName = newTreesByName;
+        }
+        return Result.ofNullable(treesByName.get(name));
+    }
+
+    @Override
+    public Result<IFeatureTree> getFeatureTree(IFeature feature) {
+        return Result.ofNullable(getTreesByFeature().get(feature.getIdentifier()));
+    }
+
+    @Override
+    public boolean hasTreeFeature(IIdentifier identifier) {
+        return getTreesByFeature().containsKey(Objects.requireNonNull(identifier));
+    }
+
+    @Override
+    public boolean hasTreeFeature(IFeature feature) {
+        return hasTreeFeature(feature.getIdentifier());
+    }
+
+    private LinkedHashMap<IIdentifier, IFeatureTree> getTreesByFeature() {
+        if (treesByFeature == null) {
+            LinkedHashMap<IIdentifier, IFeatureTree> newTreesByFeature =
+                    new LinkedHashMap<>((int) (featuresByIndex.size() * 1.5));
+            getFeatureTreeStream()
+                    .forEach(tree -> newTreesByFeature.putIfAbsent(tree.getFeature().getIdentifier(), tree));
+            treesByFeature = newTreesByFeature;
+        }
+        return treesByFeature;
+    }
+
+    @Override
+    public IFeature getFeature(int index) {
+        return featuresByIndex.get(index);
+    }
+
+    @Override
+    public int indexOf(IFeature feature) {
+        if (feature instanceof Feature) {
+            int index = ((Feature) feature).index;
+            if (index >= 0 && index < featuresByIndex.size() && featuresByIndex.get(index) == feature) {
+                return index;
+            }
+            return -1;
+        }
+        return featuresByIndex.indexOf(feature);
     }
 
     @Override
@@ -255,10 +957,8 @@ public class FeatureModel implements IMutableFeatureModel, IMutatableAttributabl
 
     @Override
     public Result<IFeature> getFeature(String name) {
-        return Result.ofOptional(features.entrySet().stream()
-                .map(e -> e.getValue())
-                .filter(f -> f.getName().valueEquals(name))
-                .findFirst());
+        List<IFeature> namedFeatures = featuresByName.get(name);
+        return namedFeatures == null ? Result.empty() : Result.of(namedFeatures.get(0));
     }
 
     @Override
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * Caches values derived from feature models for as long as the feature models are not modified.
+ * A cached value is reused while its feature model has the same {@link IFeatureModel#getModificationCount()
+ * modification count} as when the value was computed.
+ * Values for feature models that do not count their modifications are computed on every call.
+ * The cache does not keep feature models from being garbage collected, so cached values must not refer to them.
+ *
+ * @param <T> the type of the cached values
+ */
+public class FeatureModelCache<T> {
+
+    private static class Entry<T> {
+        private final WeakReference<IFeatureModel> featureModel;
+        private final long modificationCount;
+        private final T value;
+
+        private Entry(IFeatureModel featureModel, long modificationCount, T value) {
+            this.featureModel = new WeakReference<>(featureModel);
+            this.modificationCount = modificationCount;
+            this.value = value;
+        }
+    }
+
+    private final Map<IFeatureModel, Entry<T>> entries = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Returns the cached value for a feature model, or computes and caches it if the feature model has been modified
+     * since.
+     *
+     * @param featureModel the feature model
+     * @param function computes the value for the feature model
+     * @return the value for the feature model
+     */
+    public T get(IFeatureModel featureModel, Function<? super IFeatureModel, ? extends T> function) {
+        Objects.requireNonNull(featureModel);
+        // read the count first, so a concurrent modification can only cause a value to be computed again
+        long modificationCount = featureModel.getModificationCount();
+        if (modificationCount < 0) {
+            return function.apply(featureModel);
+        }
+        Entry<T> entry = entries.get(featureModel);
+        // feature models with equal identifiers share a key, so the entry may belong to another one
+        if (entry != null && entry.featureModel.get() == featureModel && entry.modificationCount == modificationCount) {
+            return entry.value;
+        }
+        T value = function.apply(featureModel);
+        entries.put(featureModel, new Entry<>(featureModel, modificationCount, value));
+        return value;
+    }
+
+    /**
+     * Removes the cached value for a feature model.
+     *
+     * @param featureModel the feature model
+     */
+    public void remove(IFeatureModel featureModel) {
+        entries.remove(featureModel);
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public void clear() {
+        entries.clear();
+    }
+}
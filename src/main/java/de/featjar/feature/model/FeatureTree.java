@@ -26,6 +26,7 @@ import de.featjar.base.data.Range;
 import de.featjar.base.tree.structure.ARootedTree;
 import de.featjar.base.tree.structure.ITree;
 import de.featjar.feature.model.IFeatureTree.IMutableFeatureTree;
+import de.featjar.feature.model.event.FeatureModelEvent;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -33,7 +34,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFeatureTree {
 
@@ -108,8 +108,25 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
     protected Range featureRange;
     protected List<Group> groups;
 
+    /**
+     * The children of this node per group ID, {@code null} if they have to be recomputed.
+     */
+    protected volatile List<List<IFeatureTree>> childrenByGroup;
+
+    /**
+     * The content hash of this subtree, 0 if it has to be recomputed.
+     * Whenever a node is invalidated, so are all of its ancestors.
+     */
+    protected volatile long contentHash;
+
     protected LinkedHashMap<IAttribute<?>, Object> attributeValues;
 
+    /**
+     * Whether {@link #featureRange}, {@link #groups}, and {@link #attributeValues} are shared with a copy-on-write
+     * clone and have to be copied before a change.
+     */
+    protected boolean shared;
+
     protected FeatureTree(IFeature feature) {
         this.feature = Objects.requireNonNull(feature);
         featureRange = Range.of(0, 1);
@@ -118,11 +135,32 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
     }
 
     protected FeatureTree(FeatureTree otherFeatureTree) {
-        feature = otherFeatureTree.feature;
+        this(otherFeatureTree, otherFeatureTree.feature, false);
+    }
+
+    /**
+     * Copies a single node of a feature tree, without its children, for another feature.
+     *
+     * @param otherFeatureTree the node to copy
+     * @param feature the feature of the new node
+     * @param copyOnWrite whether to share the feature range, groups, and attribute values with the other node until
+     *     either node changes them
+     */
+    protected FeatureTree(FeatureTree otherFeatureTree, IFeature feature, boolean copyOnWrite) {
+        this.feature = Objects.requireNonNull(feature);
         groupID = otherFeatureTree.groupID;
-        featureRange = otherFeatureTree.featureRange.clone();
-        otherFeatureTree.groups.stream().map(Group::clone).forEach(groups::add);
-        attributeValues = otherFeatureTree.cloneAttributes();
+        if (copyOnWrite) {
+            featureRange = otherFeatureTree.featureRange;
+            groups = otherFeatureTree.groups;
+            attributeValues = otherFeatureTree.attributeValues;
+            otherFeatureTree.shared = true;
+            shared = true;
+        } else {
+            featureRange = Range.copy(otherFeatureTree.featureRange);
+            groups = new ArrayList<>(otherFeatureTree.groups.size());
+            otherFeatureTree.groups.stream().map(Group::clone).forEach(groups::add);
+            attributeValues = otherFeatureTree.cloneAttributes();
+        }
     }
 
     @Override
@@ -144,14 +182,61 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
 
     @Override
     public List<IFeatureTree> getGroupSiblings() {
-        return parent.getChildren().stream()
-                .filter(t -> t.getGroupID() == groupID)
-                .collect(Collectors.toList());
+        return parent.getGroupChildren(groupID);
     }
 
     @Override
     public List<IFeatureTree> getGroupChildren(int groupID) {
-        return getChildren().stream().filter(t -> t.getGroupID() == groupID).collect(Collectors.toList());
+        if (childrenByGroup == null) {
+            computeChildrenByGroup();
+        }
+        return groupID >= 0 && groupID < childrenByGroup.size()
+                ? Collections.unmodifiableList(childrenByGroup.get(groupID))
+                : List.of();
+    }
+
+    private void computeChildrenByGroup() {
+        List<List<IFeatureTree>> newChildrenByGroup = new ArrayList<>(groups.size());
+        for (IFeatureTree child : getChildren()) {
+            int childGroupID = child.getGroupID();
+            while (newChildrenByGroup.size() <= childGroupID) {
+                newChildrenByGroup.add(new ArrayList<>());
+            }
+            newChildrenByGroup.get(childGroupID).add(child);
+        }
+        childrenByGroup = newChildrenByGroup;
+    }
+
+    @Override
+    public long getContentHash() {
+        long hash = contentHash;
+        if (hash == 0) {
+            hash = ContentHashes.of(this);
+            if (hash == 0) {
+                hash = 1;
+            }
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Invalidates the content hashes of a node and its ancestors.
+     * Stops at the first invalid node, as its ancestors are invalid as well.
+     *
+     * @param featureTree the changed node
+     */
+    static void invalidateContentHash(IFeatureTree featureTree) {
+        while (featureTree instanceof FeatureTree && ((FeatureTree) featureTree).contentHash != 0) {
+            ((FeatureTree) featureTree).contentHash = 0;
+            featureTree = featureTree.getParent().orElse(null);
+        }
+    }
+
+    private static void invalidateChildrenByGroup(IFeatureTree featureTree) {
+        if (featureTree instanceof FeatureTree) {
+            ((FeatureTree) featureTree).childrenByGroup = null;
+        }
     }
 
     @Override
@@ -160,7 +245,10 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
     }
 
     public void setGroupCount(int count) {
+        copySharedState();
         groups = new ArrayList<>(count);
+        childrenByGroup = null;
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, null, null);
     }
 
     @Override
@@ -210,17 +298,24 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
 
     @Override
     public void addGroup(int lowerBound, int upperBound) {
+        copySharedState();
         groups.add(new Group(lowerBound, upperBound));
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, null, null);
     }
 
     @Override
     public void addGroup(Range groupRange) {
+        copySharedState();
         groups.add(new Group(groupRange));
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, null, null);
     }
 
     public void setGroups(List<Group> groups) {
+        copySharedState();
         this.groups.clear();
         this.groups.addAll(groups);
+        childrenByGroup = null;
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, null, null);
     }
 
     public void setGroupID(int groupID) {
@@ -229,31 +324,89 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
         if (groupID >= parent.getGroups().size())
             throw new IllegalArgumentException(
                     String.format("groupID must be smaller than number of groups in parent feature (%d)", groupID));
+        int oldGroupID = this.groupID;
         this.groupID = groupID;
+        invalidateChildrenByGroup(parent);
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, oldGroupID, groupID);
     }
 
     @Override
     public void setGroupRange(Range groupRange) {
-        getGroup().groupRange = Range.copy(groupRange);
+        if (parent instanceof FeatureTree) {
+            ((FeatureTree) parent).copySharedState();
+        }
+        Group group = getGroup();
+        Range oldGroupRange = group.groupRange;
+        group.groupRange = Range.copy(groupRange);
+        fireEvent(FeatureModelEvent.Type.GROUP_CHANGED, oldGroupRange, group.groupRange);
     }
 
     @Override
     public void setFeatureRange(Range featureRange) {
+        copySharedState();
+        Range oldFeatureRange = this.featureRange;
         this.featureRange = Range.copy(featureRange);
+        fireEvent(FeatureModelEvent.Type.FEATURE_RANGE_CHANGED, oldFeatureRange, this.featureRange);
     }
 
     @Override
     public void setMandatory() {
+        copySharedState();
         if (featureRange.getUpperBound() == 0) {
             featureRange = Range.exactly(1);
         } else {
             featureRange.setLowerBound(1);
         }
+        fireEvent(FeatureModelEvent.Type.FEATURE_RANGE_CHANGED, null, featureRange);
     }
 
     @Override
     public void setOptional() {
+        copySharedState();
         featureRange.setLowerBound(0);
+        fireEvent(FeatureModelEvent.Type.FEATURE_RANGE_CHANGED, null, featureRange);
+    }
+
+    @Override
+    public void setParent(IFeatureTree newParent) {
+        IFeatureTree oldParent = parent;
+        super.setParent(newParent);
+        invalidateChildrenByGroup(oldParent);
+        invalidateChildrenByGroup(newParent);
+        invalidateContentHash(oldParent);
+        invalidateContentHash(newParent);
+        if (oldParent != newParent) {
+            fireEvent(FeatureModelEvent.Type.TREE_NODE_MOVED, oldParent, newParent);
+        }
+    }
+
+    private void copySharedState() {
+        if (shared) {
+            featureRange = Range.copy(featureRange);
+            List<Group> newGroups = new ArrayList<>(groups.size());
+            groups.stream().map(Group::clone).forEach(newGroups::add);
+            groups = newGroups;
+            if (attributeValues != null) {
+                attributeValues = new LinkedHashMap<>(attributeValues);
+            }
+            shared = false;
+        }
+    }
+
+    /**
+     * Notifies the listeners of the feature model of this node's feature about a change of this node.
+     * Also invalidates the content hash of this node, as all such changes affect it.
+     *
+     * @param type the type of the change
+     * @param oldValue the value before the change
+     * @param newValue the value after the change
+     */
+    protected void fireEvent(FeatureModelEvent.Type type, Object oldValue, Object newValue) {
+        invalidateContentHash(this);
+        IFeatureModel featureModel = feature.getFeatureModel();
+        if (featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).fireEvent(type, this, oldValue, newValue);
+        }
     }
 
     @Override
@@ -264,18 +417,29 @@ public class FeatureTree extends ARootedTree<IFeatureTree> implements IMutableFe
         }
         checkType(attribute, value);
         validate(attribute, value);
+        copySharedState();
         if (attributeValues == null) {
             attributeValues = new LinkedHashMap<>();
         }
-        attributeValues.put(attribute, value);
+        Object oldValue = attributeValues.put(attribute, value);
+        IFeatureModel featureModel = feature.getFeatureModel();
+        if (featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).fireAttributeEvent(this, attribute, oldValue, value);
+        }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <S> S removeAttributeValue(Attribute<S> attribute) {
+        copySharedState();
         if (attributeValues == null) {
             attributeValues = new LinkedHashMap<>();
         }
-        return (S) attributeValues.remove(attribute);
+        S oldValue = (S) attributeValues.remove(attribute);
+        IFeatureModel featureModel = feature.getFeatureModel();
+        if (oldValue != null && featureModel instanceof FeatureModel) {
+            ((FeatureModel) featureModel).fireAttributeEvent(this, attribute, oldValue, null);
+        }
+        return oldValue;
     }
 }
@@ -0,0 +1,586 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.IAttribute;
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.IIdentifier;
+import de.featjar.base.tree.structure.ARootedTree;
+import de.featjar.base.tree.structure.ITree;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.feature.model.mixins.IHasFeatureTree;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * An immutable snapshot of the feature tree of a {@link IHasFeatureTree}, packed into primitive arrays.
+ * Tree nodes are addressed by their pre-order index, so the subtree of a node {@code i} consists of the indices
+ * {@code i} to {@link #getSubtreeEnd(int) getSubtreeEnd(i)} (exclusive).
+ * Traversals only read arrays and do not allocate.
+ * Later modifications of the original feature tree are not reflected in the snapshot.
+ * The tree nodes returned by this snapshot are read-only views of its arrays, not the nodes of the original tree,
+ * so they cannot be {@link IFeatureTree#mutate() mutated}.
+ * Features are not copied, so the snapshot refers to the features of the original feature model,
+ * but looks them up by the names they had when the snapshot was created.
+ */
+public class FeatureTreeSnapshot implements IHasFeatureTree {
+
+    /**
+     * A read-only view of a node of a {@link FeatureTreeSnapshot}.
+     */
+    private static final class Node extends ARootedTree<IFeatureTree> implements IFeatureTree {
+        private final FeatureTreeSnapshot snapshot;
+        private final int index;
+        private final Map<IAttribute<?>, Object> attributeValues;
+        private boolean frozen;
+
+        private Node(FeatureTreeSnapshot snapshot, int index, Map<IAttribute<?>, Object> attributeValues) {
+            this.snapshot = snapshot;
+            this.index = index;
+            this.attributeValues = attributeValues;
+        }
+
+        @Override
+        public IFeature getFeature() {
+            return snapshot.features[index];
+        }
+
+        @Override
+        public int getGroupID() {
+            return snapshot.groupID[index];
+        }
+
+        @Override
+        public List<Group> getGroups() {
+            int groupCount = snapshot.getNumberOfGroups(index);
+            ArrayList<Group> groups = new ArrayList<>(groupCount);
+            for (int i = 0; i < groupCount; i++) {
+                groups.add(new Group(
+                        Range.of(snapshot.getGroupLowerBound(index, i), snapshot.getGroupUpperBound(index, i))));
+            }
+            return Collections.unmodifiableList(groups);
+        }
+
+        @Override
+        public Group getGroup() {
+            int parentIndex = snapshot.parent[index];
+            return parentIndex < 0
+                    ? new Group(Range.of(0, Range.OPEN))
+                    : snapshot.nodes[parentIndex].getGroups().get(getGroupID());
+        }
+
+        @Override
+        public List<IFeatureTree> getGroupSiblings() {
+            int parentIndex = snapshot.parent[index];
+            return parentIndex < 0 ? List.of() : snapshot.nodes[parentIndex].getGroupChildren(getGroupID());
+        }
+
+        @Override
+        public List<IFeatureTree> getGroupChildren(int groupID) {
+            ArrayList<IFeatureTree> groupChildren = new ArrayList<>();
+            for (int child = snapshot.firstChild[index]; child >= 0; child = snapshot.nextSibling[child]) {
+                if (snapshot.groupID[child] == groupID) {
+                    groupChildren.add(snapshot.nodes[child]);
+                }
+            }
+            return Collections.unmodifiableList(groupChildren);
+        }
+
+        @Override
+        public int getFeatureRangeLowerBound() {
+            return snapshot.featureRangeLowerBound[index];
+        }
+
+        @Override
+        public int getFeatureRangeUpperBound() {
+            return snapshot.featureRangeUpperBound[index];
+        }
+
+        @Override
+        public Optional<Map<IAttribute<?>, Object>> getAttributes() {
+            return Optional.ofNullable(attributeValues);
+        }
+
+        @Override
+        public List<IFeatureTree> getRoots() {
+            return List.of(this);
+        }
+
+        @Override
+        public IMutableFeatureTree mutate() {
+            throw new UnsupportedOperationException("tree nodes of a snapshot are read-only");
+        }
+
+        @Override
+        public void setParent(IFeatureTree newParent) {
+            if (frozen) {
+                throw new UnsupportedOperationException("tree nodes of a snapshot are read-only");
+            }
+            super.setParent(newParent);
+        }
+
+        @Override
+        public ITree<IFeatureTree> cloneNode() {
+            return new Node(snapshot, index, attributeValues);
+        }
+
+        @Override
+        public boolean equalsNode(IFeatureTree other) {
+            if (this == other) return true;
+            if (!(other instanceof Node)) return false;
+            Node otherNode = (Node) other;
+            return getGroupID() == otherNode.getGroupID()
+                    && Objects.equals(getFeature(), otherNode.getFeature())
+                    && Objects.equals(getGroups(), otherNode.getGroups());
+        }
+
+        @Override
+        public int hashCodeNode() {
+            return Objects.hash(getFeature(), getGroupID(), getGroups());
+        }
+
+        @Override
+        public String toString() {
+            return snapshot.names[index] == null ? "" : snapshot.names[index];
+        }
+    }
+
+    private final Node[] nodes;
+    private final IFeature[] features;
+    private final String[] names;
+    private final IIdentifier[] identifiers;
+    private final int[] roots;
+    private final int[] parent;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] subtreeEnd;
+    private final int[] groupID;
+    private final int[] featureRangeLowerBound;
+    private final int[] featureRangeUpperBound;
+    private final int[] firstGroup;
+    private final int[] groupLowerBound;
+    private final int[] groupUpperBound;
+
+    /**
+     * Open-addressing hash tables from features, names, and identifiers to the first node with that key.
+     * Each slot holds the node index plus one, 0 marks an empty slot.
+     */
+    private final int[] featureTable, nameTable, identifierTable;
+
+    private final int numberOfTreeFeatures;
+
+    /**
+     * The root nodes of the original feature tree, {@code null} for public snapshots, which must not give access to
+     * the original tree.
+     */
+    private final List<IFeatureTree> sourceRoots;
+
+    /**
+     * Creates a snapshot of the feature tree of a feature model.
+     *
+     * @param featureModel the feature model
+     * @return the snapshot
+     */
+    public static FeatureTreeSnapshot of(IHasFeatureTree featureModel) {
+        return new FeatureTreeSnapshot(featureModel.getRoots(), UnaryOperator.identity(), false);
+    }
+
+    /**
+     * Creates a snapshot of the feature tree of a feature model whose nodes are labeled with other objects for the
+     * features of the feature model, such as wrappers.
+     * Names and identifiers are read from the original features.
+     * The snapshot remembers the original root nodes, see {@link #getSourceRoot(IFeatureTree)}.
+     *
+     * @param featureModel the feature model
+     * @param featureMapper maps each feature of the feature model to the feature of the snapshot
+     * @return the snapshot
+     */
+    static FeatureTreeSnapshot of(IHasFeatureTree featureModel, UnaryOperator<IFeature> featureMapper) {
+        return new FeatureTreeSnapshot(featureModel.getRoots(), featureMapper, true);
+    }
+
+    /**
+     * Creates a snapshot of a subtree, such as a subtree that has been detached from its feature model, whose nodes
+     * are labeled with other objects for the features, like {@link #of(IHasFeatureTree, UnaryOperator)}.
+     *
+     * @param featureTree the root of the subtree
+     * @param featureMapper maps each feature of the subtree to the feature of the snapshot
+     * @return the snapshot
+     */
+    static FeatureTreeSnapshot of(IFeatureTree featureTree, UnaryOperator<IFeature> featureMapper) {
+        return new FeatureTreeSnapshot(List.of(featureTree), featureMapper, true);
+    }
+
+    /**
+     * Returns whether a tree node is a read-only node of a snapshot.
+     *
+     * @param featureTree the tree node
+     * @return true if the node is a node of a snapshot
+     */
+    static boolean isNode(IFeatureTree featureTree) {
+        return featureTree instanceof Node;
+    }
+
+    /**
+     * Returns the original root node a root node of a snapshot was taken from.
+     *
+     * @param featureTree a tree node
+     * @return the original root node, or {@code null} if the given node is no root node of a snapshot that remembers
+     *     its original root nodes
+     */
+    static IFeatureTree getSourceRoot(IFeatureTree featureTree) {
+        if (featureTree instanceof Node) {
+            Node node = (Node) featureTree;
+            FeatureTreeSnapshot snapshot = node.snapshot;
+            if (snapshot.sourceRoots != null) {
+                for (int i = 0; i < snapshot.roots.length; i++) {
+                    if (snapshot.roots[i] == node.index) {
+                        return snapshot.sourceRoots.get(i);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private FeatureTreeSnapshot(
+            List<IFeatureTree> rootTrees, UnaryOperator<IFeature> featureMapper, boolean keepSourceRoots) {
+        sourceRoots = keepSourceRoots ? List.copyOf(rootTrees) : null;
+        ArrayList<IFeatureTree> nodeList = new ArrayList<>();
+        ArrayDeque<IFeatureTree> stack = new ArrayDeque<>();
+        for (int i = rootTrees.size() - 1; i >= 0; i--) {
+            stack.push(rootTrees.get(i));
+        }
+        while (!stack.isEmpty()) {
+            IFeatureTree node = stack.pop();
+            nodeList.add(node);
+            List<? extends IFeatureTree> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+
+        int size = nodeList.size();
+        nodes = new Node[size];
+        features = new IFeature[size];
+        names = new String[size];
+        identifiers = new IIdentifier[size];
+        roots = new int[rootTrees.size()];
+        parent = new int[size];
+        firstChild = new int[size];
+        nextSibling = new int[size];
+        subtreeEnd = new int[size];
+        groupID = new int[size];
+        featureRangeLowerBound = new int[size];
+        featureRangeUpperBound = new int[size];
+        firstGroup = new int[size + 1];
+
+        int groupCount = 0;
+        for (IFeatureTree node : nodeList) {
+            groupCount += node.getGroups().size();
+        }
+        groupLowerBound = new int[groupCount];
+        groupUpperBound = new int[groupCount];
+
+        Arrays.fill(parent, -1);
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        // in pre-order, the ancestors of a node are exactly the nodes on the stack whose subtree is still open
+        int rootCount = 0;
+        int groupIndex = 0;
+        int[] ancestors = new int[size];
+        int ancestorCount = 0;
+        for (int i = 0; i < size; i++) {
+            IFeatureTree node = nodeList.get(i);
+            IFeature feature = node.getFeature();
+            features[i] = featureMapper.apply(feature);
+            names[i] = feature.getName().orElse(null);
+            identifiers[i] = feature.getIdentifier();
+            groupID[i] = node.getGroupID();
+            featureRangeLowerBound[i] = node.getFeatureRangeLowerBound();
+            featureRangeUpperBound[i] = node.getFeatureRangeUpperBound();
+            firstGroup[i] = groupIndex;
+            for (Group group : node.getGroups()) {
+                groupLowerBound[groupIndex] = group.getLowerBound();
+                groupUpperBound[groupIndex] = group.getUpperBound();
+                groupIndex++;
+            }
+            nodes[i] = new Node(
+                    this,
+                    i,
+                    node.getAttributes()
+                            .filter(attributes -> !attributes.isEmpty())
+                            .map(attributes -> Collections.unmodifiableMap(new LinkedHashMap<>(attributes)))
+                            .orElse(null));
+
+            IFeatureTree parentNode = node.getParent().orElse(null);
+            while (ancestorCount > 0 && nodeList.get(ancestors[ancestorCount - 1]) != parentNode) {
+                subtreeEnd[ancestors[--ancestorCount]] = i;
+            }
+            if (ancestorCount == 0) {
+                roots[rootCount++] = i;
+            } else {
+                int parentIndex = ancestors[ancestorCount - 1];
+                parent[i] = parentIndex;
+                int previousSibling = i - 1;
+                if (previousSibling == parentIndex) {
+                    firstChild[parentIndex] = i;
+                } else {
+                    while (parent[previousSibling] != parentIndex) {
+                        previousSibling = parent[previousSibling];
+                    }
+                    nextSibling[previousSibling] = i;
+                }
+                nodes[parentIndex].addChild(nodes[i]);
+            }
+            ancestors[ancestorCount++] = i;
+        }
+        while (ancestorCount > 0) {
+            subtreeEnd[ancestors[--ancestorCount]] = size;
+        }
+        firstGroup[size] = groupIndex;
+        for (Node node : nodes) {
+            node.frozen = true;
+        }
+
+        featureTable = createTable(features);
+        nameTable = createTable(names);
+        identifierTable = createTable(identifiers);
+        int distinctFeatures = 0;
+        for (int i = 0; i < size; i++) {
+            if (lookup(featureTable, features, features[i]) == i) {
+                distinctFeatures++;
+            }
+        }
+        numberOfTreeFeatures = distinctFeatures;
+    }
+
+    private static int[] createTable(Object[] keys) {
+        int[] table = new int[Integer.highestOneBit(Math.max(keys.length, 1) * 2) * 2];
+        int mask = table.length - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) {
+                continue;
+            }
+            int slot = keys[i].hashCode() & mask;
+            while (table[slot] != 0 && !keys[table[slot] - 1].equals(keys[i])) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == 0) {
+                table[slot] = i + 1;
+            }
+        }
+        return table;
+    }
+
+    private static int lookup(int[] table, Object[] keys, Object key) {
+        int mask = table.length - 1;
+        int slot = key.hashCode() & mask;
+        while (table[slot] != 0) {
+            if (keys[table[slot] - 1].equals(key)) {
+                return table[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of tree nodes in this snapshot.
+     *
+     * @return the number of nodes
+     */
+    public int getNumberOfNodes() {
+        return nodes.length;
+    }
+
+    public int getNumberOfRoots() {
+        return roots.length;
+    }
+
+    public int getRoot(int rootIndex) {
+        return roots[rootIndex];
+    }
+
+    /**
+     * Returns the pre-order index of the tree node labeled with the given feature.
+     *
+     * @param feature the feature
+     * @return the index, or -1 if the feature is not contained in the feature tree
+     */
+    public int indexOf(IFeature feature) {
+        return lookup(featureTable, features, Objects.requireNonNull(feature));
+    }
+
+    /**
+     * Returns a read-only view of the tree node with the given index.
+     *
+     * @param node the index of the node
+     * @return the view
+     */
+    public IFeatureTree getNode(int node) {
+        return nodes[node];
+    }
+
+    public IFeature getFeature(int node) {
+        return features[node];
+    }
+
+    /**
+     * Returns the index of the parent of the given node, -1 for roots.
+     *
+     * @param node the index of the node
+     * @return the index
+     */
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    /**
+     * Returns the index of the first child of the given node, -1 for leaves.
+     *
+     * @param node the index of the node
+     * @return the index
+     */
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    /**
+     * Returns the index of the next sibling of the given node, -1 for the last child.
+     *
+     * @param node the index of the node
+     * @return the index
+     */
+    public int getNextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    /**
+     * Returns the index following the last node in the subtree of the given node.
+     *
+     * @param node the index of the node
+     * @return the index
+     */
+    public int getSubtreeEnd(int node) {
+        return subtreeEnd[node];
+    }
+
+    public int getGroupID(int node) {
+        return groupID[node];
+    }
+
+    public int getNumberOfGroups(int node) {
+        return firstGroup[node + 1] - firstGroup[node];
+    }
+
+    public int getGroupLowerBound(int node, int groupID) {
+        return groupLowerBound[firstGroup[node] + groupID];
+    }
+
+    public int getGroupUpperBound(int node, int groupID) {
+        return groupUpperBound[firstGroup[node] + groupID];
+    }
+
+    public int getFeatureRangeLowerBound(int node) {
+        return featureRangeLowerBound[node];
+    }
+
+    public int getFeatureRangeUpperBound(int node) {
+        return featureRangeUpperBound[node];
+    }
+
+    public boolean isMandatory(int node) {
+        return featureRangeLowerBound[node] > 0;
+    }
+
+    public boolean isOptional(int node) {
+        return featureRangeLowerBound[node] <= 0;
+    }
+
+    @Override
+    public List<IFeatureTree> getRoots() {
+        ArrayList<IFeatureTree> rootList = new ArrayList<>(roots.length);
+        for (int root : roots) {
+            rootList.add(nodes[root]);
+        }
+        return Collections.unmodifiableList(rootList);
+    }
+
+    @Override
+    public Stream<IFeatureTree> getFeatureTreeStream() {
+        return Arrays.<IFeatureTree>stream(nodes);
+    }
+
+    @Override
+    public LinkedHashSet<IFeature> getTreeFeatures() {
+        return new LinkedHashSet<>(Arrays.asList(features));
+    }
+
+    @Override
+    public int getNumberOfTreeFeatures() {
+        return numberOfTreeFeatures;
+    }
+
+    @Override
+    public List<IFeature> getRootFeatures() {
+        ArrayList<IFeature> rootFeatures = new ArrayList<>(roots.length);
+        for (int root : roots) {
+            rootFeatures.add(features[root]);
+        }
+        return rootFeatures;
+    }
+
+    @Override
+    public Result<IFeature> getTreeFeature(IIdentifier identifier) {
+        int index = lookup(identifierTable, identifiers, Objects.requireNonNull(identifier));
+        return index < 0 ? Result.empty() : Result.of(features[index]);
+    }
+
+    @Override
+    public Result<IFeature> getTreeFeature(String name) {
+        return getFeatureTree(name).map(IFeatureTree::getFeature);
+    }
+
+    @Override
+    public Result<IFeatureTree> getFeatureTree(String name) {
+        int index = lookup(nameTable, names, Objects.requireNonNull(name));
+        return index < 0 ? Result.empty() : Result.of(nodes[index]);
+    }
+
+    @Override
+    public Result<IFeatureTree> getFeatureTree(IFeature feature) {
+        Objects.requireNonNull(feature);
+        int index = indexOf(feature);
+        return index < 0 ? Result.empty() : Result.of(nodes[index]);
+    }
+}
@@ -24,7 +24,13 @@ import de.featjar.base.data.*;
 import de.featjar.feature.model.mixins.IHasCommonAttributes;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.term.value.Variable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * A constraint describes some restriction on the valid configurations represented by a {@link FeatureModel}.
@@ -41,19 +47,79 @@ public interface IConstraint extends IFeatureModelElement, IHasCommonAttributes
 
     IFormula getFormula();
 
+    /**
+     * Returns a hash of the content of the formula of this constraint.
+     * Constraints with structurally equal formulas have equal hashes.
+     *
+     * @return the content hash of this constraint
+     */
+    default long getContentHash() {
+        return ContentHashes.of(getFormula());
+    }
+
     static LinkedHashSet<IFeature> getReferencedFeatures(IFormula formula, IFeatureModel featureModel) {
-        return formula.getVariableStream()
-                .map(Variable::getName)
-                .map(name -> {
-                    Result<IFeature> feature = featureModel.getFeature(name);
-                    if (feature.isEmpty()) throw new RuntimeException("encountered unknown feature " + name);
-                    return feature.get();
-                })
-                .collect(Sets.toSet());
+        return new LinkedHashSet<>(Arrays.asList(resolveReferencedFeatures(formula, featureModel)));
+    }
+
+    /**
+     * Resolves the distinct features referenced by a formula, in order of their first occurrence.
+     * Names are resolved through {@link IFeatureModel#getFeature(String)}.
+     *
+     * @param formula the formula
+     * @param featureModel the feature model
+     * @return the referenced features
+     */
+    static IFeature[] resolveReferencedFeatures(IFormula formula, IFeatureModel featureModel) {
+        IFeature[] features = new IFeature[4];
+        int size = 0;
+        // duplicates are detected by scanning small arrays, larger ones switch to a set
+        Set<IFeature> featureSet = null;
+        for (Iterator<Variable> it = formula.getVariableStream().iterator(); it.hasNext(); ) {
+            String name = it.next().getName();
+            IFeature feature = featureModel.getFeature(name).orElse(null);
+            if (feature == null) throw new RuntimeException("encountered unknown feature " + name);
+            if (featureSet != null) {
+                if (!featureSet.add(feature)) continue;
+            } else if (indexOf(features, size, feature) >= 0) {
+                continue;
+            } else if (size == 16) {
+                featureSet = Collections.newSetFromMap(new IdentityHashMap<>());
+                featureSet.addAll(Arrays.asList(features).subList(0, size));
+                featureSet.add(feature);
+            }
+            if (size == features.length) {
+                features = Arrays.copyOf(features, 2 * size);
+            }
+            features[size++] = feature;
+        }
+        return size == features.length ? features : Arrays.copyOf(features, size);
     }
 
+    private static int indexOf(IFeature[] features, int size, IFeature feature) {
+        for (int i = 0; i < size; i++) {
+            if (features[i] == feature) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the distinct features referenced by the formula of this constraint.
+     *
+     * @return a new set of the referenced features
+     */
     default LinkedHashSet<IFeature> getReferencedFeatures() {
-        return getReferencedFeatures(getFormula(), getFeatureModel());
+        return new LinkedHashSet<>(getReferencedFeatureList());
+    }
+
+    /**
+     * Returns an unmodifiable view of the distinct features referenced by the formula of this constraint,
+     * in order of their first occurrence.
+     * In contrast to {@link #getReferencedFeatures()}, this does not copy the features.
+     *
+     * @return the referenced features
+     */
+    default List<IFeature> getReferencedFeatureList() {
+        return List.of(resolveReferencedFeatures(getFormula(), getFeatureModel()));
     }
 
     default LinkedHashSet<String> getTags() {
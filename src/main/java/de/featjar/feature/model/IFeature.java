@@ -97,8 +97,7 @@ public interface IFeature extends IFeatureModelElement, IHasCommonAttributes {
 
     default LinkedHashSet<IConstraint> getReferencingConstraints() {
         return getFeatureModel().getConstraints().stream()
-                .filter(constraint ->
-                        constraint.getReferencedFeatures().stream().anyMatch(this::equals))
+                .filter(constraint -> constraint.getReferencedFeatureList().stream().anyMatch(this::equals))
                 .collect(Sets.toSet());
     }
 
@@ -22,11 +22,13 @@ package de.featjar.feature.model;
 
 import de.featjar.base.data.Result;
 import de.featjar.base.data.identifier.IIdentifier;
+import de.featjar.feature.model.event.IFeatureModelListener;
 import de.featjar.feature.model.mixins.IHasCommonAttributes;
 import de.featjar.feature.model.mixins.IHasConstraints;
 import de.featjar.feature.model.mixins.IHasFeatureTree;
 import de.featjar.formula.structure.IFormula;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 /**
  * A feature model represents the configuration space of a software system.
@@ -61,10 +63,54 @@ public interface IFeatureModel extends IFeatureModelElement, IHasCommonAttribute
 
     Result<IFeature> getFeature(String name);
 
+    /**
+     * Returns the feature with the given dense index.
+     * Features are indexed from 0 to {@link #getNumberOfFeatures()} - 1 in order of their addition.
+     * When a feature is removed, the feature with the highest index takes over its index.
+     *
+     * @param index the index
+     * @return the feature
+     * @throws IndexOutOfBoundsException if there is no feature with the given index
+     */
+    IFeature getFeature(int index);
+
+    /**
+     * Returns the dense index of a feature.
+     *
+     * @param feature the feature
+     * @return the index, or -1 if the feature is not contained in this feature model
+     * @see #getFeature(int)
+     */
+    int indexOf(IFeature feature);
+
     boolean hasFeature(IIdentifier identifier);
 
     boolean hasFeature(IFeature feature);
 
+    /**
+     * Returns the number of modifications of this feature model, its features, constraints, and feature tree.
+     * The count increases with every change and never decreases, so derived data (e.g., the formula of this
+     * feature model) can be reused as long as the count is unchanged.
+     * Changes that bypass the mutators, such as mutating the formula of a constraint in place, are not counted.
+     * Feature models that do not count their modifications return -1, so derived data is never reused for them.
+     *
+     * @return the modification count, or -1 if modifications are not counted
+     */
+    default long getModificationCount() {
+        return -1;
+    }
+
+    /**
+     * Returns a hash of the content of this feature model, combined from the
+     * {@link IFeatureTree#getContentHash() content hashes} of its feature trees and
+     * {@link IConstraint#getContentHash() constraints} in order.
+     *
+     * @return the content hash of this feature model
+     */
+    default long getContentHash() {
+        return ContentHashes.of(this);
+    }
+
     default IMutableFeatureModel mutate() {
         return (IMutableFeatureModel) this;
     }
@@ -86,5 +132,32 @@ public interface IFeatureModel extends IFeatureModelElement, IHasCommonAttribute
         void removeFeatureTreeRoot(IFeatureTree featureTree);
 
         void removeFeatureTreeRoot(IFeature feature);
+
+        /**
+         * Registers a listener that is notified about all subsequent changes of this feature model.
+         *
+         * @param listener the listener
+         */
+        void addListener(IFeatureModelListener listener);
+
+        /**
+         * Unregisters a listener.
+         *
+         * @param listener the listener
+         * @return true if the listener was registered
+         */
+        boolean removeListener(IFeatureModelListener listener);
+
+        /**
+         * Applies many mutations to this feature model at once.
+         * Implementations may defer maintenance of indices, resolution of references, and validation until the
+         * outermost batch ends, so that bulk mutations take linear time.
+         * Until then, lookups may not reflect the mutations of the batch.
+         *
+         * @param mutations the mutations
+         */
+        default void batch(Consumer<? super IMutableFeatureModel> mutations) {
+            mutations.accept(this);
+        }
     }
 }
@@ -59,6 +59,17 @@ public interface IFeatureTree extends IRootedTree<IFeatureTree>, IAttributable,
         return getFeatureRangeLowerBound() <= 0;
     }
 
+    /**
+     * Returns a hash of the content of this subtree.
+     * Covers the names of the features, the feature ranges, and the groups of all nodes, but not their identifiers
+     * or attributes, so structurally equal subtrees have equal hashes.
+     *
+     * @return the content hash of this subtree
+     */
+    default long getContentHash() {
+        return ContentHashes.of(this);
+    }
+
     default IMutableFeatureTree mutate() {
         return (IMutableFeatureTree) this;
     }
@@ -0,0 +1,1350 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import de.featjar.base.data.Attribute;
+import de.featjar.base.data.IAttribute;
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.IIdentifier;
+import de.featjar.base.data.identifier.UUIDIdentifier;
+import de.featjar.base.tree.Trees;
+import de.featjar.base.tree.structure.ARootedTree;
+import de.featjar.base.tree.structure.ITree;
+import de.featjar.feature.model.IConstraint.IMutableConstraint;
+import de.featjar.feature.model.IFeature.IMutableFeature;
+import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import de.featjar.feature.model.IFeatureTree.IMutableFeatureTree;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.formula.structure.IFormula;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable version of a feature model.
+ * Features, constraints, and feature tree nodes are stored in {@link PersistentHashMap hash array mapped tries},
+ * so every mutator returns a new version in time logarithmic in the size of the feature model, sharing all
+ * unchanged elements with this version.
+ * Versions never change, so they can be read from any thread without locking while newer versions are created.
+ * Elements are addressed by the identifiers of features and constraints, tree nodes by the identifiers of their
+ * features.
+ * Use {@link #asFeatureModel()} to pass a version to code that reads an {@link IFeatureModel}.
+ */
+public final class PersistentFeatureModel {
+
+    /**
+     * An immutable version of a feature.
+     */
+    public static final class PersistentFeature {
+        private final IIdentifier identifier;
+        private final long sequenceNumber;
+        private final Class<?> type;
+        private final Map<IAttribute<?>, Object> attributes;
+
+        private PersistentFeature(
+                IIdentifier identifier, long sequenceNumber, Class<?> type, Map<IAttribute<?>, Object> attributes) {
+            this.identifier = identifier;
+            this.sequenceNumber = sequenceNumber;
+            this.type = type;
+            this.attributes = attributes;
+        }
+
+        public IIdentifier getIdentifier() {
+            return identifier;
+        }
+
+        public Result<String> getName() {
+            return Result.ofNullable((String) attributes.get(Attributes.NAME));
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public Map<IAttribute<?>, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PersistentFeature{name=%s}", getName().orElse(""));
+        }
+    }
+
+    /**
+     * An immutable version of a constraint.
+     */
+    public static final class PersistentConstraint {
+        private final IIdentifier identifier;
+        private final long sequenceNumber;
+        private final IFormula formula;
+        private final Map<IAttribute<?>, Object> attributes;
+
+        private PersistentConstraint(
+                IIdentifier identifier, long sequenceNumber, IFormula formula, Map<IAttribute<?>, Object> attributes) {
+            this.identifier = identifier;
+            this.sequenceNumber = sequenceNumber;
+            this.formula = formula;
+            this.attributes = attributes;
+        }
+
+        public IIdentifier getIdentifier() {
+            return identifier;
+        }
+
+        /**
+         * Returns the formula of this constraint.
+         * The formula is shared by all versions that contain this constraint and must not be mutated.
+         *
+         * @return the formula
+         */
+        public IFormula getFormula() {
+            return formula;
+        }
+
+        public Map<IAttribute<?>, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PersistentConstraint{formula=%s}", formula);
+        }
+    }
+
+    /**
+     * An immutable version of a node of the feature tree.
+     * Refers to its parent and children by the identifiers of their features.
+     */
+    public static final class PersistentFeatureTree {
+        private static final IIdentifier[] NO_CHILDREN = new IIdentifier[0];
+
+        private final IIdentifier feature;
+        private final IIdentifier parent;
+        private final IIdentifier[] children;
+        private final int groupID;
+        private final int featureRangeLowerBound, featureRangeUpperBound;
+        private final int[] groupBounds;
+
+        private PersistentFeatureTree(
+                IIdentifier feature,
+                IIdentifier parent,
+                IIdentifier[] children,
+                int groupID,
+                int featureRangeLowerBound,
+                int featureRangeUpperBound,
+                int[] groupBounds) {
+            this.feature = feature;
+            this.parent = parent;
+            this.children = children;
+            this.groupID = groupID;
+            this.featureRangeLowerBound = featureRangeLowerBound;
+            this.featureRangeUpperBound = featureRangeUpperBound;
+            this.groupBounds = groupBounds;
+        }
+
+        private PersistentFeatureTree withGroupID(int newGroupID) {
+            return new PersistentFeatureTree(
+                    feature, parent, children, newGroupID, featureRangeLowerBound, featureRangeUpperBound, groupBounds);
+        }
+
+        private PersistentFeatureTree withChildren(IIdentifier[] newChildren) {
+            return new PersistentFeatureTree(
+                    feature, parent, newChildren, groupID, featureRangeLowerBound, featureRangeUpperBound, groupBounds);
+        }
+
+        public IIdentifier getFeatureIdentifier() {
+            return feature;
+        }
+
+        public Result<IIdentifier> getParentIdentifier() {
+            return Result.ofNullable(parent);
+        }
+
+        public List<IIdentifier> getChildIdentifiers() {
+            return Collections.unmodifiableList(Arrays.asList(children));
+        }
+
+        public int getGroupID() {
+            return groupID;
+        }
+
+        public int getFeatureRangeLowerBound() {
+            return featureRangeLowerBound;
+        }
+
+        public int getFeatureRangeUpperBound() {
+            return featureRangeUpperBound;
+        }
+
+        public int getNumberOfGroups() {
+            return groupBounds.length / 2;
+        }
+
+        public List<Group> getGroups() {
+            List<Group> groups = new ArrayList<>(getNumberOfGroups());
+            for (int i = 0; i < groupBounds.length; i += 2) {
+                groups.add(new Group(Range.of(groupBounds[i], groupBounds[i + 1])));
+            }
+            return groups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PersistentFeatureTree{feature=%s}", feature);
+        }
+    }
+
+    /**
+     * A read-only view of a version as {@link IFeatureModel}.
+     * Element views are created on first access and reused, so each element has a single view per version.
+     */
+    private final class FeatureModelView implements IFeatureModel {
+        private final IIdentifier identifier = UUIDIdentifier.newInstance();
+        private final ConcurrentHashMap<IIdentifier, FeatureView> featureViews = new ConcurrentHashMap<>();
+        private List<IFeature> featureList;
+        private List<IConstraint> constraintList;
+        private List<IFeatureTree> rootList;
+        private Map<IIdentifier, FeatureTreeView> treeViews;
+
+        private FeatureView getFeatureView(IIdentifier featureIdentifier) {
+            return featureViews.computeIfAbsent(featureIdentifier, key -> new FeatureView(this, features.get(key)));
+        }
+
+        private synchronized List<IFeature> getFeatureList() {
+            if (featureList == null) {
+                List<PersistentFeature> persistentFeatures = PersistentFeatureModel.this.getFeatures();
+                List<IFeature> newFeatureList = new ArrayList<>(persistentFeatures.size());
+                for (PersistentFeature feature : persistentFeatures) {
+                    FeatureView featureView = getFeatureView(feature.identifier);
+                    featureView.index = newFeatureList.size();
+                    newFeatureList.add(featureView);
+                }
+                featureList = Collections.unmodifiableList(newFeatureList);
+            }
+            return featureList;
+        }
+
+        private synchronized Map<IIdentifier, FeatureTreeView> getTreeViews() {
+            if (treeViews == null) {
+                Map<IIdentifier, FeatureTreeView> newTreeViews = new LinkedHashMap<>();
+                List<IFeatureTree> newRootList = new ArrayList<>(roots.length);
+                for (IIdentifier root : roots) {
+                    newRootList.add(createTreeView(featureTrees.get(root), newTreeViews));
+                }
+                for (FeatureTreeView treeView : newTreeViews.values()) {
+                    treeView.frozen = true;
+                }
+                rootList = Collections.unmodifiableList(newRootList);
+                treeViews = newTreeViews;
+            }
+            return treeViews;
+        }
+
+        private FeatureTreeView createTreeView(
+                PersistentFeatureTree tree, Map<IIdentifier, FeatureTreeView> newTreeViews) {
+            FeatureTreeView treeView = new FeatureTreeView(getFeatureView(tree.feature), tree);
+            newTreeViews.put(tree.feature, treeView);
+            for (IIdentifier child : tree.children) {
+                treeView.addChild(createTreeView(featureTrees.get(child), newTreeViews));
+            }
+            return treeView;
+        }
+
+        @Override
+        public IIdentifier getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public Optional<Map<IAttribute<?>, Object>> getAttributes() {
+            return Optional.of(Map.of());
+        }
+
+        @Override
+        public IFeatureModel getFeatureModel() {
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         * Returns a mutable copy, as created by {@link PersistentFeatureModel#toFeatureModel()}.
+         */
+        @Override
+        public IFeatureModel clone() {
+            return toFeatureModel();
+        }
+
+        @Override
+        public IMutableFeatureModel mutate() {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public Collection<IFeature> getFeatures() {
+            return getFeatureList();
+        }
+
+        @Override
+        public int getNumberOfFeatures() {
+            return features.size();
+        }
+
+        @Override
+        public Result<IFeature> getFeature(IIdentifier featureIdentifier) {
+            return features.containsKey(featureIdentifier)
+                    ? Result.of(getFeatureView(featureIdentifier))
+                    : Result.empty();
+        }
+
+        @Override
+        public Result<IFeature> getFeature(String name) {
+            return PersistentFeatureModel.this.getFeature(name).map(feature -> getFeatureView(feature.identifier));
+        }
+
+        @Override
+        public IFeature getFeature(int index) {
+            return getFeatureList().get(index);
+        }
+
+        @Override
+        public int indexOf(IFeature feature) {
+            if (feature instanceof FeatureView && ((FeatureView) feature).featureModel == this) {
+                getFeatureList();
+                return ((FeatureView) feature).index;
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean hasFeature(IIdentifier featureIdentifier) {
+            return features.containsKey(featureIdentifier);
+        }
+
+        @Override
+        public boolean hasFeature(IFeature feature) {
+            return features.containsKey(feature.getIdentifier());
+        }
+
+        /**
+         * {@inheritDoc}
+         * A view never changes, so this is the {@link PersistentFeatureModel#getVersion() version} it was created for.
+         */
+        @Override
+        public long getModificationCount() {
+            return version;
+        }
+
+        @Override
+        public synchronized Collection<IConstraint> getConstraints() {
+            if (constraintList == null) {
+                List<PersistentConstraint> persistentConstraints = PersistentFeatureModel.this.getConstraints();
+                List<IConstraint> newConstraintList = new ArrayList<>(persistentConstraints.size());
+                for (PersistentConstraint constraint : persistentConstraints) {
+                    newConstraintList.add(new ConstraintView(this, constraint));
+                }
+                constraintList = Collections.unmodifiableList(newConstraintList);
+            }
+            return constraintList;
+        }
+
+        @Override
+        public int getNumberOfConstraints() {
+            return constraints.size();
+        }
+
+        @Override
+        public List<IFeatureTree> getRoots() {
+            getTreeViews();
+            return rootList;
+        }
+
+        @Override
+        public int getNumberOfTreeFeatures() {
+            return featureTrees.size();
+        }
+
+        @Override
+        public Result<IFeatureTree> getFeatureTree(IFeature feature) {
+            return Result.ofNullable(getTreeViews().get(feature.getIdentifier()));
+        }
+
+        @Override
+        public boolean hasTreeFeature(IIdentifier featureIdentifier) {
+            return featureTrees.containsKey(featureIdentifier);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PersistentFeatureModel{version=%d}", version);
+        }
+    }
+
+    /**
+     * A read-only view of a {@link PersistentFeature} as {@link IFeature}.
+     */
+    private static final class FeatureView implements IFeature {
+        private final FeatureModelView featureModel;
+        private final PersistentFeature feature;
+        private int index = -1;
+
+        private FeatureView(FeatureModelView featureModel, PersistentFeature feature) {
+            this.featureModel = featureModel;
+            this.feature = feature;
+        }
+
+        @Override
+        public IIdentifier getIdentifier() {
+            return feature.identifier;
+        }
+
+        @Override
+        public Optional<Map<IAttribute<?>, Object>> getAttributes() {
+            return Optional.of(feature.attributes);
+        }
+
+        @Override
+        public IFeatureModel getFeatureModel() {
+            return featureModel;
+        }
+
+        @Override
+        public Result<IFeatureTree> getFeatureTree() {
+            return featureModel.getFeatureTree(this);
+        }
+
+        @Override
+        public Class<?> getType() {
+            return feature.type;
+        }
+
+        @Override
+        public IFeature clone() {
+            return this;
+        }
+
+        @Override
+        public IFeature clone(IFeatureModel newFeatureModel) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public IMutableFeature mutate() {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public String toString() {
+            return feature.toString();
+        }
+    }
+
+    /**
+     * A read-only view of a {@link PersistentConstraint} as {@link IConstraint}.
+     */
+    private static final class ConstraintView implements IConstraint {
+        private final FeatureModelView featureModel;
+        private final PersistentConstraint constraint;
+
+        private ConstraintView(FeatureModelView featureModel, PersistentConstraint constraint) {
+            this.featureModel = featureModel;
+            this.constraint = constraint;
+        }
+
+        @Override
+        public IIdentifier getIdentifier() {
+            return constraint.identifier;
+        }
+
+        @Override
+        public Optional<Map<IAttribute<?>, Object>> getAttributes() {
+            return Optional.of(constraint.attributes);
+        }
+
+        @Override
+        public IFeatureModel getFeatureModel() {
+            return featureModel;
+        }
+
+        /**
+         * {@inheritDoc}
+         * The formula is shared by all versions that contain this constraint and must not be mutated.
+         */
+        @Override
+        public IFormula getFormula() {
+            return constraint.formula;
+        }
+
+        @Override
+        public IConstraint clone() {
+            return this;
+        }
+
+        @Override
+        public IConstraint clone(IFeatureModel newFeatureModel) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public IMutableConstraint mutate() {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public String toString() {
+            return constraint.toString();
+        }
+    }
+
+    /**
+     * A read-only view of a {@link PersistentFeatureTree} as {@link IFeatureTree}.
+     * Attributes of tree nodes are not stored in persistent feature models, so a view has none.
+     */
+    private static final class FeatureTreeView extends ARootedTree<IFeatureTree> implements IFeatureTree {
+        private final FeatureView feature;
+        private final PersistentFeatureTree tree;
+        private boolean frozen;
+
+        private FeatureTreeView(FeatureView feature, PersistentFeatureTree tree) {
+            this.feature = feature;
+            this.tree = tree;
+        }
+
+        @Override
+        public IFeature getFeature() {
+            return feature;
+        }
+
+        @Override
+        public int getGroupID() {
+            return tree.groupID;
+        }
+
+        @Override
+        public List<Group> getGroups() {
+            return Collections.unmodifiableList(tree.getGroups());
+        }
+
+        @Override
+        public Group getGroup() {
+            IFeatureTree parentTree = getParent().orElse(null);
+            return parentTree == null
+                    ? new Group(Range.of(0, Range.OPEN))
+                    : parentTree.getGroups().get(tree.groupID);
+        }
+
+        @Override
+        public List<IFeatureTree> getGroupSiblings() {
+            IFeatureTree parentTree = getParent().orElse(null);
+            return parentTree == null ? List.of() : parentTree.getGroupChildren(tree.groupID);
+        }
+
+        @Override
+        public List<IFeatureTree> getGroupChildren(int groupID) {
+            List<IFeatureTree> groupChildren = new ArrayList<>();
+            for (IFeatureTree child : getChildren()) {
+                if (child.getGroupID() == groupID) {
+                    groupChildren.add(child);
+                }
+            }
+            return Collections.unmodifiableList(groupChildren);
+        }
+
+        @Override
+        public int getFeatureRangeLowerBound() {
+            return tree.featureRangeLowerBound;
+        }
+
+        @Override
+        public int getFeatureRangeUpperBound() {
+            return tree.featureRangeUpperBound;
+        }
+
+        @Override
+        public Optional<Map<IAttribute<?>, Object>> getAttributes() {
+            return Optional.empty();
+        }
+
+        @Override
+        public List<IFeatureTree> getRoots() {
+            return List.of(this);
+        }
+
+        @Override
+        public IMutableFeatureTree mutate() {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setParent(IFeatureTree newParent) {
+            if (frozen) {
+                throw new UnsupportedOperationException(READ_ONLY);
+            }
+            super.setParent(newParent);
+        }
+
+        @Override
+        public ITree<IFeatureTree> cloneNode() {
+            return new FeatureTreeView(feature, tree);
+        }
+
+        @Override
+        public boolean equalsNode(IFeatureTree other) {
+            if (this == other) return true;
+            if (!(other instanceof FeatureTreeView)) return false;
+            FeatureTreeView otherTree = (FeatureTreeView) other;
+            return tree.groupID == otherTree.tree.groupID
+                    && feature == otherTree.feature
+                    && Arrays.equals(tree.groupBounds, otherTree.tree.groupBounds);
+        }
+
+        @Override
+        public int hashCodeNode() {
+            return Objects.hash(feature, tree.groupID, Arrays.hashCode(tree.groupBounds));
+        }
+
+        @Override
+        public String toString() {
+            return feature.feature.getName().orElse("");
+        }
+    }
+
+    private static final String READ_ONLY = "views of persistent feature models are read-only";
+
+    private static final IIdentifier[] NO_IDENTIFIERS = new IIdentifier[0];
+
+    private static final PersistentFeatureModel EMPTY = new PersistentFeatureModel(
+            PersistentHashMap.empty(),
+            PersistentHashMap.empty(),
+            PersistentHashMap.empty(),
+            PersistentHashMap.empty(),
+            NO_IDENTIFIERS,
+            0,
+            0);
+
+    private final PersistentHashMap<IIdentifier, PersistentFeature> features;
+    /**
+     * Maps names to the identifiers of all features with this name, in order of their addition.
+     */
+    private final PersistentHashMap<String, IIdentifier[]> featuresByName;
+
+    private final PersistentHashMap<IIdentifier, PersistentConstraint> constraints;
+    private final PersistentHashMap<IIdentifier, PersistentFeatureTree> featureTrees;
+    private final IIdentifier[] roots;
+    private final long nextSequenceNumber;
+    private final long version;
+
+    private volatile FeatureModelView featureModelView;
+
+    private PersistentFeatureModel(
+            PersistentHashMap<IIdentifier, PersistentFeature> features,
+            PersistentHashMap<String, IIdentifier[]> featuresByName,
+            PersistentHashMap<IIdentifier, PersistentConstraint> constraints,
+            PersistentHashMap<IIdentifier, PersistentFeatureTree> featureTrees,
+            IIdentifier[] roots,
+            long nextSequenceNumber,
+            long version) {
+        this.features = features;
+        this.featuresByName = featuresByName;
+        this.constraints = constraints;
+        this.featureTrees = featureTrees;
+        this.roots = roots;
+        this.nextSequenceNumber = nextSequenceNumber;
+        this.version = version;
+    }
+
+    /**
+     * Returns the empty feature model.
+     *
+     * @return the empty feature model
+     */
+    public static PersistentFeatureModel empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a persistent feature model with the features, constraints, and feature tree of a feature model.
+     * Elements keep their identifiers, formulas are cloned.
+     * Attributes of feature tree nodes are not included.
+     *
+     * @param featureModel the feature model
+     * @return the persistent feature model
+     * @throws IllegalArgumentException if a feature occurs more than once in the feature tree
+     */
+    public static PersistentFeatureModel of(IFeatureModel featureModel) {
+        PersistentHashMap<IIdentifier, PersistentFeature> features = PersistentHashMap.empty();
+        PersistentHashMap<String, IIdentifier[]> featuresByName = PersistentHashMap.empty();
+        long sequenceNumber = 0;
+        for (IFeature feature : featureModel.getFeatures()) {
+            IIdentifier identifier = feature.getIdentifier();
+            features = features.put(
+                    identifier,
+                    new PersistentFeature(
+                            identifier,
+                            sequenceNumber++,
+                            feature.getType(),
+                            copyAttributes(feature.getAttributes().orElse(Map.of()))));
+            String name = feature.getName().orElse(null);
+            if (name != null) {
+                featuresByName = addName(featuresByName, name, identifier);
+            }
+        }
+
+        PersistentHashMap<IIdentifier, PersistentConstraint> constraints = PersistentHashMap.empty();
+        for (IConstraint constraint : featureModel.getConstraints()) {
+            IIdentifier identifier = constraint.getIdentifier();
+            constraints = constraints.put(
+                    identifier,
+                    new PersistentConstraint(
+                            identifier,
+                            sequenceNumber++,
+                            Trees.clone(constraint.getFormula()),
+                            copyAttributes(constraint.getAttributes().orElse(Map.of()))));
+        }
+
+        PersistentHashMap<IIdentifier, PersistentFeatureTree> featureTrees = PersistentHashMap.empty();
+        List<IFeatureTree> rootTrees = featureModel.getRoots();
+        IIdentifier[] roots = new IIdentifier[rootTrees.size()];
+        ArrayDeque<IFeatureTree> stack = new ArrayDeque<>(rootTrees);
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = rootTrees.get(i).getFeature().getIdentifier();
+        }
+        while (!stack.isEmpty()) {
+            IFeatureTree tree = stack.pop();
+            IIdentifier identifier = tree.getFeature().getIdentifier();
+            if (featureTrees.containsKey(identifier)) {
+                throw new IllegalArgumentException(
+                        String.format("feature %s occurs more than once in the feature tree", identifier));
+            }
+            List<? extends IFeatureTree> childTrees = tree.getChildren();
+            IIdentifier[] children = new IIdentifier[childTrees.size()];
+            for (int i = 0; i < children.length; i++) {
+                IFeatureTree childTree = childTrees.get(i);
+                children[i] = childTree.getFeature().getIdentifier();
+                stack.push(childTree);
+            }
+            List<Group> groups = tree.getGroups();
+            int[] groupBounds = new int[2 * groups.size()];
+            for (int i = 0; i < groups.size(); i++) {
+                groupBounds[2 * i] = groups.get(i).getLowerBound();
+                groupBounds[2 * i + 1] = groups.get(i).getUpperBound();
+            }
+            featureTrees = featureTrees.put(
+                    identifier,
+                    new PersistentFeatureTree(
+                            identifier,
+                            tree.getParent()
+                                    .map(parent -> parent.getFeature().getIdentifier())
+                                    .orElse(null),
+                            children.length == 0 ? PersistentFeatureTree.NO_CHILDREN : children,
+                            tree.getGroupID(),
+                            tree.getFeatureRangeLowerBound(),
+                            tree.getFeatureRangeUpperBound(),
+                            groupBounds));
+        }
+        return new PersistentFeatureModel(
+                features, featuresByName, constraints, featureTrees, roots, sequenceNumber, 0);
+    }
+
+    /**
+     * Creates a mutable feature model with the features, constraints, and feature tree of this version.
+     * The created elements get new identifiers.
+     *
+     * @return the feature model
+     */
+    public FeatureModel toFeatureModel() {
+        FeatureModel featureModel = new FeatureModel();
+        LinkedHashMap<IIdentifier, IFeature> newFeatures = new LinkedHashMap<>((int) (features.size() * 1.5));
+        for (PersistentFeature feature : getFeatures()) {
+            IFeature newFeature = featureModel.addFeature(feature.getName().orElse(""));
+            if (feature.type != null) {
+                newFeature.mutate().setType(feature.type);
+            }
+            setAttributes(newFeature, feature.attributes);
+            newFeatures.put(feature.identifier, newFeature);
+        }
+        for (IIdentifier root : roots) {
+            addFeatureTree(featureModel.addFeatureTreeRoot(newFeatures.get(root)), newFeatures);
+        }
+        for (PersistentConstraint constraint : getConstraints()) {
+            setAttributes(featureModel.addConstraint(constraint.formula), constraint.attributes);
+        }
+        return featureModel;
+    }
+
+    private void addFeatureTree(IFeatureTree newTree, Map<IIdentifier, IFeature> newFeatures) {
+        PersistentFeatureTree tree = featureTrees.get(newTree.getFeature().getIdentifier());
+        newTree.mutate().setGroups(tree.getGroups());
+        newTree.mutate().setFeatureRange(Range.of(tree.featureRangeLowerBound, tree.featureRangeUpperBound));
+        for (IIdentifier child : tree.children) {
+            int groupID = featureTrees.get(child).groupID;
+            addFeatureTree(
+                    newTree.mutate().addFeatureBelow(newFeatures.get(child), newTree.getChildrenCount(), groupID),
+                    newFeatures);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void setAttributes(IFeatureModelElement element, Map<IAttribute<?>, Object> attributes) {
+        for (Map.Entry<IAttribute<?>, Object> entry : attributes.entrySet()) {
+            if (entry.getKey() instanceof Attribute && !Attributes.NAME.equals(entry.getKey())) {
+                element.mutate().setAttributeValue((Attribute<Object>) entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only view of this version as {@link IFeatureModel}, for code that only reads feature models.
+     * The views of features, constraints, and tree nodes are created on first access and keep referring to this
+     * version, so they are not affected by the creation of newer versions.
+     * All mutators of the view and its elements throw an {@link UnsupportedOperationException}.
+     *
+     * @return the view
+     */
+    public IFeatureModel asFeatureModel() {
+        FeatureModelView view = featureModelView;
+        if (view == null) {
+            synchronized (this) {
+                view = featureModelView;
+                if (view == null) {
+                    view = new FeatureModelView();
+                    featureModelView = view;
+                }
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Returns the version of this feature model.
+     * Counts the mutations since the feature model was created by {@link #empty()} or {@link #of(IFeatureModel)}.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getNumberOfFeatures() {
+        return features.size();
+    }
+
+    public boolean hasFeature(IIdentifier identifier) {
+        return features.containsKey(identifier);
+    }
+
+    public Result<PersistentFeature> getFeature(IIdentifier identifier) {
+        return Result.ofNullable(features.get(identifier));
+    }
+
+    /**
+     * Returns the first added feature with the given name.
+     *
+     * @param name the name
+     * @return the feature, if any
+     */
+    public Result<PersistentFeature> getFeature(String name) {
+        IIdentifier[] identifiers = featuresByName.get(name);
+        return identifiers == null ? Result.empty() : Result.of(features.get(identifiers[0]));
+    }
+
+    /**
+     * Returns all features in order of their addition.
+     *
+     * @return the features
+     */
+    public List<PersistentFeature> getFeatures() {
+        List<PersistentFeature> featureList = new ArrayList<>(features.size());
+        features.forEach((identifier, feature) -> featureList.add(feature));
+        featureList.sort(Comparator.comparingLong(feature -> feature.sequenceNumber));
+        return featureList;
+    }
+
+    public int getNumberOfConstraints() {
+        return constraints.size();
+    }
+
+    public boolean hasConstraint(IIdentifier identifier) {
+        return constraints.containsKey(identifier);
+    }
+
+    public Result<PersistentConstraint> getConstraint(IIdentifier identifier) {
+        return Result.ofNullable(constraints.get(identifier));
+    }
+
+    /**
+     * Returns all constraints in order of their addition.
+     *
+     * @return the constraints
+     */
+    public List<PersistentConstraint> getConstraints() {
+        List<PersistentConstraint> constraintList = new ArrayList<>(constraints.size());
+        constraints.forEach((identifier, constraint) -> constraintList.add(constraint));
+        constraintList.sort(Comparator.comparingLong(constraint -> constraint.sequenceNumber));
+        return constraintList;
+    }
+
+    public List<PersistentFeatureTree> getRoots() {
+        List<PersistentFeatureTree> rootTrees = new ArrayList<>(roots.length);
+        for (IIdentifier root : roots) {
+            rootTrees.add(featureTrees.get(root));
+        }
+        return rootTrees;
+    }
+
+    public int getNumberOfTreeFeatures() {
+        return featureTrees.size();
+    }
+
+    public boolean hasTreeFeature(IIdentifier featureIdentifier) {
+        return featureTrees.containsKey(featureIdentifier);
+    }
+
+    public Result<PersistentFeatureTree> getFeatureTree(IIdentifier featureIdentifier) {
+        return Result.ofNullable(featureTrees.get(featureIdentifier));
+    }
+
+    public Result<PersistentFeatureTree> getParent(PersistentFeatureTree tree) {
+        return tree.parent == null ? Result.empty() : Result.of(featureTrees.get(tree.parent));
+    }
+
+    public List<PersistentFeatureTree> getChildren(PersistentFeatureTree tree) {
+        List<PersistentFeatureTree> childTrees = new ArrayList<>(tree.children.length);
+        for (IIdentifier child : tree.children) {
+            childTrees.add(featureTrees.get(child));
+        }
+        return childTrees;
+    }
+
+    /**
+     * Adds a feature.
+     *
+     * @param identifier the identifier of the new feature
+     * @param name the name of the new feature
+     * @return the new version
+     * @throws IllegalArgumentException if a feature with the identifier already exists
+     */
+    public PersistentFeatureModel addFeature(IIdentifier identifier, String name) {
+        Objects.requireNonNull(identifier);
+        Objects.requireNonNull(name);
+        if (features.containsKey(identifier)) {
+            throw new IllegalArgumentException(String.format("feature %s already exists", identifier));
+        }
+        PersistentFeature feature =
+                new PersistentFeature(identifier, nextSequenceNumber, null, Map.of(Attributes.NAME, name));
+        return new PersistentFeatureModel(
+                features.put(identifier, feature),
+                addName(featuresByName, name, identifier),
+                constraints,
+                featureTrees,
+                roots,
+                nextSequenceNumber + 1,
+                version + 1);
+    }
+
+    /**
+     * Removes a feature.
+     * Like {@link FeatureModel#removeFeature(IFeature)}, does not remove the feature from the feature tree.
+     *
+     * @param identifier the identifier of the feature
+     * @return the new version, or this version if there is no such feature
+     */
+    public PersistentFeatureModel removeFeature(IIdentifier identifier) {
+        PersistentFeature feature = features.get(identifier);
+        if (feature == null) {
+            return this;
+        }
+        return withFeatures(
+                features.remove(identifier), removeName(featuresByName, feature.getName().orElse(null), identifier));
+    }
+
+    public PersistentFeatureModel setFeatureName(IIdentifier identifier, String name) {
+        Objects.requireNonNull(name);
+        PersistentFeature feature = requireFeature(identifier);
+        String oldName = feature.getName().orElse(null);
+        if (name.equals(oldName)) {
+            return this;
+        }
+        return withFeatures(
+                features.put(identifier, withAttribute(feature, Attributes.NAME, name)),
+                addName(removeName(featuresByName, oldName, identifier), name, identifier));
+    }
+
+    public PersistentFeatureModel setFeatureType(IIdentifier identifier, Class<?> type) {
+        PersistentFeature feature = requireFeature(identifier);
+        return withFeatures(
+                features.put(
+                        identifier,
+                        new PersistentFeature(identifier, feature.sequenceNumber, type, feature.attributes)),
+                featuresByName);
+    }
+
+    /**
+     * Sets or removes an attribute value of a feature.
+     *
+     * @param <S> the type of the attribute
+     * @param identifier the identifier of the feature
+     * @param attribute the attribute
+     * @param value the value, {@code null} to remove the value
+     * @return the new version
+     * @throws IllegalArgumentException if there is no such feature or if the name of the feature is removed
+     */
+    public <S> PersistentFeatureModel setFeatureAttributeValue(
+            IIdentifier identifier, Attribute<S> attribute, S value) {
+        if (Attributes.NAME.equals(attribute)) {
+            if (value == null) {
+                throw new IllegalArgumentException("cannot remove the name of a feature");
+            }
+            return setFeatureName(identifier, (String) value);
+        }
+        return withFeatures(
+                features.put(identifier, withAttribute(requireFeature(identifier), attribute, value)),
+                featuresByName);
+    }
+
+    /**
+     * Adds a constraint.
+     *
+     * @param identifier the identifier of the new constraint
+     * @param formula the formula of the new constraint, which is cloned
+     * @return the new version
+     * @throws IllegalArgumentException if a constraint with the identifier already exists
+     */
+    public PersistentFeatureModel addConstraint(IIdentifier identifier, IFormula formula) {
+        Objects.requireNonNull(identifier);
+        if (constraints.containsKey(identifier)) {
+            throw new IllegalArgumentException(String.format("constraint %s already exists", identifier));
+        }
+        return new PersistentFeatureModel(
+                features,
+                featuresByName,
+                constraints.put(
+                        identifier,
+                        new PersistentConstraint(identifier, nextSequenceNumber, Trees.clone(formula), Map.of())),
+                featureTrees,
+                roots,
+                nextSequenceNumber + 1,
+                version + 1);
+    }
+
+    /**
+     * Removes a constraint.
+     *
+     * @param identifier the identifier of the constraint
+     * @return the new version, or this version if there is no such constraint
+     */
+    public PersistentFeatureModel removeConstraint(IIdentifier identifier) {
+        PersistentHashMap<IIdentifier, PersistentConstraint> newConstraints = constraints.remove(identifier);
+        return newConstraints == constraints ? this : withConstraints(newConstraints);
+    }
+
+    /**
+     * Replaces the formula of a constraint.
+     *
+     * @param identifier the identifier of the constraint
+     * @param formula the new formula, which is cloned
+     * @return the new version
+     * @throws IllegalArgumentException if there is no such constraint
+     */
+    public PersistentFeatureModel setConstraintFormula(IIdentifier identifier, IFormula formula) {
+        PersistentConstraint constraint = requireConstraint(identifier);
+        return withConstraints(constraints.put(
+                identifier,
+                new PersistentConstraint(
+                        identifier, constraint.sequenceNumber, Trees.clone(formula), constraint.attributes)));
+    }
+
+    /**
+     * Sets or removes an attribute value of a constraint.
+     *
+     * @param <S> the type of the attribute
+     * @param identifier the identifier of the constraint
+     * @param attribute the attribute
+     * @param value the value, {@code null} to remove the value
+     * @return the new version
+     * @throws IllegalArgumentException if there is no such constraint
+     */
+    public <S> PersistentFeatureModel setConstraintAttributeValue(
+            IIdentifier identifier, Attribute<S> attribute, S value) {
+        PersistentConstraint constraint = requireConstraint(identifier);
+        return withConstraints(constraints.put(
+                identifier,
+                new PersistentConstraint(
+                        identifier,
+                        constraint.sequenceNumber,
+                        constraint.formula,
+                        withAttribute(constraint.attributes, attribute, value))));
+    }
+
+    /**
+     * Adds a new root to the feature tree.
+     *
+     * @param featureIdentifier the identifier of the feature of the root
+     * @return the new version
+     * @throws IllegalArgumentException if there is no such feature or if it is already part of the feature tree
+     */
+    public PersistentFeatureModel addFeatureTreeRoot(IIdentifier featureIdentifier) {
+        requireNewTreeFeature(featureIdentifier);
+        IIdentifier[] newRoots = Arrays.copyOf(roots, roots.length + 1);
+        newRoots[roots.length] = featureIdentifier;
+        return withFeatureTrees(
+                featureTrees.put(featureIdentifier, newFeatureTree(featureIdentifier, null, 0)), newRoots);
+    }
+
+    /**
+     * Adds a new node to the feature tree.
+     *
+     * @param parentFeatureIdentifier the identifier of the feature of the parent node
+     * @param featureIdentifier the identifier of the feature of the new node
+     * @param index the index of the new node among the children of the parent node
+     * @param groupID the group of the parent node that contains the new node
+     * @return the new version
+     * @throws IllegalArgumentException if the parent node or the feature does not exist, if the feature is already
+     *     part of the feature tree, or if the index or group ID is invalid
+     */
+    public PersistentFeatureModel addFeatureBelow(
+            IIdentifier parentFeatureIdentifier, IIdentifier featureIdentifier, int index, int groupID) {
+        PersistentFeatureTree parent = requireFeatureTree(parentFeatureIdentifier);
+        requireNewTreeFeature(featureIdentifier);
+        if (index < 0 || index > parent.children.length) {
+            throw new IllegalArgumentException(String.format("invalid child index (%d)", index));
+        }
+        checkGroupID(parent, groupID);
+        IIdentifier[] newChildren = new IIdentifier[parent.children.length + 1];
+        System.arraycopy(parent.children, 0, newChildren, 0, index);
+        newChildren[index] = featureIdentifier;
+        System.arraycopy(parent.children, index, newChildren, index + 1, parent.children.length - index);
+        return withFeatureTrees(
+                featureTrees
+                        .put(parentFeatureIdentifier, parent.withChildren(newChildren))
+                        .put(featureIdentifier, newFeatureTree(featureIdentifier, parentFeatureIdentifier, groupID)),
+                roots);
+    }
+
+    /**
+     * Removes a node and its subtree from the feature tree.
+     *
+     * @param featureIdentifier the identifier of the feature of the node
+     * @return the new version, or this version if the feature is not part of the feature tree
+     */
+    public PersistentFeatureModel removeFeatureTree(IIdentifier featureIdentifier) {
+        PersistentFeatureTree tree = featureTrees.get(featureIdentifier);
+        if (tree == null) {
+            return this;
+        }
+        PersistentHashMap<IIdentifier, PersistentFeatureTree> newFeatureTrees = featureTrees;
+        IIdentifier[] newRoots = roots;
+        if (tree.parent == null) {
+            newRoots = remove(roots, featureIdentifier);
+        } else {
+            PersistentFeatureTree parent = featureTrees.get(tree.parent);
+            newFeatureTrees =
+                    newFeatureTrees.put(tree.parent, parent.withChildren(remove(parent.children, featureIdentifier)));
+        }
+        ArrayDeque<IIdentifier> stack = new ArrayDeque<>();
+        stack.push(featureIdentifier);
+        while (!stack.isEmpty()) {
+            IIdentifier identifier = stack.pop();
+            for (IIdentifier child : featureTrees.get(identifier).children) {
+                stack.push(child);
+            }
+            newFeatureTrees = newFeatureTrees.remove(identifier);
+        }
+        return withFeatureTrees(newFeatureTrees, newRoots);
+    }
+
+    public PersistentFeatureModel setFeatureRange(IIdentifier featureIdentifier, Range featureRange) {
+        PersistentFeatureTree tree = requireFeatureTree(featureIdentifier);
+        return withFeatureTrees(
+                featureTrees.put(
+                        featureIdentifier,
+                        new PersistentFeatureTree(
+                                featureIdentifier,
+                                tree.parent,
+                                tree.children,
+                                tree.groupID,
+                                featureRange.getLowerBound(),
+                                featureRange.getUpperBound(),
+                                tree.groupBounds)),
+                roots);
+    }
+
+    public PersistentFeatureModel setGroupID(IIdentifier featureIdentifier, int groupID) {
+        PersistentFeatureTree tree = requireFeatureTree(featureIdentifier);
+        if (tree.parent == null) {
+            throw new IllegalArgumentException("Cannot set groupID for root feature!");
+        }
+        checkGroupID(featureTrees.get(tree.parent), groupID);
+        return withFeatureTrees(featureTrees.put(featureIdentifier, tree.withGroupID(groupID)), roots);
+    }
+
+    public PersistentFeatureModel setGroups(IIdentifier featureIdentifier, List<Group> groups) {
+        PersistentFeatureTree tree = requireFeatureTree(featureIdentifier);
+        int[] groupBounds = new int[2 * groups.size()];
+        for (int i = 0; i < groups.size(); i++) {
+            groupBounds[2 * i] = groups.get(i).getLowerBound();
+            groupBounds[2 * i + 1] = groups.get(i).getUpperBound();
+        }
+        return withFeatureTrees(
+                featureTrees.put(
+                        featureIdentifier,
+                        new PersistentFeatureTree(
+                                featureIdentifier,
+                                tree.parent,
+                                tree.children,
+                                tree.groupID,
+                                tree.featureRangeLowerBound,
+                                tree.featureRangeUpperBound,
+                                groupBounds)),
+                roots);
+    }
+
+    private PersistentFeatureModel withFeatures(
+            PersistentHashMap<IIdentifier, PersistentFeature> newFeatures,
+            PersistentHashMap<String, IIdentifier[]> newFeaturesByName) {
+        return new PersistentFeatureModel(
+                newFeatures, newFeaturesByName, constraints, featureTrees, roots, nextSequenceNumber, version + 1);
+    }
+
+    private PersistentFeatureModel withConstraints(
+            PersistentHashMap<IIdentifier, PersistentConstraint> newConstraints) {
+        return new PersistentFeatureModel(
+                features, featuresByName, newConstraints, featureTrees, roots, nextSequenceNumber, version + 1);
+    }
+
+    private PersistentFeatureModel withFeatureTrees(
+            PersistentHashMap<IIdentifier, PersistentFeatureTree> newFeatureTrees, IIdentifier[] newRoots) {
+        return new PersistentFeatureModel(
+                features, featuresByName, constraints, newFeatureTrees, newRoots, nextSequenceNumber, version + 1);
+    }
+
+    private PersistentFeature requireFeature(IIdentifier identifier) {
+        PersistentFeature feature = features.get(identifier);
+        if (feature == null) {
+            throw new IllegalArgumentException(String.format("feature %s does not exist", identifier));
+        }
+        return feature;
+    }
+
+    private PersistentConstraint requireConstraint(IIdentifier identifier) {
+        PersistentConstraint constraint = constraints.get(identifier);
+        if (constraint == null) {
+            throw new IllegalArgumentException(String.format("constraint %s does not exist", identifier));
+        }
+        return constraint;
+    }
+
+    private PersistentFeatureTree requireFeatureTree(IIdentifier featureIdentifier) {
+        PersistentFeatureTree tree = featureTrees.get(featureIdentifier);
+        if (tree == null) {
+            throw new IllegalArgumentException(
+                    String.format("feature %s is not part of the feature tree", featureIdentifier));
+        }
+        return tree;
+    }
+
+    private void requireNewTreeFeature(IIdentifier featureIdentifier) {
+        requireFeature(featureIdentifier);
+        if (featureTrees.containsKey(featureIdentifier)) {
+            throw new IllegalArgumentException(
+                    String.format("feature %s is already part of the feature tree", featureIdentifier));
+        }
+    }
+
+    private static void checkGroupID(PersistentFeatureTree parent, int groupID) {
+        if (groupID < 0 || groupID >= parent.getNumberOfGroups()) {
+            throw new IllegalArgumentException(
+                    String.format("groupID must be smaller than number of groups in parent feature (%d)", groupID));
+        }
+    }
+
+    private static PersistentFeatureTree newFeatureTree(
+            IIdentifier featureIdentifier, IIdentifier parent, int groupID) {
+        return new PersistentFeatureTree(
+                featureIdentifier, parent, PersistentFeatureTree.NO_CHILDREN, groupID, 0, 1, new int[] {0, Range.OPEN});
+    }
+
+    private static PersistentFeature withAttribute(PersistentFeature feature, IAttribute<?> attribute, Object value) {
+        return new PersistentFeature(
+                feature.identifier,
+                feature.sequenceNumber,
+                feature.type,
+                withAttribute(feature.attributes, attribute, value));
+    }
+
+    private static Map<IAttribute<?>, Object> withAttribute(
+            Map<IAttribute<?>, Object> attributes, IAttribute<?> attribute, Object value) {
+        LinkedHashMap<IAttribute<?>, Object> newAttributes = new LinkedHashMap<>(attributes);
+        if (value == null) {
+            newAttributes.remove(attribute);
+        } else {
+            newAttributes.put(attribute, value);
+        }
+        return Collections.unmodifiableMap(newAttributes);
+    }
+
+    private static Map<IAttribute<?>, Object> copyAttributes(Map<IAttribute<?>, Object> attributes) {
+        return attributes.isEmpty() ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+    }
+
+    private static PersistentHashMap<String, IIdentifier[]> addName(
+            PersistentHashMap<String, IIdentifier[]> featuresByName, String name, IIdentifier identifier) {
+        IIdentifier[] identifiers = featuresByName.get(name);
+        if (identifiers == null) {
+            return featuresByName.put(name, new IIdentifier[] {identifier});
+        }
+        IIdentifier[] newIdentifiers = Arrays.copyOf(identifiers, identifiers.length + 1);
+        newIdentifiers[identifiers.length] = identifier;
+        return featuresByName.put(name, newIdentifiers);
+    }
+
+    private static PersistentHashMap<String, IIdentifier[]> removeName(
+            PersistentHashMap<String, IIdentifier[]> featuresByName, String name, IIdentifier identifier) {
+        IIdentifier[] identifiers = name == null ? null : featuresByName.get(name);
+        if (identifiers == null) {
+            return featuresByName;
+        }
+        IIdentifier[] newIdentifiers = remove(identifiers, identifier);
+        return newIdentifiers.length == 0 ? featuresByName.remove(name) : featuresByName.put(name, newIdentifiers);
+    }
+
+    private static IIdentifier[] remove(IIdentifier[] identifiers, IIdentifier identifier) {
+        for (int i = 0; i < identifiers.length; i++) {
+            if (identifiers[i].equals(identifier)) {
+                IIdentifier[] newIdentifiers = new IIdentifier[identifiers.length - 1];
+                System.arraycopy(identifiers, 0, newIdentifiers, 0, i);
+                System.arraycopy(identifiers, i + 1, newIdentifiers, i, newIdentifiers.length - i);
+                return newIdentifiers;
+            }
+        }
+        return identifiers;
+    }
+}
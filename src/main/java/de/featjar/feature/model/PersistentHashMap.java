@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map implemented as a hash array mapped trie.
+ * Updates copy only the path from the root to the changed entry and share all other nodes with the previous map,
+ * so they take time and space logarithmic in the size of the map.
+ * Keys must not be {@code null} and must have stable hash codes.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class PersistentHashMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Object NOT_FOUND = new Object();
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns an empty map.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(K key) {
+        return root != null && root.get(Objects.requireNonNull(key), hash(key), 0) != NOT_FOUND;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+        if (root == null) {
+            return null;
+        }
+        Object value = root.get(Objects.requireNonNull(key), hash(key), 0);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    /**
+     * Returns a map that additionally maps the given key to the given value.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the new map, or this map if it already maps the key to the value
+     */
+    PersistentHashMap<K, V> put(K key, V value) {
+        boolean[] added = new boolean[1];
+        Node newRoot =
+                (root == null ? BitmapNode.EMPTY : root).put(Objects.requireNonNull(key), hash(key), value, 0, added);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map that does not contain the given key.
+     *
+     * @param key the key
+     * @return the new map, or this map if it does not contain the key
+     */
+    PersistentHashMap<K, V> remove(K key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(Objects.requireNonNull(key), hash(key), 0);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private abstract static class Node {
+        abstract Object get(Object key, int hash, int shift);
+
+        abstract Node put(Object key, int hash, Object value, int shift, boolean[] added);
+
+        abstract Node remove(Object key, int hash, int shift);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * A node that stores up to 32 entries or child nodes, indexed by the bits of the hash code at its level.
+     * Entries are stored as key-value pairs; a {@code null} key marks a child node in the value position.
+     */
+    private static final class BitmapNode extends Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] array;
+
+        private BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int index = index(bit);
+            Object storedKey = array[2 * index];
+            Object storedValue = array[2 * index + 1];
+            if (storedKey == null) {
+                return ((Node) storedValue).get(key, hash, shift + BITS);
+            }
+            return key.equals(storedKey) ? storedValue : NOT_FOUND;
+        }
+
+        @Override
+        Node put(Object key, int hash, Object value, int shift, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, 2 * index);
+                newArray[2 * index] = key;
+                newArray[2 * index + 1] = value;
+                System.arraycopy(array, 2 * index, newArray, 2 * index + 2, array.length - 2 * index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            Object storedKey = array[2 * index];
+            Object storedValue = array[2 * index + 1];
+            if (storedKey == null) {
+                Node child = (Node) storedValue;
+                Node newChild = child.put(key, hash, value, shift + BITS, added);
+                return newChild == child ? this : replace(index, null, newChild);
+            }
+            if (key.equals(storedKey)) {
+                return storedValue == value ? this : replace(index, storedKey, value);
+            }
+            added[0] = true;
+            return replace(
+                    index, null, createNode(storedKey, hash(storedKey), storedValue, key, hash, value, shift + BITS));
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object storedKey = array[2 * index];
+            Object storedValue = array[2 * index + 1];
+            if (storedKey == null) {
+                Node child = (Node) storedValue;
+                Node newChild = child.remove(key, hash, shift + BITS);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild != null) {
+                    return replace(index, null, newChild);
+                }
+            } else if (!key.equals(storedKey)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * index);
+            System.arraycopy(array, 2 * index + 2, newArray, 2 * index, newArray.length - 2 * index);
+            return new BitmapNode(bitmap & ~bit, newArray);
+        }
+
+        private BitmapNode replace(int index, Object key, Object value) {
+            Object[] newArray = array.clone();
+            newArray[2 * index] = key;
+            newArray[2 * index + 1] = value;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * A node that stores entries whose keys have the same hash code.
+     */
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final Object[] array;
+
+        private CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int index(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int index = index(key);
+            return index < 0 ? NOT_FOUND : array[index + 1];
+        }
+
+        @Override
+        Node put(Object key, int hash, Object value, int shift, boolean[] added) {
+            if (hash != this.hash) {
+                return new BitmapNode(bit(this.hash, shift), new Object[] {null, this})
+                        .put(key, hash, value, shift, added);
+            }
+            int index = index(key);
+            if (index >= 0) {
+                if (array[index + 1] == value) {
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[index + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int index = index(key);
+            if (index < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 2, newArray, index, newArray.length - index);
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+    }
+
+    private static Node createNode(
+            Object key1, int hash1, Object value1, Object key2, int hash2, Object value2, int shift) {
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+        }
+        boolean[] added = new boolean[1];
+        return BitmapNode.EMPTY.put(key1, hash1, value1, shift, added).put(key2, hash2, value2, shift, added);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.configuration;
+
+import de.featjar.feature.model.IFeatureModel;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes many configurations of the same feature model into a compact binary sample set.
+ * The file starts with a header that lists the feature names once.
+ * It is followed by one fixed-size record per configuration, which contains the bit-packed manual and automatic
+ * selections of all features in the layout of {@link CompactConfiguration}.
+ * As records have a fixed size, configurations can be appended to existing files and accessed randomly with
+ * {@link MappedSampleSet}.
+ */
+public class BinarySampleSetWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x464A5353; // "FJSS"
+    static final int VERSION = 1;
+
+    private final IFeatureModel featureModel;
+    private final DataOutputStream out;
+
+    /**
+     * Creates a writer and writes the header of a new sample set to the given stream.
+     *
+     * @param outputStream the output stream
+     * @param featureModel the feature model of all written configurations
+     * @throws IOException if the output stream cannot be written
+     */
+    public BinarySampleSetWriter(OutputStream outputStream, IFeatureModel featureModel) throws IOException {
+        this(outputStream, featureModel, true);
+    }
+
+    private BinarySampleSetWriter(OutputStream outputStream, IFeatureModel featureModel, boolean writeHeader)
+            throws IOException {
+        this.featureModel = Objects.requireNonNull(featureModel);
+        if (featureModel.getNumberOfFeatures() == 0) {
+            throw new IllegalArgumentException("feature model has no features");
+        }
+        out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        if (writeHeader) {
+            writeHeader(out, getFeatureNames(featureModel));
+        }
+    }
+
+    /**
+     * Opens a sample set file for appending configurations.
+     * If the file does not exist or is empty, a new sample set is created.
+     * An incomplete record at the end of the file, as left by an interrupted write, is discarded.
+     *
+     * @param path the path of the sample set file
+     * @param featureModel the feature model of all written configurations
+     * @return the writer
+     * @throws IOException if the file cannot be read or written
+     * @throws IllegalArgumentException if the existing sample set has different features than the feature model
+     */
+    public static BinarySampleSetWriter append(Path path, IFeatureModel featureModel) throws IOException {
+        FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                return new BinarySampleSetWriter(Channels.newOutputStream(channel), featureModel, true);
+            }
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel.position(0)));
+            List<String> featureNames = readHeader(in);
+            if (!featureNames.equals(getFeatureNames(featureModel))) {
+                throw new IllegalArgumentException("sample set has different features than feature model");
+            }
+            int headerLength = getHeaderLength(channel.position(0));
+            int recordSize = getRecordSize(featureNames.size());
+            long end = headerLength + (size - headerLength) / recordSize * recordSize;
+            channel.truncate(end);
+            channel.position(end);
+            return new BinarySampleSetWriter(Channels.newOutputStream(channel), featureModel, false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public IFeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
+    /**
+     * Appends a configuration to the sample set.
+     *
+     * @param configuration the configuration, must belong to the feature model of this writer
+     * @throws IOException if the output stream cannot be written
+     */
+    public void write(CompactConfiguration configuration) throws IOException {
+        if (configuration.getFeatureModel() != featureModel
+                || configuration.getNumberOfFeatures() != featureModel.getNumberOfFeatures()) {
+            throw new IllegalArgumentException("configuration does not belong to feature model");
+        }
+        configuration.writeWords(out);
+    }
+
+    /**
+     * Appends a configuration to the sample set.
+     *
+     * @param configuration the configuration, must belong to the feature model of this writer
+     * @throws IOException if the output stream cannot be written
+     */
+    public void write(Configuration configuration) throws IOException {
+        write(CompactConfiguration.of(configuration));
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    static List<String> getFeatureNames(IFeatureModel featureModel) {
+        List<String> featureNames = new ArrayList<>(featureModel.getNumberOfFeatures());
+        for (int i = 0; i < featureModel.getNumberOfFeatures(); i++) {
+            featureNames.add(featureModel.getFeature(i).getName().orElse(""));
+        }
+        return featureNames;
+    }
+
+    static int getRecordSize(int numberOfFeatures) {
+        return 4 * ((numberOfFeatures + 63) >>> 6) * Long.BYTES;
+    }
+
+    /**
+     * Writes the header: magic number, version, header length, number of features, and feature names.
+     * The header is padded to a multiple of eight bytes, so that records are aligned.
+     */
+    private static void writeHeader(DataOutputStream out, List<String> featureNames) throws IOException {
+        ByteArrayOutputStream namesBytes = new ByteArrayOutputStream();
+        DataOutputStream namesOut = new DataOutputStream(namesBytes);
+        for (String featureName : featureNames) {
+            namesOut.writeUTF(featureName);
+        }
+        int length = 4 * Integer.BYTES + namesBytes.size();
+        int padding = -length & (Long.BYTES - 1);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(length + padding);
+        out.writeInt(featureNames.size());
+        namesBytes.writeTo(out);
+        out.write(new byte[padding]);
+    }
+
+    static List<String> readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IllegalArgumentException("not a binary sample set");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported version " + version);
+        }
+        in.readInt();
+        int numberOfFeatures = in.readInt();
+        List<String> featureNames = new ArrayList<>(numberOfFeatures);
+        for (int i = 0; i < numberOfFeatures; i++) {
+            featureNames.add(in.readUTF());
+        }
+        return featureNames;
+    }
+
+    static int getHeaderLength(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES);
+        channel.read(buffer, 0);
+        return buffer.getInt(2 * Integer.BYTES);
+    }
+}
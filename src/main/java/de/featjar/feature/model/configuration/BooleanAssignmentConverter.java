@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.configuration;
+
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Converts boolean assignments, such as the samples of a sample set, into configurations of a feature model and back.
+ * The feature index of each variable is resolved only once per converter, so converting many assignments
+ * over the same {@link VariableMap} does not look up any names.
+ * As feature indices change when features are removed, the resolved indices are discarded whenever the
+ * {@link IFeatureModel#getModificationCount() modification count} of the feature model changes.
+ * Not thread-safe.
+ */
+public class BooleanAssignmentConverter {
+
+    private static final int UNRESOLVED = 0;
+    private static final int NO_FEATURE = -1;
+
+    private final IFeatureModel featureModel;
+    private final VariableMap variableMap;
+
+    /**
+     * Maps each variable index to its feature index + 1, or to {@link #UNRESOLVED} or {@link #NO_FEATURE}.
+     */
+    private int[] featureIndices = new int[0];
+
+    private long featureIndicesModificationCount;
+
+    /**
+     * Creates a converter.
+     *
+     * @param featureModel the feature model of the configurations.
+     * @param variableMap the variable map of the converted assignments.
+     */
+    public BooleanAssignmentConverter(IFeatureModel featureModel, VariableMap variableMap) {
+        this.featureModel = Objects.requireNonNull(featureModel);
+        this.variableMap = Objects.requireNonNull(variableMap);
+        featureIndicesModificationCount = featureModel.getModificationCount();
+    }
+
+    public IFeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
+    public VariableMap getVariableMap() {
+        return variableMap;
+    }
+
+    /**
+     * Returns the feature index of a variable.
+     *
+     * @param variable the variable index.
+     * @return the index of the corresponding feature, as given by {@link IFeatureModel#indexOf(IFeature)}.
+     * @throws IllegalArgumentException if the variable is not contained in the variable map.
+     * @throws FeatureNotFoundException if the variable has no corresponding feature.
+     */
+    public int getFeatureIndex(int variable) {
+        if (featureIndicesModificationCount < 0
+                || featureModel.getModificationCount() != featureIndicesModificationCount) {
+            featureIndices = new int[0];
+            featureIndicesModificationCount = featureModel.getModificationCount();
+        }
+        if (variable >= featureIndices.length) {
+            featureIndices = Arrays.copyOf(featureIndices, Math.max(variable + 1, 2 * featureIndices.length));
+        }
+        int featureIndex = featureIndices[variable];
+        if (featureIndex == UNRESOLVED) {
+            final String name = variableMap.get(variable).orElse(null);
+            if (name == null) {
+                throw new IllegalArgumentException("variable " + variable + " is not in the variable map");
+            }
+            final IFeature feature = featureModel.getFeature(name).orElse(null);
+            featureIndex = feature == null ? NO_FEATURE : featureModel.indexOf(feature) + 1;
+            featureIndices[variable] = featureIndex;
+        }
+        if (featureIndex <= 0) {
+            throw new FeatureNotFoundException(
+                    "no feature for variable " + variable + " (" + variableMap.get(variable).orElse(null) + ")");
+        }
+        return featureIndex - 1;
+    }
+
+    /**
+     * Returns the variable of a feature.
+     *
+     * @param name the name of the feature.
+     * @return the variable index.
+     * @throws IllegalArgumentException if the variable map has no variable for the feature.
+     */
+    private int getVariable(String name) {
+        final Integer variable = name == null ? null : variableMap.get(name).orElse(null);
+        if (variable == null) {
+            throw new IllegalArgumentException("feature " + name + " is not in the variable map");
+        }
+        return variable;
+    }
+
+    /**
+     * Creates a configuration in which the features of the given assignment are manually (un-)selected.
+     *
+     * @param booleanAssignment contains literals with truth values.
+     * @return the configuration.
+     */
+    public Configuration toConfiguration(BooleanAssignment booleanAssignment) {
+        final Configuration configuration = new Configuration(featureModel);
+        for (final int literal : booleanAssignment.get()) {
+            if (literal != 0) {
+                configuration
+                        .getSelectableFeature(getFeatureIndex(Math.abs(literal)))
+                        .setManual(literal > 0 ? Selection.SELECTED : Selection.UNSELECTED);
+            }
+        }
+        return configuration;
+    }
+
+    /**
+     * Creates a compact configuration in which the features of the given assignment are manually (un-)selected.
+     *
+     * @param booleanAssignment contains literals with truth values.
+     * @return the compact configuration.
+     */
+    public CompactConfiguration toCompactConfiguration(BooleanAssignment booleanAssignment) {
+        final CompactConfiguration configuration = new CompactConfiguration(featureModel);
+        for (final int literal : booleanAssignment.get()) {
+            if (literal != 0) {
+                configuration.setManual(
+                        getFeatureIndex(Math.abs(literal)), literal > 0 ? Selection.SELECTED : Selection.UNSELECTED);
+            }
+        }
+        return configuration;
+    }
+
+    /**
+     * Creates an assignment with a literal for each (un-)selected feature of the given configuration.
+     * Undefined features are omitted.
+     *
+     * @param configuration the configuration.
+     * @return the assignment.
+     * @throws IllegalArgumentException if the variable map has no variable for a (un-)selected feature.
+     */
+    public BooleanAssignment toBooleanAssignment(Configuration configuration) {
+        final int[] literals = new int[configuration.getFeatures().size()];
+        int literalCount = 0;
+        for (final SelectableFeature selectableFeature : configuration.getFeatures()) {
+            final Selection selection = selectableFeature.getSelection();
+            if (selection != Selection.UNDEFINED) {
+                final int variable = getVariable(selectableFeature.getName());
+                literals[literalCount++] = selection == Selection.SELECTED ? variable : -variable;
+            }
+        }
+        return new BooleanAssignment(Arrays.copyOf(literals, literalCount));
+    }
+
+    /**
+     * Creates an assignment with a literal for each (un-)selected feature of the given compact configuration.
+     * Undefined features are omitted.
+     *
+     * @param configuration the compact configuration.
+     * @return the assignment.
+     * @throws IllegalArgumentException if the variable map has no variable for a (un-)selected feature.
+     */
+    public BooleanAssignment toBooleanAssignment(CompactConfiguration configuration) {
+        final int[] literals = new int[configuration.getNumberOfFeatures()];
+        int literalCount = 0;
+        for (int i = 0; i < configuration.getNumberOfFeatures(); i++) {
+            final Selection selection = configuration.getSelection(i);
+            if (selection != Selection.UNDEFINED) {
+                final int variable = getVariable(featureModel.getFeature(i).getName().orElse(null));
+                literals[literalCount++] = selection == Selection.SELECTED ? variable : -variable;
+            }
+        }
+        return new BooleanAssignment(Arrays.copyOf(literals, literalCount));
+    }
+
+    /**
+     * Converts each of the given assignments into a configuration.
+     *
+     * @param booleanAssignments the assignments.
+     * @return the configurations, in the order of the assignments.
+     */
+    public List<Configuration> toConfigurations(Collection<? extends BooleanAssignment> booleanAssignments) {
+        final List<Configuration> configurations = new ArrayList<>(booleanAssignments.size());
+        for (final BooleanAssignment booleanAssignment : booleanAssignments) {
+            configurations.add(toConfiguration(booleanAssignment));
+        }
+        return configurations;
+    }
+
+    /**
+     * Converts each of the given assignments into a compact configuration.
+     *
+     * @param booleanAssignments the assignments.
+     * @return the compact configurations, in the order of the assignments.
+     */
+    public List<CompactConfiguration> toCompactConfigurations(
+            Collection<? extends BooleanAssignment> booleanAssignments) {
+        final List<CompactConfiguration> configurations = new ArrayList<>(booleanAssignments.size());
+        for (final BooleanAssignment booleanAssignment : booleanAssignments) {
+            configurations.add(toCompactConfiguration(booleanAssignment));
+        }
+        return configurations;
+    }
+}
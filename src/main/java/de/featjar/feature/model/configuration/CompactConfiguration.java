@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.configuration;
+
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A memory-efficient alternative to {@link Configuration} for many configurations of the same feature model.
+ * Stores the manual and automatic selection of each feature in bitsets, indexed by the
+ * {@link IFeatureModel#indexOf(IFeature) dense index} of the feature.
+ * The feature indices are captured on creation, so features must not be removed from the feature model while
+ * its compact configurations are in use.
+ * Can be converted from and to a {@link Configuration} without loss.
+ */
+public class CompactConfiguration implements Cloneable {
+
+    private final IFeatureModel featureModel;
+    private final int numberOfFeatures;
+
+    private final long[] manualSelected;
+    private final long[] manualUnselected;
+    private final long[] automaticSelected;
+    private final long[] automaticUnselected;
+
+    /**
+     * Creates a configuration in which all features of the given feature model are undefined.
+     *
+     * @param featureModel the underlying feature model.
+     */
+    public CompactConfiguration(IFeatureModel featureModel) {
+        this.featureModel = Objects.requireNonNull(featureModel);
+        numberOfFeatures = featureModel.getNumberOfFeatures();
+        int words = (numberOfFeatures + 63) >>> 6;
+        manualSelected = new long[words];
+        manualUnselected = new long[words];
+        automaticSelected = new long[words];
+        automaticUnselected = new long[words];
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param configuration the configuration to copy.
+     */
+    public CompactConfiguration(CompactConfiguration configuration) {
+        featureModel = configuration.featureModel;
+        numberOfFeatures = configuration.numberOfFeatures;
+        manualSelected = configuration.manualSelected.clone();
+        manualUnselected = configuration.manualUnselected.clone();
+        automaticSelected = configuration.automaticSelected.clone();
+        automaticUnselected = configuration.automaticUnselected.clone();
+    }
+
+    /**
+     * Creates a compact configuration with the same selections as the given configuration.
+     *
+     * @param configuration the configuration, must have a feature model.
+     * @return the compact configuration.
+     * @throws IllegalArgumentException if the configuration has no feature model or contains a feature that is not
+     *     part of its feature model.
+     */
+    public static CompactConfiguration of(Configuration configuration) {
+        final IFeatureModel featureModel = configuration.getFeatureModel();
+        if (featureModel == null) {
+            throw new IllegalArgumentException("configuration has no feature model");
+        }
+        final CompactConfiguration compactConfiguration = new CompactConfiguration(featureModel);
+        for (final SelectableFeature selectableFeature : configuration.getFeatures()) {
+            final IFeature feature = selectableFeature.getFeature();
+            final int index = feature == null ? -1 : featureModel.indexOf(feature);
+            if (index < 0) {
+                throw new IllegalArgumentException("feature not part of feature model: " + selectableFeature.getName());
+            }
+            set(
+                    compactConfiguration.manualSelected,
+                    compactConfiguration.manualUnselected,
+                    index,
+                    selectableFeature.getManual());
+            set(
+                    compactConfiguration.automaticSelected,
+                    compactConfiguration.automaticUnselected,
+                    index,
+                    selectableFeature.getAutomatic());
+        }
+        return compactConfiguration;
+    }
+
+    /**
+     * Creates a {@link Configuration} with the same selections as this configuration.
+     *
+     * @return the configuration.
+     */
+    public Configuration toConfiguration() {
+        final Configuration configuration = new Configuration(featureModel);
+        for (int i = 0; i < numberOfFeatures; i++) {
+            final SelectableFeature selectableFeature = configuration.getSelectableFeature(i);
+            selectableFeature.setManual(getManual(i));
+            selectableFeature.setAutomatic(getAutomatic(i));
+        }
+        return configuration;
+    }
+
+    public IFeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
+    public int getNumberOfFeatures() {
+        return numberOfFeatures;
+    }
+
+    public Selection getManual(int featureIndex) {
+        return get(manualSelected, manualUnselected, featureIndex);
+    }
+
+    public Selection getAutomatic(int featureIndex) {
+        return get(automaticSelected, automaticUnselected, featureIndex);
+    }
+
+    public Selection getSelection(int featureIndex) {
+        final Selection automatic = getAutomatic(featureIndex);
+        return automatic == Selection.UNDEFINED ? getManual(featureIndex) : automatic;
+    }
+
+    /**
+     * Sets the manual selection status of a feature.
+     * Follows the same rules as {@link SelectableFeature#setManual(Selection)}.
+     *
+     * @param featureIndex the index of the feature.
+     * @param selection the new manual selection status.
+     * @throws SelectionNotPossibleException if the selection contradicts the automatic selection.
+     */
+    public void setManual(int featureIndex, Selection selection) {
+        final Selection automatic = getAutomatic(featureIndex);
+        if ((selection == Selection.UNDEFINED) || (automatic == Selection.UNDEFINED)) {
+            set(manualSelected, manualUnselected, featureIndex, selection);
+        } else if (selection != automatic) {
+            throw new SelectionNotPossibleException(getName(featureIndex), selection);
+        }
+    }
+
+    public void setManual(String name, Selection selection) {
+        setManual(getIndex(name), selection);
+    }
+
+    /**
+     * Sets the automatic selection status of a feature.
+     * Follows the same rules as {@link SelectableFeature#setAutomatic(Selection)}.
+     *
+     * @param featureIndex the index of the feature.
+     * @param selection the new automatic selection status.
+     * @throws AutomaticalSelectionNotPossibleException if the selection contradicts the manual selection.
+     */
+    public void setAutomatic(int featureIndex, Selection selection) {
+        final Selection manual = getManual(featureIndex);
+        if ((selection == Selection.UNDEFINED) || (manual == Selection.UNDEFINED) || (manual == selection)) {
+            set(automaticSelected, automaticUnselected, featureIndex, selection);
+        } else {
+            throw new AutomaticalSelectionNotPossibleException(getName(featureIndex), selection);
+        }
+    }
+
+    public void setAutomatic(String name, Selection selection) {
+        setAutomatic(getIndex(name), selection);
+    }
+
+    public List<IFeature> getSelectedFeatures() {
+        return getFeatures(Selection.SELECTED);
+    }
+
+    public List<IFeature> getUnSelectedFeatures() {
+        return getFeatures(Selection.UNSELECTED);
+    }
+
+    public List<IFeature> getUndefinedSelectedFeatures() {
+        return getFeatures(Selection.UNDEFINED);
+    }
+
+    /**
+     * Get the names of all selected features.
+     *
+     * @return set of names of all selected features.
+     */
+    public Set<String> getSelectedFeatureNames() {
+        return getFeatureNames(Selection.SELECTED);
+    }
+
+    /**
+     * Get the names of all unselected features.
+     *
+     * @return set of names of all unselected features.
+     */
+    public Set<String> getUnselectedFeatureNames() {
+        return getFeatureNames(Selection.UNSELECTED);
+    }
+
+    /**
+     * Get the names of all undefined features.
+     *
+     * @return set of names of all undefined features.
+     */
+    public Set<String> getUndefinedFeatureNames() {
+        return getFeatureNames(Selection.UNDEFINED);
+    }
+
+    /**
+     * Turns all automatic into manual values.
+     *
+     * @param discardDeselected if {@code true} all automatic deselected features get undefined instead of manual deselected.
+     */
+    public void makeManual(boolean discardDeselected) {
+        for (int i = 0; i < manualSelected.length; i++) {
+            final long selected = automaticSelected[i];
+            final long unselected = discardDeselected ? 0 : automaticUnselected[i];
+            manualSelected[i] = (manualSelected[i] & ~unselected) | selected;
+            manualUnselected[i] = (manualUnselected[i] & ~selected) | unselected;
+            automaticSelected[i] = 0;
+            automaticUnselected[i] = 0;
+        }
+    }
+
+    /**
+     * Resets all feature selection values to undefined.
+     */
+    public void resetValues() {
+        Arrays.fill(manualSelected, 0);
+        Arrays.fill(manualUnselected, 0);
+        resetAutomaticValues();
+    }
+
+    /**
+     * Resets all automatic feature selection values to undefined.
+     */
+    public void resetAutomaticValues() {
+        Arrays.fill(automaticSelected, 0);
+        Arrays.fill(automaticUnselected, 0);
+    }
+
+    @Override
+    public CompactConfiguration clone() {
+        return new CompactConfiguration(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompactConfiguration other = (CompactConfiguration) o;
+        return featureModel.equals(other.featureModel)
+                && Arrays.equals(manualSelected, other.manualSelected)
+                && Arrays.equals(manualUnselected, other.manualUnselected)
+                && Arrays.equals(automaticSelected, other.automaticSelected)
+                && Arrays.equals(automaticUnselected, other.automaticUnselected);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                featureModel,
+                Arrays.hashCode(manualSelected),
+                Arrays.hashCode(manualUnselected),
+                Arrays.hashCode(automaticSelected),
+                Arrays.hashCode(automaticUnselected));
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < numberOfFeatures; i++) {
+            final IFeature feature = featureModel.getFeature(i);
+            if ((getSelection(i) == Selection.SELECTED) && feature.isConcrete()) {
+                builder.append(getName(i));
+                builder.append("\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    int getNumberOfWords() {
+        return manualSelected.length;
+    }
+
+    /**
+     * Writes the bitsets of this configuration, manual before automatic and selected before unselected.
+     */
+    void writeWords(DataOutput out) throws IOException {
+        writeWords(out, manualSelected);
+        writeWords(out, manualUnselected);
+        writeWords(out, automaticSelected);
+        writeWords(out, automaticUnselected);
+    }
+
+    /**
+     * Reads the bitsets of this configuration in the order of {@link #writeWords(DataOutput)}.
+     */
+    void readWords(ByteBuffer buffer, int position) {
+        position = readWords(buffer, position, manualSelected);
+        position = readWords(buffer, position, manualUnselected);
+        position = readWords(buffer, position, automaticSelected);
+        readWords(buffer, position, automaticUnselected);
+    }
+
+    private static void writeWords(DataOutput out, long[] words) throws IOException {
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static int readWords(ByteBuffer buffer, int position, long[] words) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong(position);
+            position += Long.BYTES;
+        }
+        return position;
+    }
+
+    private int getIndex(String name) {
+        final IFeature feature = featureModel.getFeature(name).orElse(null);
+        final int index = feature == null ? -1 : featureModel.indexOf(feature);
+        if (index < 0 || index >= numberOfFeatures) {
+            throw new FeatureNotFoundException();
+        }
+        return index;
+    }
+
+    private String getName(int featureIndex) {
+        return featureModel.getFeature(featureIndex).getName().orElse("");
+    }
+
+    private List<IFeature> getFeatures(Selection selection) {
+        final List<IFeature> result = new ArrayList<>();
+        for (int i = 0; i < numberOfFeatures; i++) {
+            if (getSelection(i) == selection) {
+                result.add(featureModel.getFeature(i));
+            }
+        }
+        return result;
+    }
+
+    private Set<String> getFeatureNames(Selection selection) {
+        final Set<String> result = new HashSet<>();
+        for (int i = 0; i < numberOfFeatures; i++) {
+            if (getSelection(i) == selection) {
+                result.add(getName(i));
+            }
+        }
+        return result;
+    }
+
+    private static Selection get(long[] selected, long[] unselected, int index) {
+        final long mask = 1L << index;
+        if ((selected[index >>> 6] & mask) != 0) {
+            return Selection.SELECTED;
+        }
+        return (unselected[index >>> 6] & mask) != 0 ? Selection.UNSELECTED : Selection.UNDEFINED;
+    }
+
+    private static void set(long[] selected, long[] unselected, int index, Selection selection) {
+        final int word = index >>> 6;
+        final long mask = 1L << index;
+        switch (selection) {
+            case SELECTED:
+                selected[word] |= mask;
+                unselected[word] &= ~mask;
+                break;
+            case UNSELECTED:
+                selected[word] &= ~mask;
+                unselected[word] |= mask;
+                break;
+            default:
+                selected[word] &= ~mask;
+                unselected[word] &= ~mask;
+        }
+    }
+}
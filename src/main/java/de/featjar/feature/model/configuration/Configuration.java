@@ -42,6 +42,14 @@ import java.util.Set;
 public class Configuration implements Cloneable {
 
     private final LinkedHashMap<String, SelectableFeature> selectableFeatures = new LinkedHashMap<>();
+    private SelectableFeature[] selectableFeaturesByIndex = new SelectableFeature[0];
+
+    /**
+     * The {@link IFeatureModel#getModificationCount() modification count} of the feature model when
+     * {@link #selectableFeaturesByIndex} was built.
+     */
+    private long selectableFeaturesByIndexModificationCount;
+
     private IFeatureModel featureModel;
     private SelectableFeature root;
 
@@ -98,18 +106,12 @@ public class Configuration implements Cloneable {
      * @param booleanAssignment contains literals with truth values.
      * @param variableMap mapping of variable names to indices. Is used to link a literal index in a {@link ABooleanAssignment}.
      * @return configuration which was generated from the literal set.
+     * @throws FeatureNotFoundException if a variable has no corresponding feature in the feature model.
+     * @see BooleanAssignmentConverter for converting many literal sets.
      */
     public static Configuration fromLiteralSet(
             final IFeatureModel featureModel, final BooleanAssignment booleanAssignment, VariableMap variableMap) {
-        final Configuration configuration = new Configuration(featureModel);
-
-        booleanAssignment.stream().filter(literal -> literal != 0).forEach(literal -> {
-            SelectableFeature selectable =
-                    configuration.getSelectableFeature(variableMap.get(literal).orElseThrow());
-            selectable.setManual(literal > 0 ? Selection.SELECTED : Selection.UNSELECTED);
-        });
-
-        return configuration;
+        return new BooleanAssignmentConverter(featureModel, variableMap).toConfiguration(booleanAssignment);
     }
 
     /**
@@ -139,6 +141,16 @@ public class Configuration implements Cloneable {
             for (final IFeature child : featureModel.getFeatures()) {
                 selectableFeatures.put(child.getName().get(), new SelectableFeature(child));
             }
+            initSelectableFeaturesByIndex();
+        }
+    }
+
+    private void initSelectableFeaturesByIndex() {
+        selectableFeaturesByIndexModificationCount = featureModel.getModificationCount();
+        selectableFeaturesByIndex = new SelectableFeature[featureModel.getNumberOfFeatures()];
+        for (final IFeature feature : featureModel.getFeatures()) {
+            selectableFeaturesByIndex[featureModel.indexOf(feature)] =
+                    selectableFeatures.get(feature.getName().orElse(null));
         }
     }
 
@@ -212,6 +224,25 @@ public class Configuration implements Cloneable {
         return getSelectableFeature(name, false);
     }
 
+    /**
+     * Returns the selectable feature for the feature with the given dense index in the underlying feature model.
+     * As indices change when features are removed, the index is always interpreted against the current state of the
+     * feature model, and the lookup table is rebuilt after the feature model has been modified.
+     * Features that were added or renamed after this configuration was created have no selectable feature.
+     *
+     * @param featureIndex the index of the feature, as given by {@link IFeatureModel#indexOf(IFeature)}.
+     * @return the selectable feature, or {@code null} if the feature has none.
+     * @throws IndexOutOfBoundsException if there is no feature with the given index.
+     */
+    public SelectableFeature getSelectableFeature(int featureIndex) {
+        if (featureModel != null
+                && (selectableFeaturesByIndexModificationCount < 0
+                        || featureModel.getModificationCount() != selectableFeaturesByIndexModificationCount)) {
+            initSelectableFeaturesByIndex();
+        }
+        return selectableFeaturesByIndex[featureIndex];
+    }
+
     public SelectableFeature getSelectableFeature(IFeature feature) {
         return selectableFeatures.get(feature.getName());
     }
@@ -47,7 +47,11 @@ public class FeatureIDEFormat implements IFormat<Configuration> {
 
     public static final String EXTENSION = FIDECONF;
 
-    private static final String NEWLINE = System.lineSeparator();
+    static final String NEWLINE = System.lineSeparator();
+
+    static final String SELECTION_COMMENT =
+            "# Lists all features from the model with manual (first digit) and automatic (second digit) selection";
+    static final String CODE_COMMENT = "# 0 = deselected, 1 = selected, 2 = undefined";
 
     /**
      * Parses a String representation of a FeatureIDE Format into a Configuration.
@@ -137,10 +141,9 @@ public class FeatureIDEFormat implements IFormat<Configuration> {
     @Override
     public Result<String> serialize(Configuration configuration) {
         final StringBuilder buffer = new StringBuilder();
-        buffer.append(
-                "# Lists all features from the model with manual (first digit) and automatic (second digit) selection");
+        buffer.append(SELECTION_COMMENT);
         buffer.append(NEWLINE);
-        buffer.append("# 0 = deselected, 1 = selected, 2 = undefined");
+        buffer.append(CODE_COMMENT);
         buffer.append(NEWLINE);
 
         for (final SelectableFeature feature : configuration.getFeatures()) {
@@ -155,7 +158,7 @@ public class FeatureIDEFormat implements IFormat<Configuration> {
         return Result.of(buffer.toString());
     }
 
-    private int getSelectionCode(Selection selection) {
+    static int getSelectionCode(Selection selection) {
         switch (selection) {
             case SELECTED:
                 return 1;
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.configuration;
+
+import static de.featjar.feature.model.io.StringTable.DOES_NOT_EXIST;
+import static de.featjar.feature.model.io.StringTable.FEATURE;
+import static de.featjar.feature.model.io.StringTable.SELECTION_NOT_POSSIBLE_ON_FEATURE;
+import static de.featjar.feature.model.io.StringTable.WRONG_CONFIGURATION_FORMAT;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.format.ParseException;
+import de.featjar.feature.model.IFeatureModel;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads configurations of a fixed feature model in the {@link FeatureIDEFormat} from streams and directories.
+ * A stream may contain several concatenated configurations: a comment line that follows a selection line starts a
+ * new configuration.
+ * Feature names are resolved through an index of the feature model that is built once per reader and rebuilt when
+ * the {@link IFeatureModel#getModificationCount() modification count} of the feature model changes, and all lines
+ * are read into a single reused buffer.
+ * Not thread-safe.
+ */
+public class FeatureIDEFormatReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final IFeatureModel featureModel;
+
+    private String[] names;
+    private int[] nameTable;
+    private int nameTableMask;
+    private long nameTableModificationCount;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferPosition, bufferLimit;
+    private char[] line = new char[128];
+    private int lineLength;
+
+    /**
+     * Creates a reader for configurations of the given feature model.
+     *
+     * @param featureModel the feature model
+     */
+    public FeatureIDEFormatReader(IFeatureModel featureModel) {
+        this.featureModel = Objects.requireNonNull(featureModel);
+        initNameTable();
+    }
+
+    private void initNameTable() {
+        nameTableModificationCount = featureModel.getModificationCount();
+        int numberOfFeatures = featureModel.getNumberOfFeatures();
+        names = new String[numberOfFeatures];
+        nameTable = new int[Integer.highestOneBit(Math.max(numberOfFeatures, 1)) << 2];
+        nameTableMask = nameTable.length - 1;
+        Arrays.fill(nameTable, -1);
+        for (int i = 0; i < numberOfFeatures; i++) {
+            String name = featureModel.getFeature(i).getName().orElse(null);
+            if (name != null) {
+                char[] chars = name.toCharArray();
+                if (findFeature(chars, 0, chars.length) < 0) {
+                    names[i] = name;
+                    int slot = spread(name.hashCode()) & nameTableMask;
+                    while (nameTable[slot] >= 0) {
+                        slot = (slot + 1) & nameTableMask;
+                    }
+                    nameTable[slot] = i;
+                }
+            }
+        }
+    }
+
+    public IFeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
+    /**
+     * Reads all configurations in a file or, for a directory, in all of its files with the extension
+     * {@value FeatureIDEFormat#EXTENSION} in lexicographic order.
+     *
+     * @param path the file or directory
+     * @param consumer the consumer of the parsed configurations
+     * @throws IOException if a file cannot be read
+     */
+    public void read(Path path, Consumer<Result<Configuration>> consumer) throws IOException {
+        if (Files.isDirectory(path)) {
+            List<Path> files;
+            try (Stream<Path> fileStream = Files.list(path)) {
+                files = fileStream
+                        .filter(file -> file.getFileName().toString().endsWith("." + FeatureIDEFormat.EXTENSION))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                read(file, consumer);
+            }
+        } else {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                read(reader, consumer);
+            }
+        }
+    }
+
+    /**
+     * Reads all configurations in a stream.
+     * Problems with single lines are reported as warnings of the respective configuration.
+     *
+     * @param reader the reader, is not closed
+     * @param consumer the consumer of the parsed configurations
+     * @throws IOException if the reader cannot be read
+     */
+    public void read(Reader reader, Consumer<Result<Configuration>> consumer) throws IOException {
+        bufferPosition = 0;
+        bufferLimit = 0;
+        Configuration configuration = null;
+        List<Problem> warnings = null;
+        int lineNumber = 0;
+        while (readLine(reader)) {
+            lineNumber++;
+            if (lineLength > 0 && line[0] == '#') {
+                if (configuration != null) {
+                    consumer.accept(Result.of(configuration, warnings));
+                    configuration = null;
+                }
+                continue;
+            }
+            int start = 0, end = lineLength;
+            while (start < end && line[start] <= ' ') {
+                start++;
+            }
+            while (end > start && line[end - 1] <= ' ') {
+                end--;
+            }
+            if (start == end) {
+                continue;
+            }
+            if (configuration == null) {
+                if (nameTableModificationCount < 0
+                        || featureModel.getModificationCount() != nameTableModificationCount) {
+                    initNameTable();
+                }
+                configuration = new Configuration(featureModel);
+                warnings = new ArrayList<>();
+            }
+            parseLine(configuration, warnings, start, end, lineNumber);
+        }
+        if (configuration != null) {
+            consumer.accept(Result.of(configuration, warnings));
+        }
+    }
+
+    /**
+     * Reads all configurations in a stream into a list.
+     *
+     * @param reader the reader, is not closed
+     * @return the parsed configurations
+     * @throws IOException if the reader cannot be read
+     */
+    public List<Result<Configuration>> readAll(Reader reader) throws IOException {
+        List<Result<Configuration>> configurations = new ArrayList<>();
+        read(reader, configurations::add);
+        return configurations;
+    }
+
+    private void parseLine(Configuration configuration, List<Problem> warnings, int start, int end, int lineNumber) {
+        if (end - start < 2) {
+            warnings.add(new Problem(new ParseException(WRONG_CONFIGURATION_FORMAT, lineNumber)));
+            return;
+        }
+        Selection manual = parseSelection(line[start], warnings, lineNumber);
+        Selection automatic = parseSelection(line[start + 1], warnings, lineNumber);
+        int featureIndex = findFeature(line, start + 2, end);
+        if (featureIndex < 0) {
+            String name = new String(line, start + 2, end - start - 2);
+            warnings.add(new Problem(new ParseException(FEATURE + name + DOES_NOT_EXIST, lineNumber)));
+            return;
+        }
+        SelectableFeature feature = configuration.getSelectableFeature(featureIndex);
+        try {
+            configuration.setManual(feature, manual);
+            configuration.setAutomatic(feature, automatic);
+        } catch (final SelectionNotPossibleException | AutomaticalSelectionNotPossibleException e) {
+            warnings.add(new Problem(
+                    new ParseException(SELECTION_NOT_POSSIBLE_ON_FEATURE + names[featureIndex], lineNumber, e)));
+        }
+    }
+
+    private static Selection parseSelection(char code, List<Problem> warnings, int lineNumber) {
+        switch (code) {
+            case '0':
+                return Selection.UNSELECTED;
+            case '1':
+                return Selection.SELECTED;
+            case '2':
+                return Selection.UNDEFINED;
+            default:
+                warnings.add(new Problem(new ParseException(WRONG_CONFIGURATION_FORMAT, lineNumber)));
+                return Selection.UNDEFINED;
+        }
+    }
+
+    private int findFeature(char[] chars, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int length = to - from;
+        for (int slot = spread(hash) & nameTableMask; nameTable[slot] >= 0; slot = (slot + 1) & nameTableMask) {
+            String name = names[nameTable[slot]];
+            if (name.length() == length && regionMatches(name, chars, from)) {
+                return nameTable[slot];
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(String name, char[] chars, int from) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != chars[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Reads the next line into {@link #line}, without its line terminator.
+     *
+     * @return false if the end of the stream has been reached
+     */
+    private boolean readLine(Reader reader) throws IOException {
+        lineLength = 0;
+        boolean readAny = false;
+        while (true) {
+            if (bufferPosition == bufferLimit) {
+                bufferLimit = reader.read(buffer, 0, BUFFER_SIZE);
+                bufferPosition = 0;
+                if (bufferLimit <= 0) {
+                    bufferLimit = 0;
+                    return readAny;
+                }
+            }
+            readAny = true;
+            char c = buffer[bufferPosition++];
+            if (c == '\n') {
+                return true;
+            } else if (c == '\r') {
+                if (bufferPosition == bufferLimit) {
+                    bufferLimit = reader.read(buffer, 0, BUFFER_SIZE);
+                    bufferPosition = 0;
+                    if (bufferLimit <= 0) {
+                        bufferLimit = 0;
+                        return true;
+                    }
+                }
+                if (buffer[bufferPosition] == '\n') {
+                    bufferPosition++;
+                }
+                return true;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, 2 * lineLength);
+            }
+            line[lineLength++] = c;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.configuration;
+
+import de.featjar.feature.model.IFeatureModel;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes configurations in the {@link FeatureIDEFormat} directly to an output stream.
+ * Multiple configurations are concatenated, each starting with the comment header of the format, so they can be read
+ * again with {@link FeatureIDEFormatReader}.
+ * Features are written by name, so all written features must have a non-empty name.
+ */
+public class FeatureIDEFormatWriter implements AutoCloseable {
+
+    private final Writer writer;
+
+    /**
+     * Creates a writer that writes UTF-8 encoded configurations to the given stream.
+     *
+     * @param outputStream the output stream
+     */
+    public FeatureIDEFormatWriter(OutputStream outputStream) {
+        writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a configuration.
+     *
+     * @param configuration the configuration
+     * @throws IOException if the output stream cannot be written
+     * @throws IllegalArgumentException if a feature has no name
+     */
+    public void write(Configuration configuration) throws IOException {
+        for (final SelectableFeature feature : configuration.getFeatures()) {
+            checkName(feature.getName());
+        }
+        writeHeader();
+        for (final SelectableFeature feature : configuration.getFeatures()) {
+            writeLine(feature.getManual(), feature.getAutomatic(), feature.getName());
+        }
+    }
+
+    /**
+     * Writes a compact configuration.
+     * The feature names are looked up by the feature indices of the compact configuration, so as documented in
+     * {@link CompactConfiguration}, no features may have been removed from the feature model since its creation.
+     *
+     * @param configuration the configuration
+     * @throws IOException if the output stream cannot be written
+     * @throws IllegalArgumentException if a feature has no name
+     * @throws IllegalStateException if the number of features of the feature model has changed since the compact
+     *     configuration was created
+     */
+    public void write(CompactConfiguration configuration) throws IOException {
+        final IFeatureModel featureModel = configuration.getFeatureModel();
+        if (featureModel.getNumberOfFeatures() != configuration.getNumberOfFeatures()) {
+            throw new IllegalStateException("feature model has " + featureModel.getNumberOfFeatures()
+                    + " features, but the compact configuration was created for "
+                    + configuration.getNumberOfFeatures());
+        }
+        final String[] names = new String[configuration.getNumberOfFeatures()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = checkName(featureModel.getFeature(i).getName().orElse(null));
+        }
+        writeHeader();
+        for (int i = 0; i < names.length; i++) {
+            writeLine(configuration.getManual(i), configuration.getAutomatic(i), names[i]);
+        }
+    }
+
+    private static String checkName(String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("cannot write a feature without a name");
+        }
+        return name;
+    }
+
+    private void writeHeader() throws IOException {
+        writer.write(FeatureIDEFormat.SELECTION_COMMENT);
+        writer.write(FeatureIDEFormat.NEWLINE);
+        writer.write(FeatureIDEFormat.CODE_COMMENT);
+        writer.write(FeatureIDEFormat.NEWLINE);
+    }
+
+    private void writeLine(Selection manual, Selection automatic, String name) throws IOException {
+        writer.write('0' + FeatureIDEFormat.getSelectionCode(manual));
+        writer.write('0' + FeatureIDEFormat.getSelectionCode(automatic));
+        writer.write(name);
+        writer.write(FeatureIDEFormat.NEWLINE);
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
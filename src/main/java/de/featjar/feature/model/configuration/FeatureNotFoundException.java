@@ -26,4 +26,10 @@ package de.featjar.feature.model.configuration;
 public class FeatureNotFoundException extends RuntimeException {
 
     private static final long serialVersionUID = -4112750233088590678L;
+
+    public FeatureNotFoundException() {}
+
+    public FeatureNotFoundException(String message) {
+        super(message);
+    }
 }
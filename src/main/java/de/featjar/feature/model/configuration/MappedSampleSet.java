@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.configuration;
+
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A binary sample set written by {@link BinarySampleSetWriter}, mapped into memory for random access.
+ * Configurations are decoded only when accessed.
+ * The stored features are matched with the features of a feature model by name, so the feature model may have been
+ * loaded independently of the one used for writing.
+ */
+public class MappedSampleSet {
+
+    private final IFeatureModel featureModel;
+    private final List<String> featureNames;
+    private final int[] featureIndices;
+    private final boolean identityMapping;
+    private final int words;
+    private final int recordSize;
+    private final int recordsPerSegment;
+    private final ByteBuffer[] segments;
+    private final int size;
+
+    private MappedSampleSet(IFeatureModel featureModel, List<String> featureNames, FileChannel channel)
+            throws IOException {
+        this.featureModel = Objects.requireNonNull(featureModel);
+        this.featureNames = Collections.unmodifiableList(featureNames);
+        featureIndices = new int[featureNames.size()];
+        boolean identityMapping = featureNames.size() == featureModel.getNumberOfFeatures();
+        for (int i = 0; i < featureIndices.length; i++) {
+            IFeature feature = featureModel.getFeature(featureNames.get(i)).orElse(null);
+            if (feature == null) {
+                throw new IllegalArgumentException("feature " + featureNames.get(i) + " not part of feature model");
+            }
+            featureIndices[i] = featureModel.indexOf(feature);
+            identityMapping &= featureIndices[i] == i;
+        }
+        this.identityMapping = identityMapping;
+
+        words = (featureNames.size() + 63) >>> 6;
+        recordSize = BinarySampleSetWriter.getRecordSize(featureNames.size());
+        int headerLength = BinarySampleSetWriter.getHeaderLength(channel);
+        long records = recordSize == 0 ? 0 : (channel.size() - headerLength) / recordSize;
+        if (records > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many configurations: " + records);
+        }
+        size = (int) records;
+        // a single mapping is limited to 2 GiB, so larger files are mapped in segments of whole records
+        recordsPerSegment = Math.max(1, Integer.MAX_VALUE / Math.max(1, recordSize));
+        segments = new ByteBuffer[size == 0 ? 0 : (size - 1) / recordsPerSegment + 1];
+        for (int i = 0; i < segments.length; i++) {
+            long start = headerLength + (long) i * recordsPerSegment * recordSize;
+            long length = (long) Math.min(recordsPerSegment, size - i * recordsPerSegment) * recordSize;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        }
+    }
+
+    /**
+     * Maps a binary sample set file into memory.
+     *
+     * @param path the path of the sample set file
+     * @param featureModel the feature model of the configurations
+     * @return the mapped sample set
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a sample set or contains features not in the feature model
+     */
+    public static MappedSampleSet map(Path path, IFeatureModel featureModel) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<String> featureNames =
+                    BinarySampleSetWriter.readHeader(new DataInputStream(Channels.newInputStream(channel)));
+            return new MappedSampleSet(featureModel, featureNames, channel);
+        }
+    }
+
+    public IFeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
+    /**
+     * Returns the names of the stored features, in the order in which they were written.
+     *
+     * @return the feature names
+     */
+    public List<String> getFeatureNames() {
+        return featureNames;
+    }
+
+    /**
+     * Returns the number of configurations in this sample set.
+     *
+     * @return the number of configurations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decodes a configuration.
+     *
+     * @param index the index of the configuration
+     * @return the configuration
+     * @throws IndexOutOfBoundsException if there is no configuration with the given index
+     */
+    public CompactConfiguration get(int index) {
+        Objects.checkIndex(index, size);
+        ByteBuffer segment = segments[index / recordsPerSegment];
+        int position = (index % recordsPerSegment) * recordSize;
+        CompactConfiguration configuration = new CompactConfiguration(featureModel);
+        if (identityMapping) {
+            configuration.readWords(segment, position);
+        } else {
+            for (int i = 0; i < featureIndices.length; i++) {
+                int wordOffset = position + (i >>> 6) * Long.BYTES;
+                long mask = 1L << i;
+                configuration.setManual(featureIndices[i], getSelection(segment, wordOffset, 0, mask));
+                configuration.setAutomatic(featureIndices[i], getSelection(segment, wordOffset, 2, mask));
+            }
+        }
+        return configuration;
+    }
+
+    /**
+     * Decodes a configuration into a {@link Configuration}.
+     *
+     * @param index the index of the configuration
+     * @return the configuration
+     */
+    public Configuration getConfiguration(int index) {
+        return get(index).toConfiguration();
+    }
+
+    private Selection getSelection(ByteBuffer segment, int wordOffset, int block, long mask) {
+        int blockSize = words * Long.BYTES;
+        if ((segment.getLong(wordOffset + block * blockSize) & mask) != 0) {
+            return Selection.SELECTED;
+        }
+        return (segment.getLong(wordOffset + (block + 1) * blockSize) & mask) != 0
+                ? Selection.UNSELECTED
+                : Selection.UNDEFINED;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.event;
+
+import de.featjar.base.data.IAttribute;
+import de.featjar.base.data.Result;
+import de.featjar.feature.model.IFeatureModel;
+import java.util.Objects;
+
+/**
+ * Describes a single change of a {@link IFeatureModel}.
+ * The source of an event is the changed element, that is, a feature, constraint, feature tree node, or the feature
+ * model itself. Depending on the type, the old and new value hold the state before and after the change.
+ */
+public class FeatureModelEvent {
+
+    public enum Type {
+        /** A feature was added to the model. Source is the feature. */
+        FEATURE_ADDED,
+        /** A feature was removed from the model. Source is the feature. */
+        FEATURE_REMOVED,
+        /** The type of a feature changed. Source is the feature. */
+        FEATURE_TYPE_CHANGED,
+        /** A constraint was added to the model. Source is the constraint. */
+        CONSTRAINT_ADDED,
+        /** A constraint was removed from the model. Source is the constraint. */
+        CONSTRAINT_REMOVED,
+        /** The formula of a constraint changed. Source is the constraint, values are the old and new formula. */
+        CONSTRAINT_CHANGED,
+        /** A feature tree was added as root. Source is the tree. */
+        ROOT_ADDED,
+        /** A feature tree was removed from the roots. Source is the tree. */
+        ROOT_REMOVED,
+        /** A tree node was attached to or detached from a parent. Source is the node, values are the old and new parent. */
+        TREE_NODE_MOVED,
+        /** The groups of a tree node or its group membership changed. Source is the node. */
+        GROUP_CHANGED,
+        /** The feature range of a tree node changed. Source is the node. */
+        FEATURE_RANGE_CHANGED,
+        /** An attribute value changed. Source is the attributable element, values are the old and new value. */
+        ATTRIBUTE_CHANGED
+    }
+
+    private final IFeatureModel featureModel;
+    private final Type type;
+    private final Object source;
+    private final IAttribute<?> attribute;
+    private final Object oldValue;
+    private final Object newValue;
+
+    public FeatureModelEvent(IFeatureModel featureModel, Type type, Object source, Object oldValue, Object newValue) {
+        this(featureModel, type, source, null, oldValue, newValue);
+    }
+
+    public FeatureModelEvent(
+            IFeatureModel featureModel,
+            Type type,
+            Object source,
+            IAttribute<?> attribute,
+            Object oldValue,
+            Object newValue) {
+        this.featureModel = Objects.requireNonNull(featureModel);
+        this.type = Objects.requireNonNull(type);
+        this.source = Objects.requireNonNull(source);
+        this.attribute = attribute;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    public IFeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the changed attribute of an {@link Type#ATTRIBUTE_CHANGED attribute event}.
+     *
+     * @return the changed attribute, empty for all other events
+     */
+    public Result<IAttribute<?>> getAttribute() {
+        return Result.ofNullable(attribute);
+    }
+
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "FeatureModelEvent{type=%s, source=%s%s}",
+                type, source, attribute == null ? "" : ", attribute=" + attribute.getName());
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.event;
+
+import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import java.util.List;
+
+/**
+ * Listens to changes of a {@link IMutableFeatureModel}, its features, constraints, and feature tree.
+ * Listeners are notified synchronously after the change has been applied.
+ * Changes made in a {@link IMutableFeatureModel#batch(java.util.function.Consumer) batch} are delivered together
+ * when the outermost batch ends.
+ */
+@FunctionalInterface
+public interface IFeatureModelListener {
+    void onEvent(FeatureModelEvent event);
+
+    /**
+     * Receives the events of a batch in the order in which they occurred.
+     * Listeners that only need to know that something changed may override this to react once per batch.
+     *
+     * @param events the events of the batch
+     */
+    default void onEvents(List<FeatureModelEvent> events) {
+        for (FeatureModelEvent event : events) {
+            onEvent(event);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io.binary;
+
+import de.featjar.base.data.IAttribute;
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.format.IFormat;
+import de.featjar.base.io.input.AInputMapper;
+import de.featjar.feature.model.Attributes;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureModelElement;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.AttributeIO;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.predicate.Literal;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Stores feature models in a compact binary format that can be loaded from a memory-mapped file.
+ * The file consists of the following sections, each starting with its number of entries:
+ * <ul>
+ * <li>a string table with all names, attribute keys, and attribute values,</li>
+ * <li>the features with their name, type, and attributes,</li>
+ * <li>the tree nodes in pre-order with their feature, parent, group ID, feature range, and groups,</li>
+ * <li>the group ranges,</li>
+ * <li>the constraints with their formula in postfix notation, attributes, and tags,</li>
+ * <li>the postfix formula tokens, the tags, and the attributes.</li>
+ * </ul>
+ * All numbers are stored as big-endian 32-bit integers.
+ * Attribute values are stored as strings, so only the types supported by {@link AttributeIO} can be written.
+ * Tree nodes have no attribute section, so writing a tree node with attributes fails
+ * instead of silently dropping them.
+ * Use {@link #map(Path)} to load a feature model lazily from a file.
+ */
+public class BinaryFeatureModelFormat implements IFormat<IFeatureModel> {
+
+    public static final String EXTENSION = "fmb";
+
+    static final int MAGIC = 0x464A464D; // "FJFM"
+    static final int VERSION = 1;
+
+    static final int FEATURE_RECORD_SIZE = 4;
+    static final int NODE_RECORD_SIZE = 7;
+    static final int GROUP_RECORD_SIZE = 2;
+    static final int CONSTRAINT_RECORD_SIZE = 6;
+    static final int ATTRIBUTE_RECORD_SIZE = 4;
+
+    static final int TOKEN_TRUE = 0;
+    static final int TOKEN_FALSE = 1;
+    static final int TOKEN_POSITIVE_LITERAL = 2;
+    static final int TOKEN_NEGATIVE_LITERAL = 3;
+    static final int TOKEN_NOT = 4;
+    static final int TOKEN_AND = 5;
+    static final int TOKEN_OR = 6;
+    static final int TOKEN_IMPLIES = 7;
+    static final int TOKEN_BIIMPLIES = 8;
+
+    @Override
+    public String getFileExtension() {
+        return EXTENSION;
+    }
+
+    @Override
+    public String getName() {
+        return "Binary";
+    }
+
+    @Override
+    public boolean supportsParse() {
+        return true;
+    }
+
+    @Override
+    public Result<IFeatureModel> parse(AInputMapper inputMapper) {
+        try (InputStream inputStream = inputMapper.get().getInputStream()) {
+            ByteBuffer buffer = ByteBuffer.wrap(inputStream.readAllBytes());
+            return new MappedFeatureModel(buffer).toFeatureModel();
+        } catch (IOException | RuntimeException e) {
+            return Result.empty(new Problem(e));
+        }
+    }
+
+    /**
+     * Maps a binary feature model file into memory.
+     * The file is only decoded as far as needed by the accessed information.
+     *
+     * @param path the path of the file
+     * @return the mapped feature model
+     * @throws IOException if the file cannot be mapped or is not a binary feature model
+     */
+    public static MappedFeatureModel map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedFeatureModel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes a feature model in the binary format.
+     * The output stream is flushed, but not closed.
+     *
+     * @param featureModel the feature model
+     * @param outputStream the output stream
+     * @throws IOException if the output stream cannot be written
+     * @throws IllegalArgumentException if a constraint contains an unsupported formula,
+     *     a tree node has attributes, or an attribute value has an unsupported type
+     */
+    public void write(IFeatureModel featureModel, OutputStream outputStream) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.encode(featureModel);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        out.writeInt(encoder.strings.size());
+        int offset = 0;
+        List<byte[]> stringBytes = new ArrayList<>(encoder.strings.size());
+        for (String string : encoder.strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            stringBytes.add(bytes);
+            out.writeInt(offset);
+            offset += bytes.length;
+        }
+        out.writeInt(offset);
+        for (byte[] bytes : stringBytes) {
+            out.write(bytes);
+        }
+
+        writeSection(out, encoder.modelAttributes, 2);
+        writeSection(out, encoder.features, FEATURE_RECORD_SIZE);
+        writeSection(out, encoder.nodes, NODE_RECORD_SIZE);
+        writeSection(out, encoder.groups, GROUP_RECORD_SIZE);
+        writeSection(out, encoder.constraints, CONSTRAINT_RECORD_SIZE);
+        writeSection(out, encoder.tokens, 1);
+        writeSection(out, encoder.tags, 1);
+        writeSection(out, encoder.attributes, ATTRIBUTE_RECORD_SIZE);
+        out.flush();
+    }
+
+    private static void writeSection(DataOutputStream out, IntList values, int recordSize) throws IOException {
+        out.writeInt(values.size / recordSize);
+        for (int i = 0; i < values.size; i++) {
+            out.writeInt(values.values[i]);
+        }
+    }
+
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static class Encoder {
+        private final LinkedHashMap<String, Integer> strings = new LinkedHashMap<>();
+        private final IdentityHashMap<IFeature, Integer> featureIndices = new IdentityHashMap<>();
+        private final IdentityHashMap<IFeatureTree, Integer> nodeIndices = new IdentityHashMap<>();
+        private final IntList modelAttributes = new IntList();
+        private final IntList features = new IntList();
+        private final IntList nodes = new IntList();
+        private final IntList groups = new IntList();
+        private final IntList constraints = new IntList();
+        private final IntList tokens = new IntList();
+        private final IntList tags = new IntList();
+        private final IntList attributes = new IntList();
+
+        private int string(String string) {
+            if (string == null) {
+                return -1;
+            }
+            return strings.computeIfAbsent(string, s -> strings.size());
+        }
+
+        private void encode(IFeatureModel featureModel) {
+            encodeAttributes(featureModel, modelAttributes);
+            for (IFeature feature : featureModel.getFeatures()) {
+                featureIndices.put(feature, featureIndices.size());
+                // unnamed features are written without their default name, which is derived from the identifier
+                features.add(string((String) feature.getAttributes().orElse(Map.of()).get(Attributes.NAME)));
+                features.add(string(
+                        feature.getType() == null
+                                ? null
+                                : AttributeIO.getTypeString(feature.getType()).orElse(null)));
+                encodeAttributes(feature, features);
+            }
+            featureModel.getFeatureTreeStream().forEach(node -> {
+                nodeIndices.put(node, nodeIndices.size());
+                Integer featureIndex = featureIndices.get(node.getFeature());
+                if (featureIndex == null) {
+                    throw new IllegalArgumentException("feature of tree node is not part of the feature model");
+                }
+                if (!node.getAttributes().map(Map::isEmpty).orElse(Boolean.TRUE)) {
+                    throw new IllegalArgumentException("Attributes of tree node " + node + " are not supported: "
+                            + node.getAttributes().get().keySet());
+                }
+                nodes.add(featureIndex);
+                nodes.add(node.getParent().map(nodeIndices::get).orElse(-1));
+                nodes.add(node.getGroupID());
+                nodes.add(node.getFeatureRangeLowerBound());
+                nodes.add(node.getFeatureRangeUpperBound());
+                nodes.add(groups.size / GROUP_RECORD_SIZE);
+                nodes.add(node.getGroups().size());
+                for (Group group : node.getGroups()) {
+                    groups.add(group.getLowerBound());
+                    groups.add(group.getUpperBound());
+                }
+            });
+            for (IConstraint constraint : featureModel.getConstraints()) {
+                int firstToken = tokens.size;
+                encodeFormula(constraint.getFormula());
+                constraints.add(firstToken);
+                constraints.add(tokens.size - firstToken);
+                encodeAttributes(constraint, constraints);
+                constraints.add(tags.size);
+                constraints.add(constraint.getTags().size());
+                constraint.getTags().forEach(tag -> tags.add(string(tag)));
+            }
+        }
+
+        private void encodeAttributes(IFeatureModelElement element, IntList owner) {
+            int firstAttribute = attributes.size / ATTRIBUTE_RECORD_SIZE;
+            int count = 0;
+            Map<IAttribute<?>, Object> attributeValues = element.getAttributes().orElse(Map.of());
+            for (Entry<IAttribute<?>, Object> entry : attributeValues.entrySet()) {
+                IAttribute<?> attribute = entry.getKey();
+                if (element instanceof IFeature && Attributes.NAME.equals(attribute)) {
+                    continue;
+                }
+                if (element instanceof IConstraint && Attributes.TAGS.equals(attribute)) {
+                    // stored in the tag section
+                    continue;
+                }
+                Result<String> typeString = AttributeIO.getTypeString(attribute.getType());
+                if (typeString.isEmpty()) {
+                    throw new IllegalArgumentException("Attribute " + attribute.getNamespace() + ":"
+                            + attribute.getName() + " of type " + attribute.getType().getName()
+                            + " is not supported");
+                }
+                attributes.add(string(attribute.getNamespace()));
+                attributes.add(string(attribute.getName()));
+                attributes.add(string(typeString.get()));
+                attributes.add(string(entry.getValue().toString()));
+                count++;
+            }
+            owner.add(firstAttribute);
+            owner.add(count);
+        }
+
+        private void encodeFormula(IFormula formula) {
+            if (Expressions.True.equals(formula)) {
+                tokens.add(TOKEN_TRUE);
+                return;
+            } else if (Expressions.False.equals(formula)) {
+                tokens.add(TOKEN_FALSE);
+                return;
+            } else if (formula instanceof Literal) {
+                Literal literal = (Literal) formula;
+                tokens.add(literal.isPositive() ? TOKEN_POSITIVE_LITERAL : TOKEN_NEGATIVE_LITERAL);
+                tokens.add(string(literal.getFirstChild().get().getName()));
+                return;
+            }
+            int token;
+            if (formula instanceof Not) {
+                token = TOKEN_NOT;
+            } else if (formula instanceof And) {
+                token = TOKEN_AND;
+            } else if (formula instanceof Or) {
+                token = TOKEN_OR;
+            } else if (formula instanceof BiImplies) {
+                token = TOKEN_BIIMPLIES;
+            } else if (formula instanceof Implies) {
+                token = TOKEN_IMPLIES;
+            } else {
+                throw new IllegalArgumentException("Unsupported formula " + formula);
+            }
+            List<? extends IExpression> children = formula.getChildren();
+            for (IExpression child : children) {
+                encodeFormula((IFormula) child);
+            }
+            tokens.add(token);
+            tokens.add(children.size());
+        }
+    }
+}
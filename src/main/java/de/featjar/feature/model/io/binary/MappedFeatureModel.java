@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io.binary;
+
+import static de.featjar.feature.model.io.binary.BinaryFeatureModelFormat.*;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.feature.model.Attributes;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import de.featjar.feature.model.IFeatureModelElement;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.AttributeIO;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.predicate.Literal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A feature model stored in the {@link BinaryFeatureModelFormat binary format}.
+ * Opening only locates the sections of the buffer. Strings are decoded when they are first accessed and the
+ * {@link FeatureModel} is only built on the first call of {@link #getFeatureModel()}.
+ */
+public class MappedFeatureModel {
+    private final ByteBuffer buffer;
+
+    private final int stringCount, stringOffsets, stringData;
+    private final int modelAttributes;
+    private final int featureCount, features;
+    private final int nodeCount, nodes;
+    private final int groups;
+    private final int constraintCount, constraints;
+    private final int tokens;
+    private final int tags;
+    private final int attributes;
+
+    private final String[] strings;
+    private Result<IFeatureModel> featureModel;
+
+    MappedFeatureModel(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        int position = 0;
+        if (this.buffer.getInt(position) != MAGIC) {
+            throw new IllegalArgumentException("not a binary feature model");
+        }
+        if (this.buffer.getInt(position + 4) != VERSION) {
+            throw new IllegalArgumentException("unsupported version " + this.buffer.getInt(position + 4));
+        }
+        position += 8;
+        stringCount = this.buffer.getInt(position);
+        stringOffsets = position + 4;
+        stringData = stringOffsets + 4 * (stringCount + 1);
+        position = stringData + this.buffer.getInt(stringOffsets + 4 * stringCount);
+        strings = new String[stringCount];
+
+        modelAttributes = position + 4;
+        position = skipSection(position, 2);
+        featureCount = this.buffer.getInt(position);
+        features = position + 4;
+        position = skipSection(position, FEATURE_RECORD_SIZE);
+        nodeCount = this.buffer.getInt(position);
+        nodes = position + 4;
+        position = skipSection(position, NODE_RECORD_SIZE);
+        groups = position + 4;
+        position = skipSection(position, GROUP_RECORD_SIZE);
+        constraintCount = this.buffer.getInt(position);
+        constraints = position + 4;
+        position = skipSection(position, CONSTRAINT_RECORD_SIZE);
+        tokens = position + 4;
+        position = skipSection(position, 1);
+        tags = position + 4;
+        position = skipSection(position, 1);
+        attributes = position + 4;
+    }
+
+    private int skipSection(int position, int recordSize) {
+        return position + 4 + 4 * recordSize * buffer.getInt(position);
+    }
+
+    private int getInt(int section, int recordSize, int index, int field) {
+        return buffer.getInt(section + 4 * (recordSize * index + field));
+    }
+
+    /**
+     * Returns the string with the given index in the string table, decoding it on first access.
+     *
+     * @param index the index, may be -1
+     * @return the string, or {@code null} for index -1
+     */
+    public synchronized String getString(int index) {
+        if (index < 0) {
+            return null;
+        }
+        String string = strings[index];
+        if (string == null) {
+            int start = buffer.getInt(stringOffsets + 4 * index);
+            int end = buffer.getInt(stringOffsets + 4 * (index + 1));
+            byte[] bytes = new byte[end - start];
+            buffer.duplicate().position(stringData + start).get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    public int getNumberOfFeatures() {
+        return featureCount;
+    }
+
+    /**
+     * Returns the name of the feature with the given index.
+     *
+     * @param featureIndex the feature index
+     * @return the name, or {@code null} if the feature has no explicit name
+     */
+    public String getFeatureName(int featureIndex) {
+        return getString(getInt(features, FEATURE_RECORD_SIZE, featureIndex, 0));
+    }
+
+    public int getNumberOfTreeNodes() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the index of the feature labeling the tree node with the given pre-order index.
+     *
+     * @param nodeIndex the pre-order index of the tree node
+     * @return the feature index
+     */
+    public int getTreeNodeFeature(int nodeIndex) {
+        return getInt(nodes, NODE_RECORD_SIZE, nodeIndex, 0);
+    }
+
+    /**
+     * Returns the pre-order index of the parent of the given tree node.
+     *
+     * @param nodeIndex the pre-order index of the tree node
+     * @return the parent index, or -1 for roots
+     */
+    public int getTreeNodeParent(int nodeIndex) {
+        return getInt(nodes, NODE_RECORD_SIZE, nodeIndex, 1);
+    }
+
+    public int getNumberOfConstraints() {
+        return constraintCount;
+    }
+
+    /**
+     * Returns the feature model stored in the buffer, building it on the first call.
+     *
+     * @return the feature model
+     */
+    public synchronized Result<IFeatureModel> getFeatureModel() {
+        if (featureModel == null) {
+            featureModel = toFeatureModel();
+        }
+        return featureModel;
+    }
+
+    Result<IFeatureModel> toFeatureModel() {
+        List<Problem> problems = new ArrayList<>();
+        IMutableFeatureModel newFeatureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        readAttributes(newFeatureModel, modelAttributes, 0, 2, 0, problems);
+
+        IFeature[] featureArray = new IFeature[featureCount];
+        for (int i = 0; i < featureCount; i++) {
+            String name = getFeatureName(i);
+            IFeature feature = newFeatureModel.addFeature(name == null ? "" : name);
+            if (name == null) {
+                // unnamed features fall back to the default name of their new identifier
+                feature.mutate().removeAttributeValue(Attributes.NAME);
+            }
+            String typeString = getString(getInt(features, FEATURE_RECORD_SIZE, i, 1));
+            if (typeString != null) {
+                AttributeIO.getType(typeString).ifPresent(type -> feature.mutate().setType(type));
+            }
+            readAttributes(feature, features, i, FEATURE_RECORD_SIZE, 2, problems);
+            featureArray[i] = feature;
+        }
+
+        IFeatureTree[] nodeArray = new IFeatureTree[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            IFeature feature = featureArray[getTreeNodeFeature(i)];
+            int parentIndex = getTreeNodeParent(i);
+            IFeatureTree node = parentIndex < 0
+                    ? newFeatureModel.addFeatureTreeRoot(feature)
+                    : nodeArray[parentIndex].mutate().addFeatureBelow(feature);
+            int firstGroup = getInt(nodes, NODE_RECORD_SIZE, i, 5);
+            int groupCount = getInt(nodes, NODE_RECORD_SIZE, i, 6);
+            List<Group> groupList = new ArrayList<>(groupCount);
+            for (int j = firstGroup; j < firstGroup + groupCount; j++) {
+                groupList.add(new Group(Range.of(
+                        getInt(groups, GROUP_RECORD_SIZE, j, 0), getInt(groups, GROUP_RECORD_SIZE, j, 1))));
+            }
+            node.mutate().setGroups(groupList);
+            node.mutate()
+                    .setFeatureRange(Range.of(
+                            getInt(nodes, NODE_RECORD_SIZE, i, 3), getInt(nodes, NODE_RECORD_SIZE, i, 4)));
+            nodeArray[i] = node;
+        }
+        // group IDs can only be set once all groups of the parent exist
+        for (int i = 0; i < nodeCount; i++) {
+            if (getTreeNodeParent(i) >= 0) {
+                nodeArray[i].mutate().setGroupID(getInt(nodes, NODE_RECORD_SIZE, i, 2));
+            }
+        }
+
+        for (int i = 0; i < constraintCount; i++) {
+            IConstraint constraint = newFeatureModel.addConstraint(readFormula(
+                    getInt(constraints, CONSTRAINT_RECORD_SIZE, i, 0),
+                    getInt(constraints, CONSTRAINT_RECORD_SIZE, i, 1)));
+            readAttributes(constraint, constraints, i, CONSTRAINT_RECORD_SIZE, 2, problems);
+            int firstTag = getInt(constraints, CONSTRAINT_RECORD_SIZE, i, 4);
+            int tagCount = getInt(constraints, CONSTRAINT_RECORD_SIZE, i, 5);
+            if (tagCount > 0) {
+                LinkedHashSet<String> tagSet = new LinkedHashSet<>();
+                for (int j = firstTag; j < firstTag + tagCount; j++) {
+                    tagSet.add(getString(buffer.getInt(tags + 4 * j)));
+                }
+                constraint.mutate().setTags(tagSet);
+            }
+        }
+        return Result.of(newFeatureModel, problems);
+    }
+
+    private void readAttributes(
+            IFeatureModelElement element,
+            int section,
+            int index,
+            int recordSize,
+            int offset,
+            List<Problem> problems) {
+        int firstAttribute = getInt(section, recordSize, index, offset);
+        int attributeCount = getInt(section, recordSize, index, offset + 1);
+        for (int i = firstAttribute; i < firstAttribute + attributeCount; i++) {
+            problems.addAll(AttributeIO.parseAndSetAttributeValue(
+                    element,
+                    getString(getInt(attributes, ATTRIBUTE_RECORD_SIZE, i, 0)),
+                    getString(getInt(attributes, ATTRIBUTE_RECORD_SIZE, i, 1)),
+                    getString(getInt(attributes, ATTRIBUTE_RECORD_SIZE, i, 2)),
+                    getString(getInt(attributes, ATTRIBUTE_RECORD_SIZE, i, 3))));
+        }
+    }
+
+    private IFormula readFormula(int firstToken, int tokenCount) {
+        ArrayList<IFormula> stack = new ArrayList<>();
+        int end = firstToken + tokenCount;
+        for (int i = firstToken; i < end; i++) {
+            int token = buffer.getInt(tokens + 4 * i);
+            switch (token) {
+                case TOKEN_TRUE:
+                    stack.add(Expressions.True);
+                    break;
+                case TOKEN_FALSE:
+                    stack.add(Expressions.False);
+                    break;
+                case TOKEN_POSITIVE_LITERAL:
+                    stack.add(new Literal(true, getString(buffer.getInt(tokens + 4 * ++i))));
+                    break;
+                case TOKEN_NEGATIVE_LITERAL:
+                    stack.add(new Literal(false, getString(buffer.getInt(tokens + 4 * ++i))));
+                    break;
+                default:
+                    int arity = buffer.getInt(tokens + 4 * ++i);
+                    List<IFormula> operands = new ArrayList<>(stack.subList(stack.size() - arity, stack.size()));
+                    stack.subList(stack.size() - arity, stack.size()).clear();
+                    stack.add(newOperator(token, operands));
+            }
+        }
+        if (stack.size() != 1) {
+            throw new IllegalArgumentException("malformed formula");
+        }
+        return stack.get(0);
+    }
+
+    private static IFormula newOperator(int token, List<IFormula> operands) {
+        switch (token) {
+            case TOKEN_NOT:
+                return new Not(operands.get(0));
+            case TOKEN_AND:
+                return new And(operands);
+            case TOKEN_OR:
+                return new Or(operands);
+            case TOKEN_IMPLIES:
+                return new Implies(operands.get(0), operands.get(1));
+            case TOKEN_BIIMPLIES:
+                return new BiImplies(operands.get(0), operands.get(1));
+            default:
+                throw new IllegalArgumentException("unknown formula token " + token);
+        }
+    }
+}
@@ -0,0 +1,904 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io.xml;
+
+import de.featjar.base.FeatJAR;
+import de.featjar.base.data.IAttribute;
+import de.featjar.base.data.Maps;
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.base.io.format.ParseException;
+import de.featjar.base.io.format.ParseProblem;
+import de.featjar.base.io.input.AInputMapper;
+import de.featjar.feature.model.Attributes;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureModelElement;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.AttributeIO;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.AtMost;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.predicate.Literal;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Parses and writes feature models from and to FeatureIDE XML files without building a DOM.
+ * Features, groups, and constraints are created as soon as their elements are read,
+ * so only the current path of open elements is kept in memory.
+ * Likewise, elements are written directly to the output as the feature model is traversed.
+ * Produces the same feature models and files as {@link XMLFeatureModelFormat}.
+ */
+public class StreamingXMLFeatureModelFormat extends XMLFeatureModelFormat {
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    @Override
+    public StreamingXMLFeatureModelFormat getInstance() {
+        return new StreamingXMLFeatureModelFormat();
+    }
+
+    @Override
+    public String getName() {
+        return "FeatureIDE (Streaming)";
+    }
+
+    @Override
+    public boolean supportsSerialize() {
+        return true;
+    }
+
+    @Override
+    public Result<String> serialize(IFeatureModel featureModel) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            write(featureModel, outputStream);
+        } catch (IOException | RuntimeException e) {
+            return Result.empty(new Problem(e));
+        }
+        return Result.of(new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a feature model as UTF-8 encoded FeatureIDE XML to an output stream.
+     * The output is identical to the serialization of {@link XMLFeatureModelFormat}.
+     * The output stream is flushed, but not closed.
+     *
+     * @param featureModel the feature model
+     * @param outputStream the output stream
+     * @throws IOException if the output stream cannot be written
+     */
+    public void write(IFeatureModel featureModel, OutputStream outputStream) throws IOException {
+        this.featureModel = featureModel;
+        Emitter emitter =
+                new Emitter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+        emitter.writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+        emitter.writer.write(NEWLINE);
+        emitter.start(FEATURE_MODEL, Map.of());
+        writeFeatures(emitter);
+        writeConstraints(emitter);
+        emitter.end(FEATURE_MODEL);
+        emitter.writer.flush();
+    }
+
+    protected void writeFeatures(Emitter emitter) throws IOException {
+        IFeatureTree root = featureModel.getRoots().get(0);
+        if (isWritable(root)) {
+            emitter.start(STRUCT, Map.of());
+            writeFeatureTreeRec(emitter, root);
+            emitter.end(STRUCT);
+        } else {
+            FeatJAR.log().error("Unkown group %s", root.getGroup());
+            emitter.empty(STRUCT, Map.of());
+        }
+    }
+
+    protected void writeFeatureTreeRec(Emitter emitter, IFeatureTree feat) throws IOException {
+        final List<? extends IFeatureTree> children = feat.getChildren();
+        final String nodeName;
+        if (children.isEmpty()) {
+            nodeName = FEATURE;
+        } else if (feat.getGroups().get(0).isAnd()) {
+            nodeName = AND;
+        } else if (feat.getGroups().get(0).isOr()) {
+            nodeName = OR;
+        } else if (feat.getGroups().get(0).isAlternative()) {
+            nodeName = ALT;
+        } else {
+            FeatJAR.log().error("Unkown group %s", feat.getGroup());
+            return;
+        }
+
+        IFeature feature = feat.getFeature();
+        TreeMap<String, String> attributes = new TreeMap<>();
+        attributes.put(NAME, feature.getName().get());
+        if (feature.isHidden()) {
+            attributes.put(HIDDEN, TRUE);
+        }
+        if (feat.getParent().isEmpty()
+                || (feat.isMandatory() && feat.getParent().get().getGroups().get(0).isAnd())) {
+            attributes.put(MANDATORY, TRUE);
+        }
+        if (feature.isAbstract()) {
+            attributes.put(ABSTRACT, TRUE);
+        }
+
+        String description = feature.getDescription().orElse(null);
+        Map<IAttribute<?>, Object> properties = feat.getAttributes().orElse(Map.of());
+        boolean hasDescription = (description != null) && !description.trim().isEmpty();
+        boolean hasChildren =
+                !properties.isEmpty() || children.stream().anyMatch(this::isWritable) || hasDescription;
+        if (!hasChildren) {
+            emitter.empty(nodeName, attributes);
+            return;
+        }
+        emitter.start(nodeName, attributes);
+        if (hasDescription) {
+            emitter.text(DESCRIPTION, description);
+        }
+        writeProperties(emitter, properties);
+        for (final IFeatureTree child : children) {
+            writeFeatureTreeRec(emitter, child);
+        }
+        emitter.end(nodeName);
+    }
+
+    private boolean isWritable(IFeatureTree feat) {
+        if (feat.getChildren().isEmpty()) {
+            return true;
+        }
+        Group group = feat.getGroups().get(0);
+        return group.isAnd() || group.isOr() || group.isAlternative();
+    }
+
+    protected void writeConstraints(Emitter emitter) throws IOException {
+        if (featureModel.getConstraints().isEmpty()) {
+            return;
+        }
+        emitter.start(CONSTRAINTS, Map.of());
+        for (final IConstraint constraint : featureModel.getConstraints()) {
+            String description = constraint.getDescription().orElse(null);
+            boolean hasDescription = (description != null) && !description.trim().isEmpty();
+            Map<IAttribute<?>, Object> properties = constraint.getAttributes().get();
+            Set<String> tags = constraint.getTags();
+            boolean hasTags = (tags != null) && !tags.isEmpty();
+            IFormula formula = constraint.getFormula();
+            if (!hasDescription && properties.isEmpty() && !hasTags && !isWritable(formula)) {
+                emitter.empty(RULE, Map.of());
+                continue;
+            }
+            emitter.start(RULE, Map.of());
+            if (hasDescription) {
+                emitter.text(DESCRIPTION, description);
+            }
+            writeProperties(emitter, properties);
+            if (hasTags) {
+                emitter.text(TAGS, String.join(",", tags));
+            }
+            writeFormula(emitter, formula);
+            emitter.end(RULE);
+        }
+        emitter.end(CONSTRAINTS);
+    }
+
+    protected void writeFormula(Emitter emitter, IFormula node) throws IOException {
+        if (node == null) {
+            return;
+        }
+        if (node instanceof Literal) {
+            final Literal literal = (Literal) node;
+            String name = literal.getFirstChild().get().getName();
+            if (literal.isPositive()) {
+                emitter.text(VAR, name);
+            } else {
+                emitter.start(NOT, Map.of());
+                emitter.text(VAR, name);
+                emitter.end(NOT);
+            }
+            return;
+        }
+        final String nodeName = getFormulaNodeName(node);
+        if (nodeName == null) {
+            FeatJAR.log().error("Unsupported element %s", node);
+            return;
+        }
+        List<? extends IExpression> children = node.getChildren();
+        if (children.stream().noneMatch(child -> isWritable((IFormula) child))) {
+            for (final IExpression child : children) {
+                // logs unsupported children
+                writeFormula(emitter, (IFormula) child);
+            }
+            emitter.empty(nodeName, Map.of());
+            return;
+        }
+        emitter.start(nodeName, Map.of());
+        for (final IExpression child : children) {
+            writeFormula(emitter, (IFormula) child);
+        }
+        emitter.end(nodeName);
+    }
+
+    private boolean isWritable(IFormula node) {
+        return node instanceof Literal || getFormulaNodeName(node) != null;
+    }
+
+    private String getFormulaNodeName(IFormula node) {
+        if (node instanceof Or) {
+            return DISJ;
+        } else if (node instanceof BiImplies) {
+            return EQ;
+        } else if (node instanceof Implies) {
+            return IMP;
+        } else if (node instanceof And) {
+            return CONJ;
+        } else if (node instanceof Not) {
+            return NOT;
+        } else if (node instanceof AtMost) {
+            return ATMOST1;
+        }
+        return null;
+    }
+
+    protected void writeProperties(Emitter emitter, Map<IAttribute<?>, Object> properties) throws IOException {
+        for (final Entry<IAttribute<?>, Object> property : properties.entrySet()) {
+            TreeMap<String, String> attributes = new TreeMap<>();
+            final String nodeName;
+            String namespace = property.getKey().getNamespace();
+            if (GRAPHICS_NAMESPACE.equals(namespace)) {
+                nodeName = GRAPHICS;
+            } else if (CALCULATIONS_NAMESPACE.equals(namespace)) {
+                nodeName = CALCULATIONS;
+            } else {
+                nodeName = PROPERTY;
+                attributes.put(NAMESPACE_TAG, namespace);
+                attributes.put(
+                        DATA_TYPE,
+                        AttributeIO.getTypeString(property.getKey().getType())
+                                .orElseThrow(p -> new IllegalArgumentException()));
+            }
+            attributes.put(KEY, property.getKey().getName());
+            attributes.put(VALUE, property.getValue().toString());
+            emitter.empty(nodeName, attributes);
+        }
+    }
+
+    /**
+     * Writes indented XML elements with the same layout and escaping as the DOM serializer.
+     */
+    protected static class Emitter {
+        private final Writer writer;
+        private int depth;
+
+        protected Emitter(Writer writer) {
+            this.writer = writer;
+        }
+
+        protected void start(String name, Map<String, String> attributes) throws IOException {
+            openTag(name, attributes);
+            writer.write('>');
+            writer.write(NEWLINE);
+            depth++;
+        }
+
+        protected void end(String name) throws IOException {
+            depth--;
+            indent();
+            writer.write("</");
+            writer.write(name);
+            writer.write('>');
+            writer.write(NEWLINE);
+        }
+
+        protected void empty(String name, Map<String, String> attributes) throws IOException {
+            openTag(name, attributes);
+            writer.write("/>");
+            writer.write(NEWLINE);
+        }
+
+        protected void text(String name, String text) throws IOException {
+            if (text.isEmpty()) {
+                empty(name, Map.of());
+                return;
+            }
+            openTag(name, Map.of());
+            writer.write('>');
+            escape(text, false);
+            writer.write("</");
+            writer.write(name);
+            writer.write('>');
+            writer.write(NEWLINE);
+        }
+
+        private void openTag(String name, Map<String, String> attributes) throws IOException {
+            indent();
+            writer.write('<');
+            writer.write(name);
+            for (Entry<String, String> attribute : attributes.entrySet()) {
+                writer.write(' ');
+                writer.write(attribute.getKey());
+                writer.write("=\"");
+                escape(attribute.getValue(), true);
+                writer.write('"');
+            }
+        }
+
+        private void indent() throws IOException {
+            for (int i = 0; i < depth; i++) {
+                writer.write('\t');
+            }
+        }
+
+        private void escape(String text, boolean attribute) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '&':
+                        writer.write("&amp;");
+                        break;
+                    case '<':
+                        writer.write("&lt;");
+                        break;
+                    case '>':
+                        writer.write("&gt;");
+                        break;
+                    case '"':
+                        writer.write(attribute ? "&quot;" : "\"");
+                        break;
+                    case '\n':
+                        writer.write(attribute ? "&#10;" : NEWLINE);
+                        break;
+                    case '\r':
+                        writer.write("&#13;");
+                        break;
+                    case '\t':
+                        if (attribute) {
+                            writer.write("&#9;");
+                        } else {
+                            writer.write(c);
+                        }
+                        break;
+                    default:
+                        writer.write(c);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Result<IFeatureModel> parse(AInputMapper inputMapper) {
+        parseProblems.clear();
+        try (Reader input = inputMapper.get().getReader()) {
+            XMLStreamReader reader = createReader(input);
+            try {
+                IFeatureModel parsedFeatureModel = parseDocument(reader);
+                return Result.of(parsedFeatureModel, new ArrayList<>(parseProblems));
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException | ParseException e) {
+            parseProblems.add(new Problem(e));
+            return Result.empty(new ArrayList<>(parseProblems));
+        }
+    }
+
+    protected IFeatureModel parseDocument(XMLStreamReader reader) throws XMLStreamException, ParseException {
+        if (featureModel == null) featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        nameToIdentifierMap = Maps.empty();
+        while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+            // skip prolog
+        }
+        if (!reader.isStartElement()) {
+            throw new ParseException("Missing document element");
+        }
+        String rootName = reader.getLocalName();
+        if (!FEATURE_MODEL.equals(rootName) && !EXT_FEATURE_MODEL.equals(rootName)) {
+            throw new ParseException("Unexpected root element " + rootName);
+        }
+        boolean hasStruct = false;
+        List<String> deferredElements = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (STRUCT.equals(reader.getLocalName())) {
+                hasStruct = true;
+                parseFeatures(reader, null);
+            } else if (hasStruct) {
+                parseTopLevelElement(reader);
+            } else {
+                deferredElements.add(copyElement(reader));
+            }
+        }
+        if (!hasStruct) {
+            throw new ParseException("Missing element " + STRUCT);
+        }
+        for (String deferredElement : deferredElements) {
+            XMLStreamReader deferredReader = createReader(new StringReader(deferredElement));
+            try {
+                deferredReader.nextTag();
+                parseTopLevelElement(deferredReader);
+            } finally {
+                deferredReader.close();
+            }
+        }
+        return featureModel;
+    }
+
+    private static XMLStreamReader createReader(Reader input) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory.createXMLStreamReader(input);
+    }
+
+    /**
+     * Copies the current element into a string, so it can be parsed once the feature tree is known.
+     * Returns after the end tag of the current element has been read.
+     *
+     * @param reader the reader, positioned at a start tag
+     * @return the element as XML
+     * @throws XMLStreamException if the XML is malformed
+     */
+    private static String copyElement(XMLStreamReader reader) throws XMLStreamException {
+        StringWriter buffer = new StringWriter();
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(buffer);
+        int depth = 0;
+        while (true) {
+            switch (reader.getEventType()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    writer.writeStartElement(reader.getLocalName());
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                    }
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    writer.writeEndElement();
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    writer.writeCharacters(reader.getText());
+                    break;
+                default:
+            }
+            if (depth == 0) {
+                break;
+            }
+            reader.next();
+        }
+        writer.close();
+        return buffer.toString();
+    }
+
+    /**
+     * Parses a top-level element other than {@link XMLFeatureModelFormat#STRUCT struct}.
+     * Returns after the end tag of the current element has been read.
+     *
+     * @param reader the reader, positioned at a start tag
+     * @throws XMLStreamException if the XML is malformed
+     * @throws ParseException if the element cannot be parsed
+     */
+    private void parseTopLevelElement(XMLStreamReader reader) throws XMLStreamException, ParseException {
+        switch (reader.getLocalName()) {
+            case CONSTRAINTS:
+                parseConstraints(reader);
+                break;
+            case COMMENTS:
+                parseComments(reader);
+                break;
+            case FEATURE_ORDER:
+                parseFeatureOrder(reader);
+                break;
+            case PROPERTIES:
+                parseFeatureModelProperties(reader);
+                break;
+            case CALCULATIONS:
+                parseCalculations(reader);
+                break;
+            default:
+                skipElement(reader);
+        }
+    }
+
+    /**
+     * Parses the children of the current element as features below a given parent.
+     * Returns after the end tag of the current element has been read.
+     *
+     * @param reader the reader, positioned at a start tag
+     * @param parentFeatureLabel the parent tree node, {@code null} for the roots
+     * @throws XMLStreamException if the XML is malformed
+     * @throws ParseException if a feature cannot be created
+     */
+    protected void parseFeatures(XMLStreamReader reader, IFeatureTree parentFeatureLabel)
+            throws XMLStreamException, ParseException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String nodeName = reader.getLocalName();
+            switch (nodeName) {
+                case DESCRIPTION:
+                case GRAPHICS:
+                case PROPERTY:
+                    if (parentFeatureLabel != null) {
+                        addFeatureMetadata(parentFeatureLabel, reader);
+                    } else {
+                        skipElement(reader);
+                    }
+                    break;
+                case AND:
+                case OR:
+                case ALT:
+                case FEATURE:
+                    parseFeature(reader, parentFeatureLabel, nodeName);
+                    break;
+                default:
+                    addParseProblem("Unknown feature type: " + nodeName, reader, Problem.Severity.WARNING);
+                    skipElement(reader);
+            }
+        }
+    }
+
+    protected void parseFeature(XMLStreamReader reader, IFeatureTree parentFeatureLabel, String nodeName)
+            throws XMLStreamException, ParseException {
+        boolean mandatory = false, _abstract = false, hidden = false;
+        String name = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attributeName = reader.getAttributeLocalName(i);
+            String attributeValue = reader.getAttributeValue(i);
+            switch (attributeName) {
+                case NAME:
+                    name = attributeValue;
+                    break;
+                case MANDATORY:
+                    mandatory = TRUE.equals(attributeValue);
+                    break;
+                case ABSTRACT:
+                    _abstract = TRUE.equals(attributeValue);
+                    break;
+                case HIDDEN:
+                    hidden = TRUE.equals(attributeValue);
+                    break;
+                default:
+                    addParseProblem("Unknown feature attribute: " + attributeName, reader, Problem.Severity.WARNING);
+            }
+        }
+        if (name == null) {
+            throw new ParseException("Missing feature name", reader.getLocation().getLineNumber());
+        }
+        IFeatureTree featureLabel = newFeatureLabel(name, parentFeatureLabel, mandatory, _abstract, hidden);
+        parseFeatures(reader, featureLabel);
+        List<IFeatureTree> childFeatureLabels = new ArrayList<>(featureLabel.getChildren());
+        switch (nodeName) {
+            case AND:
+                addAndGroup(featureLabel, childFeatureLabels);
+                break;
+            case OR:
+                addOrGroup(featureLabel, childFeatureLabels);
+                break;
+            case ALT:
+                addAlternativeGroup(featureLabel, childFeatureLabels);
+                break;
+            default:
+                break;
+        }
+    }
+
+    protected void addFeatureMetadata(IFeatureTree featureLabel, XMLStreamReader reader)
+            throws XMLStreamException {
+        String nodeName = reader.getLocalName();
+        switch (nodeName) {
+            case DESCRIPTION:
+                featureLabel.getFeature().mutate().setDescription(getDescription(reader.getElementText()));
+                break;
+            case GRAPHICS:
+                parseProperty(featureLabel.getFeature(), reader, GRAPHICS_NAMESPACE);
+                break;
+            case PROPERTY:
+                parseProperty(featureLabel.getFeature(), reader, NAMESPACE);
+                break;
+            default:
+                FeatJAR.log().warning("Unkown node name %s", nodeName);
+                skipElement(reader);
+        }
+    }
+
+    protected void parseConstraints(XMLStreamReader reader) throws XMLStreamException, ParseException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (RULE.equals(reader.getLocalName())) {
+                parseRule(reader);
+            } else {
+                addParseProblem("Unknown constraint type: " + reader.getLocalName(), reader, Problem.Severity.WARNING);
+                skipElement(reader);
+            }
+        }
+    }
+
+    protected void parseRule(XMLStreamReader reader) throws XMLStreamException, ParseException {
+        int lineNumber = reader.getLocation().getLineNumber();
+        IConstraint constraintLabel = newConstraintLabel();
+        List<IFormula> formulas = new ArrayList<>(1);
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String nodeName = reader.getLocalName();
+            switch (nodeName) {
+                case DESCRIPTION:
+                    constraintLabel.mutate().setDescription(getDescription(reader.getElementText()));
+                    break;
+                case TAGS:
+                    constraintLabel.mutate().setTags(getTags(reader.getElementText()));
+                    break;
+                case GRAPHICS:
+                    parseProperty(constraintLabel, reader, GRAPHICS_NAMESPACE);
+                    break;
+                case PROPERTY:
+                    parseProperty(constraintLabel, reader, NAMESPACE);
+                    break;
+                default:
+                    IFormula formula = parseFormula(reader);
+                    if (formula != null) {
+                        formulas.add(formula);
+                    }
+            }
+        }
+        if (formulas.size() == 1) {
+            addConstraint(constraintLabel, formulas.get(0));
+        } else {
+            featureModel.mutate().removeConstraint(constraintLabel);
+            addParseProblem("Invalid number of formulas in constraint", lineNumber, Problem.Severity.ERROR);
+        }
+    }
+
+    /**
+     * Parses the formula of the current element.
+     * Returns after the end tag of the current element has been read.
+     *
+     * @param reader the reader, positioned at a start tag
+     * @return the parsed formula, {@code null} if the element does not describe a valid formula
+     * @throws XMLStreamException if the XML is malformed
+     */
+    protected IFormula parseFormula(XMLStreamReader reader) throws XMLStreamException {
+        String nodeName = reader.getLocalName();
+        int lineNumber = reader.getLocation().getLineNumber();
+        if (VAR.equals(nodeName)) {
+            String name = reader.getElementText();
+            if (getFeature(name).isEmpty()) {
+                addParseProblem("Feature \"" + name + "\" does not exists", lineNumber, Problem.Severity.ERROR);
+                return null;
+            }
+            return Expressions.literal(name);
+        }
+        List<IFormula> children = new ArrayList<>(2);
+        boolean valid = true;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            IFormula child = parseFormula(reader);
+            if (child == null) {
+                valid = false;
+            } else {
+                children.add(child);
+            }
+        }
+        if (!valid) {
+            return null;
+        }
+        switch (nodeName) {
+            case DISJ:
+                return new Or(children);
+            case CONJ:
+                return new And(children);
+            case EQ:
+                if (children.size() == 2) return new BiImplies(children.get(0), children.get(1));
+                break;
+            case IMP:
+                if (children.size() == 2) return new Implies(children.get(0), children.get(1));
+                break;
+            case NOT:
+                if (children.size() == 1) return new Not(children.get(0));
+                break;
+            case ATMOST1:
+                return new AtMost(1, children);
+            default:
+                addParseProblem("Unknown constraint node: " + nodeName, lineNumber, Problem.Severity.ERROR);
+                return null;
+        }
+        addParseProblem("Invalid number of operands for " + nodeName, lineNumber, Problem.Severity.ERROR);
+        return null;
+    }
+
+    protected void parseComments(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (C.equals(reader.getLocalName())) {
+                String comment = reader.getElementText();
+                featureModel.mutate().setDescription(featureModel.getDescription().orElse("") + "\n" + comment);
+            } else {
+                addParseProblem(
+                        "Unknown comment attribute: " + reader.getLocalName(), reader, Problem.Severity.WARNING);
+                skipElement(reader);
+            }
+        }
+    }
+
+    protected void parseFeatureOrder(XMLStreamReader reader) throws XMLStreamException {
+        boolean userDefined = false;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attributeName = reader.getAttributeLocalName(i);
+            if (USER_DEFINED.equals(attributeName)) {
+                userDefined = TRUE.equals(reader.getAttributeValue(i));
+            } else {
+                addParseProblem(
+                        "Unknown feature order attribute: " + attributeName, reader, Problem.Severity.ERROR);
+            }
+        }
+        List<String> order = new ArrayList<>();
+        collectFeatureOrder(reader, order);
+        if (!order.isEmpty()) {
+            List<IFeature> featureList = order.stream()
+                    .map(this::getFeature)
+                    .map(Result::orElseThrow)
+                    .collect(Collectors.toList());
+            featureModel.mutate().setAttributeValue(Attributes.get("FeatureOrder", List.class), featureList);
+        }
+        featureModel.mutate().setAttributeValue(Attributes.get("HasFeatureOrder", Boolean.class), userDefined);
+    }
+
+    private void collectFeatureOrder(XMLStreamReader reader, List<String> order) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String attributeName = reader.getAttributeLocalName(i);
+                String attributeValue = reader.getAttributeValue(i);
+                if (NAME.equals(attributeName)) {
+                    if (getFeature(attributeValue).isPresent()) {
+                        order.add(attributeValue);
+                    } else {
+                        addParseProblem(
+                                "Feature \"" + attributeValue + "\" does not exists", reader, Problem.Severity.ERROR);
+                    }
+                } else if (!USER_DEFINED.equals(attributeName)) {
+                    addParseProblem(
+                            "Unknown feature order attribute: " + attributeName, reader, Problem.Severity.ERROR);
+                }
+            }
+            collectFeatureOrder(reader, order);
+        }
+    }
+
+    protected void parseFeatureModelProperties(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String nodeName = reader.getLocalName();
+            switch (nodeName) {
+                case GRAPHICS:
+                    parseProperty(featureModel, reader, GRAPHICS_NAMESPACE);
+                    break;
+                case CALCULATIONS:
+                    parseProperty(featureModel, reader, CALCULATIONS_NAMESPACE);
+                    break;
+                case PROPERTY:
+                    parseProperty(featureModel, reader, NAMESPACE);
+                    break;
+                default:
+                    FeatJAR.log().warning("Unkown node name %s", nodeName);
+                    skipElement(reader);
+            }
+        }
+    }
+
+    protected void parseCalculations(XMLStreamReader reader) throws XMLStreamException {
+        for (String key : new String[] {
+            CALCULATE_AUTO, CALCULATE_CONSTRAINTS, CALCULATE_FEATURES, CALCULATE_REDUNDANT, CALCULATE_TAUTOLOGY
+        }) {
+            String value = reader.getAttributeValue(null, key);
+            if (value != null) {
+                parseCalculation(key, value);
+            }
+        }
+        skipElement(reader);
+    }
+
+    /**
+     * Parses a property element and skips to its end tag.
+     *
+     * @param featureModelElement the element to attach the property to
+     * @param reader the reader, positioned at the start tag of the property
+     * @param fallbackNamespace the namespace to use if the property does not specify one
+     * @throws XMLStreamException if the XML is malformed
+     */
+    protected void parseProperty(
+            IFeatureModelElement featureModelElement, XMLStreamReader reader, String fallbackNamespace)
+            throws XMLStreamException {
+        String key = reader.getAttributeValue(null, KEY);
+        String value = reader.getAttributeValue(null, VALUE);
+        if (key == null || value == null) {
+            addParseProblem(
+                    "Missing one of the required attributes: " + KEY + " or " + VALUE,
+                    reader,
+                    Problem.Severity.WARNING);
+        } else {
+            String namespace = reader.getAttributeValue(null, NAMESPACE_TAG);
+            parseProperty(
+                    featureModelElement,
+                    key,
+                    value,
+                    reader.getAttributeValue(null, DATA_TYPE),
+                    namespace == null ? fallbackNamespace : namespace);
+        }
+        skipElement(reader);
+    }
+
+    protected void addParseProblem(String message, XMLStreamReader reader, Problem.Severity severity) {
+        addParseProblem(message, reader.getLocation().getLineNumber(), severity);
+    }
+
+    /**
+     * Adds a problem located at the given line, for problems detected after the reader has moved past the element.
+     *
+     * @param message the message
+     * @param lineNumber the line of the start tag of the element that caused the problem
+     * @param severity the severity
+     */
+    protected void addParseProblem(String message, int lineNumber, Problem.Severity severity) {
+        parseProblems.add(new ParseProblem(message, severity, lineNumber));
+    }
+
+    /**
+     * Skips the current element including all its children.
+     *
+     * @param reader the reader, positioned at a start tag
+     * @throws XMLStreamException if the XML is malformed
+     */
+    protected static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
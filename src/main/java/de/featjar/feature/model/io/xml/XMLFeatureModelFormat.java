@@ -288,7 +288,10 @@ public class XMLFeatureModelFormat extends AXMLFeatureModelFormat<IFeatureModel,
     }
 
     protected String getDescription(Node e) {
-        String description = e.getTextContent();
+        return getDescription(e.getTextContent());
+    }
+
+    protected String getDescription(String description) {
         // NOTE: THe following code is used for backwards compatibility. It replaces
         // spaces and tabs that were added to the XML for indentation, but don't
         // belong to the actual description.
@@ -299,7 +302,11 @@ public class XMLFeatureModelFormat extends AXMLFeatureModelFormat<IFeatureModel,
     }
 
     protected LinkedHashSet<String> getTags(final Node e) {
-        final String[] tagArray = e.getTextContent().split(",");
+        return getTags(e.getTextContent());
+    }
+
+    protected LinkedHashSet<String> getTags(String tags) {
+        final String[] tagArray = tags.split(",");
         return new LinkedHashSet<>(Arrays.asList(tagArray));
     }
 
@@ -309,15 +316,25 @@ public class XMLFeatureModelFormat extends AXMLFeatureModelFormat<IFeatureModel,
             addParseProblem(
                     "Missing one of the required attributes: " + KEY + " or " + VALUE, e, Problem.Severity.WARNING);
         } else {
-            String typeString = e.hasAttribute(DATA_TYPE) ? e.getAttribute(DATA_TYPE) : "string";
-            final String namespace = e.hasAttribute(NAMESPACE_TAG) ? e.getAttribute(NAMESPACE_TAG) : fallbackNamespace;
-            final String name = e.getAttribute(KEY);
-            final String valueString = e.getAttribute(VALUE);
-            parseProblems.addAll(AttributeIO.parseAndSetAttributeValue(
-                    featureModelElement, namespace, name, typeString, valueString));
+            parseProperty(
+                    featureModelElement,
+                    e.getAttribute(KEY),
+                    e.getAttribute(VALUE),
+                    e.hasAttribute(DATA_TYPE) ? e.getAttribute(DATA_TYPE) : null,
+                    e.hasAttribute(NAMESPACE_TAG) ? e.getAttribute(NAMESPACE_TAG) : fallbackNamespace);
         }
     }
 
+    protected void parseProperty(
+            IFeatureModelElement featureModelElement,
+            String name,
+            String valueString,
+            String typeString,
+            String namespace) {
+        parseProblems.addAll(AttributeIO.parseAndSetAttributeValue(
+                featureModelElement, namespace, name, typeString == null ? "string" : typeString, valueString));
+    }
+
     protected void parseFeatureModelProperties(Element e) throws ParseException {
         for (final Element propertyElement : getElements(e.getChildNodes())) {
             final String nodeName = propertyElement.getNodeName();
@@ -347,11 +364,15 @@ public class XMLFeatureModelFormat extends AXMLFeatureModelFormat<IFeatureModel,
 
     private void parseAttribute(final Element e, final String key) {
         if (e.hasAttribute(key)) {
-            parseProblems.addAll(AttributeIO.parseAndSetAttributeValue(
-                    featureModel, CALCULATIONS_NAMESPACE, key, "bool", e.getAttribute(key)));
+            parseCalculation(key, e.getAttribute(key));
         }
     }
 
+    protected void parseCalculation(String key, String valueString) {
+        parseProblems.addAll(AttributeIO.parseAndSetAttributeValue(
+                featureModel, CALCULATIONS_NAMESPACE, key, "bool", valueString));
+    }
+
     @Override
     public void writeDocument(IFeatureModel featureModel, Document doc) {
         this.featureModel = featureModel;
@@ -21,10 +21,14 @@
 package de.featjar.feature.model.transformer;
 
 import de.featjar.base.computation.AComputation;
+import de.featjar.base.computation.Computations;
 import de.featjar.base.computation.Dependency;
 import de.featjar.base.computation.IComputation;
 import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Problem;
 import de.featjar.base.data.Result;
+import de.featjar.base.tree.Trees;
+import de.featjar.feature.model.FeatureModelCache;
 import de.featjar.feature.model.FeatureTree.Group;
 import de.featjar.feature.model.IConstraint;
 import de.featjar.feature.model.IFeature;
@@ -41,8 +45,12 @@ import de.featjar.formula.structure.connective.Reference;
 import de.featjar.formula.structure.predicate.Literal;
 import de.featjar.formula.structure.term.value.Variable;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
 
 /**
  * Transforms a feature model into a boolean formula.
@@ -52,8 +60,27 @@ import java.util.List;
 public class ComputeFormula extends AComputation<IFormula> {
     protected static final Dependency<IFeatureModel> FEATURE_MODEL = Dependency.newDependency(IFeatureModel.class);
 
+    /**
+     * Whether to transform the feature tree in parallel.
+     * The resulting formula is identical to the one computed sequentially.
+     */
+    public static final Dependency<Boolean> PARALLEL = Dependency.newDependency(Boolean.class);
+
+    /**
+     * Maximum depth in the feature tree up to which subtrees are split into parallel tasks.
+     */
+    protected static final int PARALLEL_SPLIT_DEPTH = 8;
+
+    /**
+     * Formulas of unmodified feature models, computed sequentially or in parallel and shared by all instances.
+     * Callers receive copies, so the cached formulas are never mutated.
+     */
+    private static final FeatureModelCache<IFormula> SEQUENTIAL_FORMULAS = new FeatureModelCache<>();
+
+    private static final FeatureModelCache<IFormula> PARALLEL_FORMULAS = new FeatureModelCache<>();
+
     public ComputeFormula(IComputation<IFeatureModel> formula) {
-        super(formula);
+        super(formula, Computations.of(Boolean.FALSE));
     }
 
     protected ComputeFormula(ComputeFormula other) {
@@ -62,78 +89,185 @@ public class ComputeFormula extends AComputation<IFormula> {
 
     @Override
     public Result<IFormula> compute(List<Object> dependencyList, Progress progress) {
-        IFeatureModel featureModel = FEATURE_MODEL.get(dependencyList);
-        HashSet<IFeatureModel> featureModels = new HashSet<>();
+        boolean parallel = PARALLEL.get(dependencyList);
+        FeatureModelCache<IFormula> formulas = parallel ? PARALLEL_FORMULAS : SEQUENTIAL_FORMULAS;
+        try {
+            return Result.of(Trees.clone(formulas.get(
+                    FEATURE_MODEL.get(dependencyList), featureModel -> computeFormula(featureModel, parallel))));
+        } catch (IllegalArgumentException e) {
+            return Result.empty(new Problem(e));
+        }
+    }
+
+    private static IFormula computeFormula(IFeatureModel featureModel, boolean parallel) {
         ArrayList<IFormula> constraints = new ArrayList<>();
-        HashSet<Variable> variables = new HashSet<>();
-        featureModel.getFeatureTreeStream().forEach(tree -> {
-            // TODO use better error value
-            IFeature feature = tree.getFeature();
-            String featureName = feature.getName().orElse("");
-            Variable variable = new Variable(featureName, feature.getType());
-            variables.add(variable);
-
-            // TODO take featureRanges into Account
-            Result<IFeatureTree> potentialParentTree = tree.getParent();
-            // TODO take FeatureModel format into account, currently specifically written for UVL and XML format
-            if (potentialParentTree.isEmpty()) {
-                constraints.add(Expressions.literal(featureName));
-                /*if (tree.isMandatory()) {
-                	constraints.add(Expressions.literal(featureName));
-                }*/
-            } else {
-                IFeatureTree parentTree = potentialParentTree.get();
-                Literal literal = Expressions.literal(featureName);
-                Literal parentLiteral =
-                        Expressions.literal(parentTree.getFeature().getName().orElse(""));
-                constraints.add(new Implies(literal, parentLiteral));
-
-                for (Group group : parentTree.getGroups()) {
-                    if (!group.isAnd() && !tree.isMandatory()) {
-                        List<IFormula> groupLiterals = new ArrayList<>();
-                        for (IFeatureTree childTree : parentTree.getChildren()) {
-                            if (childTree.getGroup() == group) {
-                                groupLiterals.add(Expressions.literal(
-                                        childTree.getFeature().getName().orElse("")));
-                            }
-                        }
-                        if (group.isOr()) {
-                            Implies orGroup = new Implies(parentLiteral, new Or(groupLiterals));
-                            if (!constraints.contains(orGroup)) {
-                                constraints.add(orGroup);
-                            }
-                        } else if (group.isAlternative()) {
-                            Implies alternativeGroup = new Implies(parentLiteral, new Choose(1, groupLiterals));
-                            if (!constraints.contains(alternativeGroup)) {
-                                constraints.add(alternativeGroup);
-                            }
-                        } else {
-                            constraints.add(new Implies(
-                                    parentLiteral,
-                                    new Between(group.getLowerBound(), group.getUpperBound(), groupLiterals)));
-                        }
-                    } else {
-                        if (tree.isMandatory()) {
-                            Implies mandatoryImply = new Implies(parentLiteral, literal);
-                            if (!constraints.contains(mandatoryImply)) {
-                                constraints.add(mandatoryImply);
-                            }
-                        }
-                    }
-                }
+        LinkedHashSet<Variable> variables = new LinkedHashSet<>();
+        // resolve each name once by dense feature index instead of once per occurrence in the tree constraints
+        String[] featureNames = new String[featureModel.getNumberOfFeatures()];
+        for (int i = 0; i < featureNames.length; i++) {
+            featureNames[i] = getFeatureName(featureModel.getFeature(i));
+        }
+        Function<IFeature, String> featureNameFunction = feature -> {
+            int index = featureModel.indexOf(feature);
+            return index < 0 ? getFeatureName(feature) : featureNames[index];
+        };
+        if (parallel) {
+            List<IFeatureTree> roots = featureModel.getRoots();
+            PartialFormula partialFormula = ForkJoinPool.commonPool()
+                    .invoke(new TreeConstraintsTask(roots, 0, roots.size(), 0, featureNameFunction));
+            constraints.addAll(partialFormula.constraints);
+            variables.addAll(partialFormula.variables);
+        } else {
+            featureModel
+                    .getFeatureTreeStream()
+                    .forEach(tree -> addTreeConstraints(tree, featureNameFunction, constraints, variables));
+        }
+        featureModel.getConstraints().stream().map(IConstraint::getFormula).forEach(constraints::add);
+        Reference reference = new Reference(new And(constraints));
+        reference.setFreeVariables(variables);
+        return reference;
+    }
+
+    /**
+     * Adds the constraints that are induced by a single node of a feature tree.
+     * That is, the node implies its parent (or is required if it is a root), a mandatory node is implied by its parent,
+     * and each non-and group of the node yields one group constraint over its children.
+     * Thus, each constraint is emitted exactly once when visiting all nodes of a tree.
+     *
+     * @param tree the feature tree node
+     * @param constraints the list to add the constraints to
+     * @param variables the collection to add the variable of the node to
+     * @throws IllegalArgumentException if a child of the node has a group ID that is not a group of the node
+     */
+    static void addTreeConstraints(IFeatureTree tree, List<IFormula> constraints, Collection<Variable> variables) {
+        addTreeConstraints(tree, ComputeFormula::getFeatureName, constraints, variables);
+    }
+
+    private static void addTreeConstraints(
+            IFeatureTree tree,
+            Function<IFeature, String> featureNames,
+            List<IFormula> constraints,
+            Collection<Variable> variables) {
+        IFeature feature = tree.getFeature();
+        String featureName = featureNames.apply(feature);
+        variables.add(new Variable(featureName, feature.getType()));
+
+        // TODO take featureRanges into Account
+        Result<IFeatureTree> potentialParentTree = tree.getParent();
+        // TODO take FeatureModel format into account, currently specifically written for UVL and XML format
+        if (potentialParentTree.isEmpty()) {
+            constraints.add(Expressions.literal(featureName));
+        } else {
+            String parentName = featureNames.apply(potentialParentTree.get().getFeature());
+            constraints.add(new Implies(Expressions.literal(featureName), Expressions.literal(parentName)));
+            if (tree.isMandatory()) {
+                constraints.add(new Implies(Expressions.literal(parentName), Expressions.literal(featureName)));
             }
-            for (IFeatureTree child : tree.getChildren()) {
-                child.getGroup();
+        }
+
+        List<? extends IFeatureTree> children = tree.getChildren();
+        if (children.isEmpty()) {
+            return;
+        }
+        List<Group> groups = tree.getGroups();
+        List<List<IFormula>> groupLiterals = new ArrayList<>(groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            groupLiterals.add(new ArrayList<>());
+        }
+        for (IFeatureTree childTree : children) {
+            int groupID = childTree.getGroupID();
+            if (groupID < 0 || groupID >= groups.size()) {
+                throw new IllegalArgumentException(String.format(
+                        "feature %s has group ID %d, but its parent %s has only %d groups",
+                        featureNames.apply(childTree.getFeature()), groupID, featureName, groups.size()));
             }
-            IFeatureModel featureModel2 = feature.getFeatureModel();
-            if (featureModels.add(featureModel)) {
-                featureModel2.getConstraints().stream()
-                        .map(IConstraint::getFormula)
-                        .forEach(constraints::add);
+            groupLiterals.get(groupID).add(Expressions.literal(featureNames.apply(childTree.getFeature())));
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            Group group = groups.get(i);
+            List<IFormula> literals = groupLiterals.get(i);
+            if (group.isAnd() || literals.isEmpty()) {
+                continue;
             }
-        });
-        Reference reference = new Reference(new And(constraints));
-        reference.setFreeVariables(variables);
-        return Result.of(reference);
+            Literal literal = Expressions.literal(featureName);
+            if (group.isOr()) {
+                constraints.add(new Implies(literal, new Or(literals)));
+            } else if (group.isAlternative()) {
+                constraints.add(new Implies(literal, new Choose(1, literals)));
+            } else {
+                constraints.add(
+                        new Implies(literal, new Between(group.getLowerBound(), group.getUpperBound(), literals)));
+            }
+        }
+    }
+
+    private static String getFeatureName(IFeature feature) {
+        // TODO use better error value
+        return feature.getName().orElse("");
+    }
+
+    private static class PartialFormula {
+        private final ArrayList<IFormula> constraints = new ArrayList<>();
+        private final ArrayList<Variable> variables = new ArrayList<>();
+
+        private void append(PartialFormula other) {
+            constraints.addAll(other.constraints);
+            variables.addAll(other.variables);
+        }
+    }
+
+    /**
+     * Computes the constraints of a range of sibling subtrees in pre-order.
+     * Ranges are split in halves and subtrees are split into their children up to {@link #PARALLEL_SPLIT_DEPTH},
+     * partial results are merged in the order of the sequential traversal.
+     */
+    private static class TreeConstraintsTask extends RecursiveTask<PartialFormula> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends IFeatureTree> trees;
+        private final int from, to, depth;
+        private final Function<IFeature, String> featureNames;
+
+        private TreeConstraintsTask(
+                List<? extends IFeatureTree> trees,
+                int from,
+                int to,
+                int depth,
+                Function<IFeature, String> featureNames) {
+            this.trees = trees;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.featureNames = featureNames;
+        }
+
+        @Override
+        protected PartialFormula compute() {
+            PartialFormula partialFormula = new PartialFormula();
+            if (depth >= PARALLEL_SPLIT_DEPTH) {
+                for (int i = from; i < to; i++) {
+                    IFeatureTree subTree = trees.get(i);
+                    Trees.preOrderStream(subTree)
+                            .forEach(tree -> addTreeConstraints(
+                                    tree, featureNames, partialFormula.constraints, partialFormula.variables));
+                }
+            } else if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                TreeConstraintsTask leftTask = new TreeConstraintsTask(trees, from, middle, depth, featureNames);
+                leftTask.fork();
+                PartialFormula rightFormula = new TreeConstraintsTask(trees, middle, to, depth, featureNames).compute();
+                partialFormula.append(leftTask.join());
+                partialFormula.append(rightFormula);
+            } else if (to - from == 1) {
+                IFeatureTree tree = trees.get(from);
+                addTreeConstraints(tree, featureNames, partialFormula.constraints, partialFormula.variables);
+                List<? extends IFeatureTree> children = tree.getChildren();
+                if (!children.isEmpty()) {
+                    partialFormula.append(
+                            new TreeConstraintsTask(children, 0, children.size(), depth + 1, featureNames).compute());
+                }
+            }
+            return partialFormula;
+        }
     }
 }
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.transformer;
+
+import de.featjar.base.tree.Trees;
+import de.featjar.feature.model.Attributes;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.event.FeatureModelEvent;
+import de.featjar.feature.model.event.IFeatureModelListener;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maintains the formula of a feature model while it is being mutated.
+ * Subscribes to the changes of the feature model and caches one formula per subtree of the feature tree, that is, the
+ * conjunction of the constraints induced by the subtree's root (see {@link ComputeFormula}) and the formulas of its
+ * children.
+ * A change only recomputes the constraints of the tree nodes it affects (e.g., the group constraint of a parent whose
+ * children changed) and rebuilds the formulas of the subtrees on the path to the root, all other subtree formulas are
+ * reused.
+ * The resulting formula is equivalent to the one computed by {@link ComputeFormula}, but nested by subtree.
+ * Tree nodes are identified by identity, so only {@link FeatureModel}s are supported, whose tree nodes are stable.
+ * Call {@link #close()} to unsubscribe from the feature model.
+ */
+public class IncrementalFormula implements IFeatureModelListener, AutoCloseable {
+
+    private static class NodeFormula {
+        /**
+         * The constraints induced by the node, {@code null} if they have to be recomputed.
+         */
+        private List<IFormula> constraints;
+
+        private Variable variable;
+
+        /**
+         * The formula of the subtree of the node, {@code null} if it has to be rebuilt.
+         * Whenever it is {@code null}, so are the formulas of all ancestors.
+         */
+        private IFormula formula;
+    }
+
+    private final IMutableFeatureModel featureModel;
+
+    private final IdentityHashMap<IFeatureTree, NodeFormula> nodeFormulas = new IdentityHashMap<>();
+    private final IdentityHashMap<IFeature, IFeatureTree> featureTrees = new IdentityHashMap<>();
+
+    /**
+     * How many tree nodes have each variable, in order of their first occurrence.
+     */
+    private final LinkedHashMap<Variable, Integer> variableCounts = new LinkedHashMap<>();
+
+    /**
+     * Subtrees that have been detached or removed as root, and whose nodes are forgotten unless they are added again.
+     */
+    private final ArrayList<IFeatureTree> detachedTrees = new ArrayList<>();
+
+    /**
+     * The formula of each constraint, in the order the constraints were added.
+     */
+    private final LinkedHashMap<IConstraint, IFormula> constraintFormulas = new LinkedHashMap<>();
+
+    private LinkedHashSet<Variable> variables;
+    private IFormula constraintsFormula;
+    private IFormula formula;
+
+    /**
+     * Creates an incremental formula for a feature model and subscribes to its changes.
+     *
+     * @param featureModel the feature model
+     * @throws IllegalArgumentException if the feature model is not a {@link FeatureModel}, as other feature models,
+     *     such as a {@link de.featjar.feature.model.ConcurrentFeatureModel}, may return new tree nodes on every change
+     */
+    public IncrementalFormula(IMutableFeatureModel featureModel) {
+        Objects.requireNonNull(featureModel);
+        if (!(featureModel instanceof FeatureModel)) {
+            throw new IllegalArgumentException(String.format(
+                    "incremental formulas require a %s, not a %s",
+                    FeatureModel.class.getSimpleName(),
+                    featureModel.getClass().getSimpleName()));
+        }
+        this.featureModel = featureModel;
+        for (IConstraint constraint : featureModel.getConstraints()) {
+            constraintFormulas.put(constraint, constraint.getFormula());
+        }
+        featureModel.addListener(this);
+    }
+
+    public IMutableFeatureModel getFeatureModel() {
+        return featureModel;
+    }
+
+    /**
+     * Returns the formula of the current state of the feature model.
+     * Only the constraints of tree nodes and the subtree formulas that changed since the last call are rebuilt.
+     * The formula is a copy, so callers may modify it.
+     *
+     * @return the formula of the feature model
+     */
+    public IFormula getFormula() {
+        return Trees.clone(getCachedFormula());
+    }
+
+    /**
+     * Returns the cached formula of the current state of the feature model, which shares unchanged subtree formulas
+     * and the formulas of the constraints with later results, so it must not be modified.
+     *
+     * @return the formula of the feature model
+     */
+    IFormula getCachedFormula() {
+        if (formula == null) {
+            forgetDetachedTrees();
+            List<IFeatureTree> roots = featureModel.getRoots();
+            ArrayList<IFormula> formulas = new ArrayList<>(roots.size() + 1);
+            for (IFeatureTree root : roots) {
+                formulas.add(getFormula(root));
+            }
+            if (constraintsFormula == null) {
+                constraintsFormula = new And(new ArrayList<>(constraintFormulas.values()));
+            }
+            formulas.add(constraintsFormula);
+            if (variables == null) {
+                variables = new LinkedHashSet<>(variableCounts.keySet());
+            }
+            Reference reference = new Reference(new And(formulas));
+            reference.setFreeVariables(variables);
+            formula = reference;
+        }
+        return formula;
+    }
+
+    private IFormula getFormula(IFeatureTree tree) {
+        NodeFormula nodeFormula = nodeFormulas.computeIfAbsent(tree, key -> new NodeFormula());
+        if (nodeFormula.formula == null) {
+            if (nodeFormula.constraints == null) {
+                ArrayList<IFormula> constraints = new ArrayList<>(4);
+                ArrayList<Variable> nodeVariables = new ArrayList<>(1);
+                ComputeFormula.addTreeConstraints(tree, constraints, nodeVariables);
+                nodeFormula.constraints = constraints;
+                setVariable(nodeFormula, nodeVariables.get(0));
+                featureTrees.put(tree.getFeature(), tree);
+            }
+            List<? extends IFeatureTree> children = tree.getChildren();
+            ArrayList<IFormula> formulas = new ArrayList<>(nodeFormula.constraints.size() + children.size());
+            formulas.addAll(nodeFormula.constraints);
+            for (IFeatureTree child : children) {
+                formulas.add(getFormula(child));
+            }
+            nodeFormula.formula = new And(formulas);
+        }
+        return nodeFormula.formula;
+    }
+
+    private void setVariable(NodeFormula nodeFormula, Variable variable) {
+        if (nodeFormula.variable != null) {
+            removeVariable(nodeFormula.variable);
+        }
+        nodeFormula.variable = variable;
+        if (variableCounts.merge(variable, 1, Integer::sum) == 1) {
+            variables = null;
+        }
+    }
+
+    private void removeVariable(Variable variable) {
+        if (variableCounts.computeIfPresent(variable, (key, count) -> count == 1 ? null : count - 1) == null) {
+            variables = null;
+        }
+    }
+
+    private void forgetDetachedTrees() {
+        for (IFeatureTree tree : detachedTrees) {
+            if (!isInFeatureModel(tree)) {
+                forget(tree);
+            }
+        }
+        detachedTrees.clear();
+    }
+
+    private boolean isInFeatureModel(IFeatureTree tree) {
+        IFeatureTree root = tree;
+        for (IFeatureTree parent = tree; parent != null; parent = parent.getParent().orElse(null)) {
+            root = parent;
+        }
+        for (IFeatureTree featureTreeRoot : featureModel.getRoots()) {
+            if (featureTreeRoot == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void forget(IFeatureTree tree) {
+        NodeFormula nodeFormula = nodeFormulas.remove(tree);
+        if (nodeFormula != null && nodeFormula.variable != null) {
+            removeVariable(nodeFormula.variable);
+        }
+        if (featureTrees.get(tree.getFeature()) == tree) {
+            featureTrees.remove(tree.getFeature());
+        }
+        for (IFeatureTree child : tree.getChildren()) {
+            // children that have been moved elsewhere are still part of the feature model
+            if (child.getParent().orElse(null) == tree) {
+                forget(child);
+            }
+        }
+    }
+
+    @Override
+    public void onEvent(FeatureModelEvent event) {
+        formula = null;
+        Object source = event.getSource();
+        switch (event.getType()) {
+            case ROOT_ADDED:
+                invalidate((IFeatureTree) source);
+                break;
+            case ROOT_REMOVED:
+                detachedTrees.add((IFeatureTree) source);
+                break;
+            case TREE_NODE_MOVED:
+                invalidate((IFeatureTree) source);
+                invalidate((IFeatureTree) event.getOldValue());
+                invalidate((IFeatureTree) event.getNewValue());
+                if (event.getNewValue() == null) {
+                    detachedTrees.add((IFeatureTree) source);
+                }
+                break;
+            case GROUP_CHANGED:
+            case FEATURE_RANGE_CHANGED:
+                invalidate((IFeatureTree) source);
+                ((IFeatureTree) source).getParent().ifPresent(this::invalidate);
+                break;
+            case FEATURE_TYPE_CHANGED:
+                invalidate(featureTrees.get(source));
+                break;
+            case ATTRIBUTE_CHANGED:
+                if (source instanceof IFeature
+                        && event.getAttribute().map(Attributes.NAME::equals).orElse(false)) {
+                    IFeatureTree tree = featureTrees.get(source);
+                    if (tree != null) {
+                        // the name occurs in the constraints of the node, its parent, and its children
+                        invalidate(tree);
+                        tree.getParent().ifPresent(this::invalidate);
+                        tree.getChildren().forEach(this::invalidate);
+                    }
+                }
+                break;
+            case CONSTRAINT_ADDED:
+            case CONSTRAINT_CHANGED:
+                // a changed constraint keeps its position
+                constraintFormulas.put((IConstraint) source, ((IConstraint) source).getFormula());
+                constraintsFormula = null;
+                break;
+            case CONSTRAINT_REMOVED:
+                constraintFormulas.remove(source);
+                constraintsFormula = null;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void invalidate(IFeatureTree tree) {
+        if (tree == null) {
+            return;
+        }
+        NodeFormula nodeFormula = nodeFormulas.get(tree);
+        if (nodeFormula != null) {
+            nodeFormula.constraints = null;
+        }
+        // rebuild the formulas on the path to the root, up to the first one that is rebuilt anyway
+        for (; tree != null; tree = tree.getParent().orElse(null)) {
+            nodeFormula = nodeFormulas.get(tree);
+            if (nodeFormula != null) {
+                if (nodeFormula.formula == null) {
+                    break;
+                }
+                nodeFormula.formula = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        featureModel.removeListener(this);
+    }
+}
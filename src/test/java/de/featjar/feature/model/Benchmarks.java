@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+/**
+ * Timed and allocation comparisons of optimized code against the code it replaced.
+ * The factors asserted by the tests are far below the measured differences, so that they do not fail on slow machines.
+ */
+public class Benchmarks {
+
+    private static final int RUNS = 5;
+
+    private static volatile Object sink;
+
+    /**
+     * Runs the given code repeatedly and returns the fastest run.
+     * The first run warms up the JIT compiler and is not measured.
+     *
+     * @param code the code, whose result is kept so that it is not optimized away
+     * @return the run time of the fastest run in nanoseconds
+     */
+    public static long measure(Supplier<?> code) {
+        sink = code.get();
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            sink = code.get();
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+
+    /**
+     * Runs the given code once after a warm-up run and returns the bytes it allocated on the current thread.
+     * Skips the calling test if the JVM cannot measure allocations.
+     *
+     * @param code the code, whose result is kept so that it is not optimized away
+     * @return the allocated bytes
+     */
+    public static long measureAllocation(Supplier<?> code) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean, "allocations cannot be measured");
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported(), "allocations cannot be measured");
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        sink = code.get();
+        long threadId = Thread.currentThread().getId();
+        long start = allocationBean.getThreadAllocatedBytes(threadId);
+        sink = code.get();
+        return allocationBean.getThreadAllocatedBytes(threadId) - start;
+    }
+
+    /**
+     * Asserts that optimized code is faster than the code it replaced by at least the given factor.
+     *
+     * @param optimized the optimized code
+     * @param baseline the replaced code
+     * @param factor the minimum speedup
+     */
+    public static void assertFaster(Supplier<?> optimized, Supplier<?> baseline, int factor) {
+        long optimizedTime = measure(optimized);
+        long baselineTime = measure(baseline);
+        assertTrue(
+                optimizedTime * factor < baselineTime,
+                String.format(
+                        "expected a speedup of at least %d, but took %d us instead of %d us",
+                        factor, optimizedTime / 1000, baselineTime / 1000));
+    }
+
+    /**
+     * Asserts that optimized code allocates less memory than the code it replaced by at least the given factor.
+     *
+     * @param optimized the optimized code
+     * @param baseline the replaced code
+     * @param factor the minimum reduction
+     */
+    public static void assertAllocatesLess(Supplier<?> optimized, Supplier<?> baseline, int factor) {
+        long optimizedBytes = measureAllocation(optimized);
+        long baselineBytes = measureAllocation(baseline);
+        assertTrue(
+                optimizedBytes * factor < baselineBytes,
+                String.format(
+                        "expected a reduction of at least %d, but allocated %d KiB instead of %d KiB",
+                        factor, optimizedBytes / 1024, baselineBytes / 1024));
+    }
+}
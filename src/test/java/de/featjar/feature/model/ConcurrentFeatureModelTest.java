@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.feature.model.event.FeatureModelEvent;
+import de.featjar.formula.structure.Expressions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ConcurrentFeatureModel}.
+ */
+public class ConcurrentFeatureModelTest {
+
+    @Test
+    public void readersSeeConsistentSnapshots() throws Exception {
+        ConcurrentFeatureModel featureModel =
+                new ConcurrentFeatureModel(new FeatureModel(Identifiers.newCounterIdentifier()));
+        featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    int number = i;
+                    featureModel.write(model -> {
+                        // features are added in pairs, so readers must never see an odd number of children
+                        IFeatureTree root = model.getRoots().get(0);
+                        root.mutate().addFeatureBelow(model.addFeature("a" + number));
+                        root.mutate().addFeatureBelow(model.addFeature("b" + number));
+                        return null;
+                    });
+                }
+            }));
+            for (int reader = 0; reader < 3; reader++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        assertEquals(1, featureModel.getFeatures().size() % 2);
+                        assertEquals(1, featureModel.getFeatureTreeStream().count() % 2);
+                        assertEquals(0, featureModel.read(model -> model.getRoots().get(0).getChildrenCount()) % 2);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2001, featureModel.getNumberOfFeatures());
+        assertEquals(2001, featureModel.getNumberOfTreeFeatures());
+        assertTrue(featureModel.getFeatureTree("b999").isPresent());
+    }
+
+    @Test
+    public void elementsAreGuarded() {
+        FeatureModel guardedFeatureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        ConcurrentFeatureModel featureModel = new ConcurrentFeatureModel(guardedFeatureModel);
+        IFeature root = featureModel.addFeature("root");
+        IFeatureTree rootTree = featureModel.addFeatureTreeRoot(root);
+        IConstraint constraint = featureModel.addConstraint(Expressions.literal("root"));
+
+        assertSame(featureModel, root.getFeatureModel());
+        assertSame(featureModel, constraint.getFeatureModel());
+        assertSame(root, featureModel.getFeature("root").get());
+        assertSame(root, rootTree.getFeature());
+        assertTrue(featureModel.hasFeature(root));
+        assertTrue(featureModel.hasTreeFeature(root));
+        assertEquals(List.of(root), constraint.getReferencedFeatureList());
+        assertThrows(UnsupportedOperationException.class, rootTree::mutate);
+
+        long modificationCount = featureModel.getModificationCount();
+        root.mutate().setName("renamed");
+        assertEquals("renamed", guardedFeatureModel.getFeature(0).getName().get());
+        assertTrue(featureModel.getModificationCount() > modificationCount);
+        assertTrue(featureModel.getFeatureTree("renamed").isPresent());
+        assertSame(root, featureModel.getFeatureTree("renamed").get().getFeature());
+
+        constraint.mutate().addTag("tag");
+        assertTrue(guardedFeatureModel.getConstraints().iterator().next().getTags().contains("tag"));
+        assertNotSame(
+                guardedFeatureModel.getConstraints().iterator().next().getFormula(), constraint.getFormula());
+
+        IFeature feature = featureModel.addFeature("feature");
+        assertTrue(featureModel.removeFeature(feature));
+        assertFalse(guardedFeatureModel.hasFeature(feature.getIdentifier()));
+    }
+
+    @Test
+    public void listenersAreNotifiedWithGuardedElementsAfterTheWrite() {
+        ConcurrentFeatureModel featureModel =
+                new ConcurrentFeatureModel(new FeatureModel(Identifiers.newCounterIdentifier()));
+        featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        List<FeatureModelEvent> events = new ArrayList<>();
+        List<Integer> numbersOfFeatures = new ArrayList<>();
+        featureModel.addListener(event -> {
+            events.add(event);
+            // would deadlock if listeners were notified while the write lock is held
+            numbersOfFeatures.add(featureModel.getNumberOfFeatures());
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            IFeature child = featureModel.addFeature("child");
+            assertEquals(1, events.size());
+            assertEquals(FeatureModelEvent.Type.FEATURE_ADDED, events.get(0).getType());
+            assertSame(featureModel, events.get(0).getFeatureModel());
+            assertSame(child, events.get(0).getSource());
+            assertEquals(List.of(2), numbersOfFeatures);
+
+            featureModel.write(model -> model.getRoots()
+                    .get(0)
+                    .mutate()
+                    .addFeatureBelow(model.getFeature("child").get()));
+            FeatureModelEvent moved = events.stream()
+                    .filter(event -> event.getType() == FeatureModelEvent.Type.TREE_NODE_MOVED)
+                    .findFirst()
+                    .get();
+            IFeatureTree childTree = (IFeatureTree) moved.getSource();
+            assertSame(child, childTree.getFeature());
+            assertSame(featureModel.getRoots().get(0).getFeature(), ((IFeatureTree) moved.getNewValue()).getFeature());
+            assertThrows(UnsupportedOperationException.class, childTree::mutate);
+
+            events.clear();
+            featureModel.batch(model -> model.removeFeature(model.getFeature("child").get()));
+            assertEquals(FeatureModelEvent.Type.FEATURE_REMOVED, events.get(0).getType());
+            assertSame(child, events.get(0).getSource());
+        });
+    }
+
+    @Test
+    public void rootsOfSnapshotsRemoveTheirOwnGuardedRoot() {
+        FeatureModel guardedFeatureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        ConcurrentFeatureModel featureModel = new ConcurrentFeatureModel(guardedFeatureModel);
+        IFeature root = featureModel.addFeature("root");
+        IFeatureTree firstRoot = featureModel.addFeatureTreeRoot(root);
+        featureModel.addFeatureTreeRoot(root);
+        IFeatureTree secondRoot = featureModel.getRoots().get(1);
+        List<IFeatureTree> guardedRoots = new ArrayList<>(guardedFeatureModel.getRoots());
+        assertThrows(IllegalArgumentException.class, () -> featureModel.addFeatureTreeRoot(firstRoot));
+
+        // the snapshot the roots were taken from is outdated after this
+        featureModel.addFeature("other");
+        featureModel.removeFeatureTreeRoot(secondRoot);
+        assertEquals(1, guardedFeatureModel.getRoots().size());
+        assertSame(guardedRoots.get(0), guardedFeatureModel.getRoots().get(0));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link FeatureModelCache} and {@link IFeatureModel#getModificationCount()}.
+ */
+public class FeatureModelCacheTest {
+
+    @Test
+    public void valuesAreReusedUntilModification() {
+        IMutableFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        IFeature feature = featureModel.addFeature("a");
+        FeatureModelCache<Integer> cache = new FeatureModelCache<>();
+        AtomicInteger computations = new AtomicInteger();
+        Function<IFeatureModel, Integer> function = model -> computations.incrementAndGet();
+
+        assertEquals(1, (int) cache.get(featureModel, function));
+        assertEquals(1, (int) cache.get(featureModel, function));
+
+        long modificationCount = featureModel.getModificationCount();
+        feature.mutate().setName("b");
+        assertNotEquals(modificationCount, featureModel.getModificationCount());
+        assertEquals(2, (int) cache.get(featureModel, function));
+
+        featureModel.addFeatureTreeRoot(feature);
+        assertEquals(3, (int) cache.get(featureModel, function));
+        assertEquals(3, (int) cache.get(featureModel, function));
+    }
+}
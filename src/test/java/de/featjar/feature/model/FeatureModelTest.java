@@ -24,8 +24,14 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import de.featjar.base.data.Result;
 import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.feature.model.event.FeatureModelEvent;
+import de.featjar.feature.model.event.IFeatureModelListener;
 import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.Or;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -99,4 +105,361 @@ public class FeatureModelTest {
         childTree.mutate().removeFromTree();
         assertEquals(List.of(), rootFeature.getFeatureTree().get().getChildren());
     }
+
+    @Test
+    public void featureTreeIndex() {
+        IFeature rootFeature = featureModel.mutate().addFeature("root");
+        IFeature childFeature = featureModel.mutate().addFeature("child");
+        IFeatureTree rootTree = featureModel.mutate().addFeatureTreeRoot(rootFeature);
+        assertEquals(1, featureModel.getNumberOfTreeFeatures());
+        assertFalse(featureModel.hasTreeFeature(childFeature));
+        assertTrue(featureModel.getFeatureTree("child").isEmpty());
+
+        IFeatureTree childTree = rootTree.mutate().addFeatureBelow(childFeature);
+        assertEquals(2, featureModel.getNumberOfTreeFeatures());
+        assertTrue(featureModel.hasTreeFeature(childFeature));
+        assertSame(childTree, featureModel.getFeatureTree("child").get());
+        assertSame(childFeature, featureModel.getTreeFeature(childFeature.getIdentifier()).get());
+        assertEquals(List.of(rootFeature, childFeature), new ArrayList<>(featureModel.getTreeFeatures()));
+
+        childFeature.mutate().setName("renamed");
+        assertTrue(featureModel.getTreeFeature("child").isEmpty());
+        assertSame(childFeature, featureModel.getTreeFeature("renamed").get());
+
+        childTree.mutate().removeFromTree();
+        assertEquals(1, featureModel.getNumberOfTreeFeatures());
+        assertTrue(featureModel.getFeatureTree(childFeature).isEmpty());
+    }
+
+    @Test
+    public void featureModelClone() {
+        FeatureModel original = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeature rootFeature = original.mutate().addFeature("root");
+        IFeature childFeature = original.mutate().addFeature("child");
+        IFeatureTree childTree =
+                original.mutate().addFeatureTreeRoot(rootFeature).mutate().addFeatureBelow(childFeature);
+        original.mutate().addConstraint(Expressions.literal("child"));
+
+        for (FeatureModel clone : List.of(original.clone(), original.cloneCopyOnWrite())) {
+            IFeature clonedChildFeature = clone.getFeature("child").get();
+            IFeatureTree clonedChildTree = clone.getFeatureTree("child").get();
+            assertNotSame(childFeature, clonedChildFeature);
+            assertSame(clonedChildFeature, clonedChildTree.getFeature());
+            assertEquals(original.indexOf(childFeature), clone.indexOf(clonedChildFeature));
+            assertEquals(
+                    List.of(clonedChildFeature),
+                    clone.getConstraints().iterator().next().getReferencedFeatureList());
+
+            clonedChildFeature.mutate().setName("renamed");
+            clonedChildTree.mutate().setMandatory();
+            clonedChildTree.mutate().setAlternative();
+            assertEquals(Result.of("child"), childFeature.getName());
+            assertFalse(childTree.isMandatory());
+            assertTrue(childTree.getGroup().isAnd());
+            assertTrue(clonedChildTree.isMandatory());
+            assertTrue(clonedChildTree.getGroup().isAlternative());
+        }
+
+        FeatureModel clone = original.cloneCopyOnWrite();
+        childFeature.mutate().setName("renamed");
+        childTree.mutate().setMandatory();
+        assertEquals(Result.of("child"), clone.getFeature("child").get().getName());
+        assertFalse(clone.getFeatureTree("child").get().isMandatory());
+    }
+
+    @Test
+    public void copyOnWriteCloneIsCheaperThanClone() {
+        FeatureModel original = (FeatureModel) featureModel;
+        IFeatureTree root = original.mutate().addFeatureTreeRoot(original.mutate().addFeature("root"));
+        for (int i = 0; i < 5000; i++) {
+            root.mutate().addFeatureBelow(original.mutate().addFeature("f" + i));
+        }
+        for (int i = 0; i < 5000; i++) {
+            List<IFormula> literals = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                literals.add(Expressions.literal("f" + (i + j) % 5000));
+            }
+            original.mutate().addConstraint(new Or(literals));
+        }
+        Supplier<FeatureModel> cloneAndEdit = () -> edit(original.clone());
+        Supplier<FeatureModel> cloneCopyOnWriteAndEdit = () -> edit(original.cloneCopyOnWrite());
+
+        assertEquals(cloneAndEdit.get().getContentHash(), cloneCopyOnWriteAndEdit.get().getContentHash());
+        Benchmarks.assertFaster(cloneCopyOnWriteAndEdit, cloneAndEdit, 1);
+        Benchmarks.assertAllocatesLess(cloneCopyOnWriteAndEdit, cloneAndEdit, 2);
+    }
+
+    private static FeatureModel edit(FeatureModel featureModel) {
+        featureModel.getFeature("f0").get().mutate().setName("renamed");
+        featureModel.getFeatureTree("f1").get().mutate().setMandatory();
+        featureModel.getConstraints().iterator().next().mutate().setFormula(Expressions.literal("f2"));
+        return featureModel;
+    }
+
+    @Test
+    public void copyOnWriteCloneDoesNotDropReferencedFeatures() {
+        FeatureModel original = (FeatureModel) featureModel;
+        original.mutate().addFeature("a");
+        IFeature featureB = original.mutate().addFeature("b");
+        original.mutate().addConstraint(new Or(Expressions.literal("a"), Expressions.literal("b")));
+
+        FeatureModel clone = original.cloneCopyOnWrite();
+        assertEquals(
+                List.of(clone.getFeature("a").get(), clone.getFeature("b").get()),
+                clone.getConstraints().iterator().next().getReferencedFeatureList());
+
+        original.mutate().removeFeature(featureB);
+        assertThrows(RuntimeException.class, original::clone);
+        assertThrows(RuntimeException.class, original::cloneCopyOnWrite);
+    }
+
+    @Test
+    public void nameIndexIsFasterThanScanningFeatures() {
+        for (int i = 0; i < 20000; i++) {
+            featureModel.mutate().addFeature("f" + i);
+        }
+        // the last features are the worst case for a scan
+        List<String> names = new ArrayList<>();
+        for (int i = 19900; i < 20000; i++) {
+            names.add("f" + i);
+        }
+        Supplier<List<Result<IFeature>>> indexLookup =
+                () -> names.stream().map(featureModel::getFeature).collect(Collectors.toList());
+        // the lookup before the name index was added
+        Supplier<List<Result<IFeature>>> scanLookup = () -> names.stream()
+                .map(name -> Result.ofOptional(featureModel.getFeatures().stream()
+                        .filter(feature -> feature.getName().valueEquals(name))
+                        .findFirst()))
+                .collect(Collectors.toList());
+        assertEquals(
+                scanLookup.get().stream().map(Result::get).collect(Collectors.toList()),
+                indexLookup.get().stream().map(Result::get).collect(Collectors.toList()));
+        Benchmarks.assertFaster(indexLookup, scanLookup, 10);
+    }
+
+    @Test
+    public void batch() {
+        IConstraint[] constraint = new IConstraint[1];
+        featureModel.mutate().batch(model -> {
+            constraint[0] = model.addConstraint(new Or(Expressions.literal("a"), Expressions.literal("b")));
+            model.addFeature("a");
+            IFeature feature = model.addFeature("c");
+            feature.mutate().setAttributeValue(Attributes.NAME, "b");
+            model.removeFeature(model.addFeature("b2"));
+        });
+        IFeature featureA = featureModel.getFeature("a").get();
+        IFeature featureB = featureModel.getFeature("b").get();
+        assertEquals(List.of(featureA, featureB), constraint[0].getReferencedFeatureList());
+        assertEquals(Set.of(constraint[0]), featureB.getReferencingConstraints());
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> featureModel.mutate().batch(model -> featureA.mutate().setAttributeValue(Attributes.NAME, "b")));
+    }
+
+    @Test
+    public void batchRevertsDuplicateNames() {
+        IFeature featureA = featureModel.mutate().addFeature("a");
+        IFeature featureB = featureModel.mutate().addFeature("b");
+        featureModel.mutate().batch(model -> {
+            featureA.mutate().setAttributeValue(Attributes.NAME, "b");
+            featureB.mutate().setAttributeValue(Attributes.NAME, "a");
+        });
+        assertEquals(Result.of(featureB), featureModel.getFeature("a"));
+        assertEquals(Result.of(featureA), featureModel.getFeature("b"));
+
+        IConstraint[] constraint = new IConstraint[1];
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> featureModel.mutate().batch(model -> {
+                    featureA.mutate().setAttributeValue(Attributes.NAME, "c");
+                    featureB.mutate().setAttributeValue(Attributes.NAME, "c");
+                    constraint[0] = model.addConstraint(Expressions.literal("b"));
+                }));
+        assertEquals(Result.of("b"), featureA.getName());
+        assertEquals(Result.of("a"), featureB.getName());
+        assertTrue(featureModel.getFeature("c").isEmpty());
+        assertEquals(List.of(featureA), constraint[0].getReferencedFeatureList());
+    }
+
+    @Test
+    public void batchedEvents() {
+        List<FeatureModelEvent.Type> events = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        featureModel.mutate().addListener(new IFeatureModelListener() {
+            @Override
+            public void onEvent(FeatureModelEvent event) {
+                events.add(event.getType());
+            }
+
+            @Override
+            public void onEvents(List<FeatureModelEvent> batchEvents) {
+                batchSizes.add(batchEvents.size());
+                IFeatureModelListener.super.onEvents(batchEvents);
+            }
+        });
+        IFeature featureA = featureModel.mutate().addFeature("a");
+        assertEquals(List.of(FeatureModelEvent.Type.FEATURE_ADDED), events);
+
+        events.clear();
+        featureModel.mutate().batch(model -> {
+            IFeatureTree root = model.addFeatureTreeRoot(featureA);
+            root.mutate().addFeatureBelow(model.addFeature("b")).mutate().setMandatory();
+            model.removeFeature(featureA);
+            assertTrue(events.isEmpty());
+        });
+        assertEquals(List.of(6), batchSizes);
+        assertEquals(
+                List.of(
+                        FeatureModelEvent.Type.ROOT_ADDED,
+                        FeatureModelEvent.Type.FEATURE_ADDED,
+                        FeatureModelEvent.Type.TREE_NODE_MOVED,
+                        FeatureModelEvent.Type.GROUP_CHANGED,
+                        FeatureModelEvent.Type.FEATURE_RANGE_CHANGED,
+                        FeatureModelEvent.Type.FEATURE_REMOVED),
+                events);
+    }
+
+    @Test
+    public void eventsOfEveryChangeType() {
+        List<FeatureModelEvent> events = new ArrayList<>();
+        featureModel.mutate().addListener(events::add);
+        EnumSet<FeatureModelEvent.Type> types = EnumSet.noneOf(FeatureModelEvent.Type.class);
+
+        IFeature root = featureModel.mutate().addFeature("root");
+        assertEvent(events, types, FeatureModelEvent.Type.FEATURE_ADDED, root, null, null);
+        root.mutate().setType(Integer.class);
+        root.mutate().setType(String.class);
+        assertEvent(events, types, FeatureModelEvent.Type.FEATURE_TYPE_CHANGED, root, Integer.class, String.class);
+        root.mutate().setDescription("description");
+        assertEvent(events, types, FeatureModelEvent.Type.ATTRIBUTE_CHANGED, root, null, "description");
+        assertEquals(Result.of(Attributes.DESCRIPTION), events.get(events.size() - 1).getAttribute());
+
+        IFormula formula = Expressions.literal("root");
+        IConstraint constraint = featureModel.mutate().addConstraint(formula);
+        assertEvent(events, types, FeatureModelEvent.Type.CONSTRAINT_ADDED, constraint, null, null);
+        IFormula newFormula = new Or(Expressions.literal("root"), Expressions.literal("root"));
+        constraint.mutate().setFormula(newFormula);
+        assertEvent(events, types, FeatureModelEvent.Type.CONSTRAINT_CHANGED, constraint, formula, newFormula);
+        featureModel.mutate().removeConstraint(constraint);
+        assertEvent(events, types, FeatureModelEvent.Type.CONSTRAINT_REMOVED, constraint, null, null);
+
+        IFeatureTree rootTree = featureModel.mutate().addFeatureTreeRoot(root);
+        assertEvent(events, types, FeatureModelEvent.Type.ROOT_ADDED, rootTree, null, null);
+        IFeatureTree childTree = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("child"));
+        assertEvent(events, types, FeatureModelEvent.Type.TREE_NODE_MOVED, childTree, null, rootTree);
+        rootTree.mutate().addGroup(1, 1);
+        assertEvent(events, types, FeatureModelEvent.Type.GROUP_CHANGED, rootTree, null, null);
+        childTree.mutate().setMandatory();
+        assertEvent(events, types, FeatureModelEvent.Type.FEATURE_RANGE_CHANGED, childTree, null, null);
+        featureModel.mutate().removeFeatureTreeRoot(rootTree);
+        assertEvent(events, types, FeatureModelEvent.Type.ROOT_REMOVED, rootTree, null, null);
+
+        IFeature feature = featureModel.mutate().addFeature("feature");
+        featureModel.mutate().removeFeature(feature);
+        assertEvent(events, types, FeatureModelEvent.Type.FEATURE_REMOVED, feature, null, null);
+
+        assertEquals(EnumSet.allOf(FeatureModelEvent.Type.class), types);
+    }
+
+    /**
+     * Asserts that the last change caused an event of the given type for the given source, and records its type.
+     * Values are only compared if one of the expected values is given.
+     */
+    private void assertEvent(
+            List<FeatureModelEvent> events,
+            Set<FeatureModelEvent.Type> types,
+            FeatureModelEvent.Type type,
+            Object source,
+            Object oldValue,
+            Object newValue) {
+        FeatureModelEvent event = events.stream()
+                .filter(e -> e.getType() == type && e.getSource() == source)
+                .reduce((first, second) -> second)
+                .orElse(null);
+        assertNotNull(event, String.format("no %s event for %s in %s", type, source, events));
+        assertSame(featureModel, event.getFeatureModel());
+        if (oldValue != null || newValue != null) {
+            assertEquals(oldValue, event.getOldValue());
+            assertEquals(newValue, event.getNewValue());
+        }
+        types.add(type);
+        events.clear();
+    }
+
+    @Test
+    public void featureNameIndex() {
+        IFeature feature1 = featureModel.mutate().addFeature("a");
+        IFeature feature2 = featureModel.mutate().addFeature("b");
+        Assertions.assertEquals(Result.of(feature1), featureModel.getFeature("a"));
+        feature1.mutate().setAttributeValue(Attributes.NAME, "c");
+        Assertions.assertTrue(featureModel.getFeature("a").isEmpty());
+        Assertions.assertEquals(Result.of(feature1), featureModel.getFeature("c"));
+        feature2.mutate().removeAttributeValue(Attributes.NAME);
+        Assertions.assertTrue(featureModel.getFeature("b").isEmpty());
+        Assertions.assertEquals(Result.of(feature2), featureModel.getFeature(feature2.getName().get()));
+        featureModel.mutate().removeFeature(feature1);
+        Assertions.assertTrue(featureModel.getFeature("c").isEmpty());
+
+        IFeatureModel clonedFeatureModel = featureModel.clone();
+        IFeature feature3 = featureModel.mutate().addFeature("d");
+        Assertions.assertTrue(clonedFeatureModel.getFeature("d").isEmpty());
+        clonedFeatureModel.mutate().addFeature("e");
+        Assertions.assertTrue(featureModel.getFeature("e").isEmpty());
+        feature3.mutate().setName("f");
+        Assertions.assertEquals(Result.of(feature3), featureModel.getFeature("f"));
+
+        IFeature feature4 = featureModel.mutate().addFeature("f");
+        feature3.mutate().setName("g");
+        Assertions.assertEquals(Result.of(feature4), featureModel.getFeature("f"));
+        featureModel.mutate().removeFeature(feature4);
+        Assertions.assertTrue(featureModel.getFeature("f").isEmpty());
+    }
+
+    @Test
+    public void featureIndex() {
+        IFeature feature1 = featureModel.mutate().addFeature("a");
+        IFeature feature2 = featureModel.mutate().addFeature("b");
+        IFeature feature3 = featureModel.mutate().addFeature("c");
+        Assertions.assertEquals(0, featureModel.indexOf(feature1));
+        Assertions.assertEquals(2, featureModel.indexOf(feature3));
+        assertSame(feature2, featureModel.getFeature(1));
+
+        featureModel.mutate().removeFeature(feature1);
+        Assertions.assertEquals(-1, featureModel.indexOf(feature1));
+        Assertions.assertEquals(0, featureModel.indexOf(feature3));
+        Assertions.assertEquals(1, featureModel.indexOf(feature2));
+        assertSame(feature3, featureModel.getFeature(0));
+
+        IFeatureModel clonedFeatureModel = featureModel.clone();
+        Assertions.assertEquals(-1, clonedFeatureModel.indexOf(feature3));
+        // clones get new identifiers, so the features of the clone are told apart by name
+        Assertions.assertEquals("c", clonedFeatureModel.getFeature(0).getName().get());
+        Assertions.assertEquals("b", clonedFeatureModel.getFeature(1).getName().get());
+        Assertions.assertEquals(0, clonedFeatureModel.indexOf(clonedFeatureModel.getFeature("c").get()));
+        Assertions.assertEquals(0, clonedFeatureModel.indexOf(clonedFeatureModel.getFeature(0)));
+    }
+
+    @Test
+    public void referencingConstraints() {
+        IFeature feature1 = featureModel.mutate().addFeature("a");
+        IFeature feature2 = featureModel.mutate().addFeature("b");
+        IConstraint constraint1 = featureModel.mutate().addConstraint(Expressions.literal("a"));
+        IConstraint constraint2 =
+                featureModel.mutate().addConstraint(new Or(Expressions.literal("a"), Expressions.literal("b")));
+        Assertions.assertEquals(Set.of(constraint1, constraint2), feature1.getReferencingConstraints());
+        Assertions.assertEquals(Set.of(constraint2), feature2.getReferencingConstraints());
+        Assertions.assertEquals(List.of(feature1, feature2), constraint2.getReferencedFeatureList());
+
+        constraint1.mutate().setFormula(Expressions.literal("b"));
+        Assertions.assertEquals(Set.of(constraint2), feature1.getReferencingConstraints());
+        Assertions.assertEquals(Set.of(constraint1, constraint2), feature2.getReferencingConstraints());
+
+        constraint2.mutate().setFormula(new Or(Expressions.literal("a"), Expressions.literal("a")));
+        Assertions.assertEquals(List.of(feature1), constraint2.getReferencedFeatureList());
+        Assertions.assertEquals(Set.of(constraint2), feature1.getReferencingConstraints());
+        constraint2.mutate().remove();
+        Assertions.assertEquals(Set.of(), feature1.getReferencingConstraints());
+        Assertions.assertEquals(Set.of(constraint1), feature2.getReferencingConstraints());
+    }
 }
@@ -26,6 +26,7 @@ import de.featjar.base.data.identifier.Identifiers;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.*;
 import de.featjar.formula.structure.predicate.Literal;
+import java.util.List;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -114,4 +115,114 @@ public class FeatureTest {
         // Tests grandchild for hidden feature (test1).
         assertTrue(test8.hasHiddenParent());
     }
+
+    @Test
+    public void hasHiddenParentIsUpdatedAfterMutation() {
+        FeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree rootTree =
+                featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        IFeatureTree childTree1 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("Test1"));
+        IFeatureTree childTree2 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("Test2"));
+        IFeatureTree grandChildTree = childTree1.mutate().addFeatureBelow(featureModel.mutate().addFeature("Test3"));
+        IFeature grandChild = grandChildTree.getFeature();
+
+        assertFalse(grandChild.hasHiddenParent());
+        childTree1.getFeature().mutate().setHidden(true);
+        assertTrue(grandChild.hasHiddenParent());
+
+        childTree1.mutate().removeChild(grandChildTree);
+        childTree2.mutate().addChild(grandChildTree);
+        assertFalse(grandChild.hasHiddenParent());
+
+        rootTree.getFeature().mutate().setHidden(true);
+        assertTrue(grandChild.hasHiddenParent());
+        assertTrue(childTree1.getFeature().hasHiddenParent());
+        assertFalse(rootTree.getFeature().hasHiddenParent());
+    }
+
+    @Test
+    public void groupChildrenAreUpdatedAfterMutation() {
+        FeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree rootTree =
+                featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        rootTree.mutate().addGroup(1, 1);
+        IFeatureTree childTree1 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("Test1"));
+        IFeatureTree childTree2 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("Test2"), 1, 1);
+        IFeatureTree childTree3 = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("Test3"), 2, 1);
+
+        assertEquals(List.of(childTree1), rootTree.getGroupChildren(0));
+        assertEquals(List.of(childTree2, childTree3), rootTree.getGroupChildren(1));
+        assertEquals(List.of(childTree2, childTree3), childTree3.getGroupSiblings());
+
+        childTree2.mutate().setGroupID(0);
+        assertEquals(List.of(childTree1, childTree2), rootTree.getGroupChildren(0));
+        assertEquals(List.of(childTree3), rootTree.getGroupChildren(1));
+
+        rootTree.mutate().removeChild(childTree1);
+        assertEquals(List.of(childTree2), rootTree.getGroupChildren(0));
+        assertEquals(List.of(), rootTree.getGroupChildren(2));
+    }
+
+    @Test
+    public void contentHashesFollowMutations() {
+        FeatureModel featureModel1 = new FeatureModel(Identifiers.newCounterIdentifier());
+        FeatureModel featureModel2 = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree[] trees1 = createTree(featureModel1);
+        IFeatureTree[] trees2 = createTree(featureModel2);
+        IConstraint constraint1 = featureModel1.mutate().addConstraint(new Implies(new Literal("a"), new Literal("b")));
+        featureModel2.mutate().addConstraint(new Implies(new Literal("a"), new Literal("b")));
+        assertEquals(trees1[0].getContentHash(), trees2[0].getContentHash());
+        assertEquals(constraint1.getContentHash(), featureModel2.getConstraints().iterator().next().getContentHash());
+        assertEquals(featureModel1.getContentHash(), featureModel2.getContentHash());
+        assertEquals(trees1[1].getContentHash(), trees2[1].getContentHash());
+
+        long rootHash = trees1[0].getContentHash();
+        long childHash = trees1[1].getContentHash();
+        trees1[2].mutate().setMandatory();
+        assertNotEquals(rootHash, trees1[0].getContentHash());
+        assertEquals(childHash, trees1[1].getContentHash());
+        trees2[2].mutate().setMandatory();
+        assertEquals(trees1[0].getContentHash(), trees2[0].getContentHash());
+
+        trees1[1].getFeature().mutate().setName("c");
+        assertNotEquals(trees1[1].getContentHash(), trees2[1].getContentHash());
+        assertNotEquals(featureModel1.getContentHash(), featureModel2.getContentHash());
+        trees1[1].getFeature().mutate().setName("a");
+        assertEquals(featureModel1.getContentHash(), featureModel2.getContentHash());
+
+        trees1[1].mutate().setOr();
+        assertNotEquals(trees1[0].getContentHash(), trees2[0].getContentHash());
+        long constraintHash = constraint1.getContentHash();
+        constraint1.mutate().setFormula(new Implies(new Literal("b"), new Literal("a")));
+        assertNotEquals(constraintHash, constraint1.getContentHash());
+    }
+
+    @Test
+    public void contentHashesFollowRenamesOfMovedFeatures() {
+        FeatureModel featureModel1 = new FeatureModel(Identifiers.newCounterIdentifier());
+        FeatureModel featureModel2 = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree[] trees1 = createTree(featureModel1);
+        IFeatureTree[] trees2 = createTree(featureModel2);
+        long rootHash = trees1[0].getContentHash();
+
+        // renamed twice before and after moving, with the hashes read only at the end
+        trees1[2].getFeature().mutate().setName("c");
+        trees1[1].mutate().removeChild(trees1[2]);
+        trees1[0].mutate().addChild(trees1[2]);
+        trees1[2].getFeature().mutate().setName("d");
+        trees2[2].getFeature().mutate().setName("d");
+        trees2[1].mutate().removeChild(trees2[2]);
+        trees2[0].mutate().addChild(trees2[2]);
+        assertNotEquals(rootHash, trees1[0].getContentHash());
+        assertEquals(trees2[0].getContentHash(), trees1[0].getContentHash());
+        assertEquals(trees2[2].getContentHash(), trees1[2].getContentHash());
+        assertEquals(featureModel2.getContentHash(), featureModel1.getContentHash());
+    }
+
+    private static IFeatureTree[] createTree(FeatureModel featureModel) {
+        IFeatureTree rootTree = featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        IFeatureTree childTree = rootTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("a"));
+        IFeatureTree grandchildTree = childTree.mutate().addFeatureBelow(featureModel.mutate().addFeature("b"));
+        return new IFeatureTree[] {rootTree, childTree, grandchildTree};
+    }
 }
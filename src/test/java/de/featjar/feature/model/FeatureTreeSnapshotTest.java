@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.Identifiers;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link FeatureTreeSnapshot}.
+ */
+public class FeatureTreeSnapshotTest {
+
+    @Test
+    public void snapshotMatchesFeatureTree() {
+        IFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree root = featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        IFeatureTree a = root.mutate().addFeatureBelow(featureModel.mutate().addFeature("a"));
+        IFeatureTree b = root.mutate().addFeatureBelow(featureModel.mutate().addFeature("b"));
+        IFeatureTree c = b.mutate().addFeatureBelow(featureModel.mutate().addFeature("c"));
+        IFeatureTree d = b.mutate().addFeatureBelow(featureModel.mutate().addFeature("d"));
+        a.mutate().setMandatory();
+        b.mutate().setAlternative();
+
+        FeatureTreeSnapshot snapshot = FeatureTreeSnapshot.of(featureModel);
+        assertEquals(5, snapshot.getNumberOfNodes());
+        assertEquals(
+                featureModel.getFeatureTreeStream().map(IFeatureTree::getFeature).collect(Collectors.toList()),
+                snapshot.getFeatureTreeStream().map(IFeatureTree::getFeature).collect(Collectors.toList()));
+        assertEquals(List.of(root.getFeature()), snapshot.getRootFeatures());
+        assertEquals(root.getContentHash(), snapshot.getRoots().get(0).getContentHash());
+
+        int rootIndex = snapshot.getRoot(0);
+        int aIndex = snapshot.indexOf(a.getFeature());
+        int bIndex = snapshot.indexOf(b.getFeature());
+        int cIndex = snapshot.indexOf(c.getFeature());
+        int dIndex = snapshot.indexOf(d.getFeature());
+        assertEquals(-1, snapshot.getParent(rootIndex));
+        assertEquals(aIndex, snapshot.getFirstChild(rootIndex));
+        assertEquals(bIndex, snapshot.getNextSibling(aIndex));
+        assertEquals(-1, snapshot.getNextSibling(bIndex));
+        assertEquals(bIndex, snapshot.getParent(dIndex));
+        assertEquals(dIndex, snapshot.getNextSibling(cIndex));
+        assertEquals(-1, snapshot.getFirstChild(aIndex));
+        assertEquals(snapshot.getNumberOfNodes(), snapshot.getSubtreeEnd(bIndex));
+        assertEquals(bIndex, snapshot.getSubtreeEnd(aIndex));
+
+        assertTrue(snapshot.isMandatory(aIndex));
+        assertTrue(snapshot.isOptional(bIndex));
+        assertEquals(1, snapshot.getNumberOfGroups(bIndex));
+        assertEquals(1, snapshot.getGroupLowerBound(bIndex, snapshot.getGroupID(cIndex)));
+        assertEquals(1, snapshot.getGroupUpperBound(bIndex, snapshot.getGroupID(cIndex)));
+        assertEquals(Result.of(c.getFeature()), snapshot.getFeatureTree("c").map(IFeatureTree::getFeature));
+        assertEquals(Result.of(d.getFeature()), snapshot.getTreeFeature(d.getFeature().getIdentifier()));
+        assertEquals(5, snapshot.getNumberOfTreeFeatures());
+
+        featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("other"));
+        assertEquals(5, snapshot.getNumberOfNodes());
+    }
+
+    @Test
+    public void snapshotIsNotAffectedByLaterChanges() {
+        IFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree root = featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        IFeatureTree a = root.mutate().addFeatureBelow(featureModel.mutate().addFeature("a"));
+        IFeatureTree b = root.mutate().addFeatureBelow(featureModel.mutate().addFeature("b"));
+
+        FeatureTreeSnapshot snapshot = FeatureTreeSnapshot.of(featureModel);
+        IFeatureTree aNode = snapshot.getFeatureTree("a").get();
+        assertNotSame(a, aNode);
+        assertThrows(UnsupportedOperationException.class, aNode::mutate);
+
+        a.mutate().setMandatory();
+        b.mutate().removeFromTree();
+        a.getFeature().mutate().setName("renamed");
+        assertTrue(aNode.isOptional());
+        assertEquals(2, aNode.getParent().get().getChildrenCount());
+        assertEquals(Result.of(a.getFeature()), snapshot.getTreeFeature("a"));
+        assertTrue(snapshot.getFeatureTree("renamed").isEmpty());
+    }
+}
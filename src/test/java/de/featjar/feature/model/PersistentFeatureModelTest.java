@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.IIdentifier;
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.connective.Implies;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link PersistentFeatureModel}.
+ */
+public class PersistentFeatureModelTest {
+
+    @Test
+    public void versionsAreIndependent() {
+        FeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeature root = featureModel.mutate().addFeature("root");
+        IFeature a = featureModel.mutate().addFeature("a");
+        featureModel.mutate().addFeatureTreeRoot(root).mutate().addFeatureBelow(a);
+        featureModel.mutate().addConstraint(Expressions.literal("a"));
+
+        PersistentFeatureModel version0 = PersistentFeatureModel.of(featureModel);
+        assertEquals(2, version0.getNumberOfFeatures());
+        assertEquals(1, version0.getNumberOfConstraints());
+        assertEquals(List.of(a.getIdentifier()), version0.getRoots().get(0).getChildIdentifiers());
+
+        IIdentifier b = featureModel.getNewIdentifier();
+        PersistentFeatureModel version1 = version0.addFeature(b, "b")
+                .addFeatureBelow(root.getIdentifier(), b, 0, 0)
+                .setFeatureRange(b, Range.exactly(1))
+                .setFeatureName(a.getIdentifier(), "renamed");
+        assertEquals(4, version1.getVersion());
+        assertEquals(List.of(b, a.getIdentifier()), version1.getRoots().get(0).getChildIdentifiers());
+        assertEquals(1, version1.getFeatureTree(b).get().getFeatureRangeLowerBound());
+        assertEquals(Result.of("renamed"), version1.getFeature(a.getIdentifier()).get().getName());
+        assertTrue(version1.getFeature("a").isEmpty());
+
+        assertEquals(0, version0.getVersion());
+        assertFalse(version0.hasFeature(b));
+        assertFalse(version0.hasTreeFeature(b));
+        assertEquals(Result.of("a"), version0.getFeature(a.getIdentifier()).get().getName());
+
+        PersistentFeatureModel version2 = version1.removeFeatureTree(root.getIdentifier());
+        assertEquals(0, version2.getNumberOfTreeFeatures());
+        assertEquals(3, version1.getNumberOfTreeFeatures());
+    }
+
+    @Test
+    public void featureModelView() {
+        FeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree root = featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        root.mutate().setAlternative();
+        IFeature a = featureModel.mutate().addFeature("a");
+        root.mutate().addFeatureBelow(a);
+        root.mutate().addFeatureBelow(featureModel.mutate().addFeature("b"));
+        featureModel.mutate().addConstraint(new Implies(Expressions.literal("a"), Expressions.literal("b")));
+
+        PersistentFeatureModel version0 = PersistentFeatureModel.of(featureModel);
+        IFeatureModel view0 = version0.asFeatureModel();
+        assertSame(view0, version0.asFeatureModel());
+        assertEquals(featureModel.getContentHash(), view0.getContentHash());
+        assertEquals(
+                featureModel.getFeatureTreeStream()
+                        .map(tree -> tree.getFeature().getName().get() + tree.getGroups() + tree.isMandatory())
+                        .collect(Collectors.toList()),
+                view0.getFeatureTreeStream()
+                        .map(tree -> tree.getFeature().getName().get() + tree.getGroups() + tree.isMandatory())
+                        .collect(Collectors.toList()));
+        IFeature aView = view0.getFeature("a").get();
+        assertSame(aView, view0.getFeature(a.getIdentifier()).get());
+        assertSame(aView, view0.getFeature(view0.indexOf(aView)));
+        assertSame(view0.getRoots().get(0), aView.getFeatureTree().get().getParent().get());
+        assertEquals(
+                List.of(aView, view0.getFeature("b").get()),
+                view0.getConstraints().iterator().next().getReferencedFeatureList());
+
+        PersistentFeatureModel version1 = version0.setFeatureName(a.getIdentifier(), "renamed");
+        assertEquals(Result.of("a"), aView.getName());
+        assertEquals(
+                Result.of("renamed"),
+                version1.asFeatureModel().getFeature(a.getIdentifier()).get().getName());
+
+        assertThrows(UnsupportedOperationException.class, view0::mutate);
+        assertThrows(UnsupportedOperationException.class, aView::mutate);
+        assertThrows(UnsupportedOperationException.class, () -> aView.getFeatureTree().get().mutate());
+        assertEquals(featureModel.getContentHash(), view0.clone().getContentHash());
+    }
+
+    @Test
+    public void toFeatureModel() {
+        FeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree root = featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("root"));
+        root.mutate().addGroup(1, 1);
+        root.mutate().addFeatureBelow(featureModel.mutate().addFeature("a")).mutate().setMandatory();
+        root.mutate().addFeatureBelow(featureModel.mutate().addFeature("b"), 1, 1);
+        root.mutate().addFeatureBelow(featureModel.mutate().addFeature("c"), 2, 1);
+        featureModel.mutate().addConstraint(Expressions.literal("a"));
+
+        FeatureModel copy = PersistentFeatureModel.of(featureModel).toFeatureModel();
+        assertEquals(
+                List.of("root", "a", "b", "c"),
+                copy.getFeatureTreeStream()
+                        .map(tree -> tree.getFeature().getName().get())
+                        .collect(Collectors.toList()));
+        IFeatureTree copiedRoot = copy.getRoots().get(0);
+        assertEquals(2, copiedRoot.getGroups().size());
+        assertTrue(copiedRoot.getGroups().get(1).isAlternative());
+        assertTrue(copy.getFeatureTree("a").get().isMandatory());
+        assertEquals(1, copy.getFeatureTree("c").get().getGroupID());
+        assertEquals(
+                List.of(copy.getFeature("a").get()),
+                copy.getConstraints().iterator().next().getReferencedFeatureList());
+    }
+}
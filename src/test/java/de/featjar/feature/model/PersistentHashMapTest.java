@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link PersistentHashMap}.
+ */
+public class PersistentHashMapTest {
+
+    private static final class Key {
+        private final int value;
+
+        private Key(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            // forces collisions
+            return value % 100;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).value == value;
+        }
+    }
+
+    @Test
+    public void behavesLikeHashMap() {
+        Random random = new Random(1);
+        Map<Key, Integer> expected = new HashMap<>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            Key key = new Key(random.nextInt(2000));
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int i = 0; i < 2000; i++) {
+            Key key = new Key(i);
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        Map<Key, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void updatesDoNotChangePreviousVersions() {
+        PersistentHashMap<String, Integer> map1 = PersistentHashMap.<String, Integer>empty().put("a", 1);
+        PersistentHashMap<String, Integer> map2 = map1.put("b", 2);
+        PersistentHashMap<String, Integer> map3 = map2.put("a", 3).remove("b");
+        assertEquals(1, map1.size());
+        assertNull(map1.get("b"));
+        assertEquals(2, map2.get("b"));
+        assertEquals(1, map2.get("a"));
+        assertEquals(3, map3.get("a"));
+        assertFalse(map3.containsKey("b"));
+        assertSame(map3, map3.remove("b"));
+    }
+}
@@ -22,13 +22,24 @@ package de.featjar.feature.model.configuration;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import de.featjar.base.data.Result;
 import de.featjar.base.data.identifier.Identifiers;
 import de.featjar.feature.model.FeatureModel;
 import de.featjar.feature.model.IFeature;
 import de.featjar.feature.model.IFeatureTree;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.*;
 import de.featjar.formula.structure.predicate.Literal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeAll;
@@ -198,6 +209,219 @@ public class ConfigurationTest {
                 clonedConfiguration.getSelectableFeature("Test7").getSelection());
     }
 
+    @Test
+    public void testSelectableFeatureByIndexAfterRemoval() {
+        FeatureModel indexedFeatureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree rootTree = indexedFeatureModel
+                .mutate()
+                .addFeatureTreeRoot(indexedFeatureModel.mutate().addFeature("root"));
+        IFeature a = indexedFeatureModel.mutate().addFeature("A");
+        rootTree.mutate().addFeatureBelow(a);
+        IFeature b = indexedFeatureModel.mutate().addFeature("B");
+        rootTree.mutate().addFeatureBelow(b);
+        IFeature c = indexedFeatureModel.mutate().addFeature("C");
+        rootTree.mutate().addFeatureBelow(c);
+
+        Configuration indexedConfiguration = new Configuration(indexedFeatureModel);
+        indexedConfiguration.setManual("C", Selection.SELECTED);
+        assertEquals(
+                "A",
+                indexedConfiguration
+                        .getSelectableFeature(indexedFeatureModel.indexOf(a))
+                        .getName());
+
+        indexedFeatureModel.mutate().removeFeature(a);
+        SelectableFeature selectableFeature = indexedConfiguration.getSelectableFeature(indexedFeatureModel.indexOf(c));
+        assertEquals("C", selectableFeature.getName());
+        assertEquals(Selection.SELECTED, selectableFeature.getManual());
+        assertEquals(
+                "B",
+                indexedConfiguration
+                        .getSelectableFeature(indexedFeatureModel.indexOf(b))
+                        .getName());
+    }
+
+    private static FeatureModel createConverterFeatureModel() {
+        FeatureModel converterFeatureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree rootTree = converterFeatureModel
+                .mutate()
+                .addFeatureTreeRoot(converterFeatureModel.mutate().addFeature("root"));
+        for (String name : List.of("A", "B", "C")) {
+            rootTree.mutate().addFeatureBelow(converterFeatureModel.mutate().addFeature(name));
+        }
+        return converterFeatureModel;
+    }
+
+    @Test
+    public void testBooleanAssignmentConversion() {
+        FeatureModel converterFeatureModel = createConverterFeatureModel();
+        BooleanAssignmentConverter converter =
+                new BooleanAssignmentConverter(converterFeatureModel, new VariableMap(List.of("C", "A", "root", "B")));
+
+        Configuration testConfiguration = new Configuration(converterFeatureModel);
+        testConfiguration.setManual("root", Selection.SELECTED);
+        testConfiguration.setManual("A", Selection.UNSELECTED);
+        testConfiguration.setAutomatic("C", Selection.SELECTED);
+        BooleanAssignment booleanAssignment = converter.toBooleanAssignment(testConfiguration);
+        assertEquals(Set.of(3, -2, 1), Arrays.stream(booleanAssignment.get()).boxed().collect(Collectors.toSet()));
+
+        Configuration convertedConfiguration = converter.toConfiguration(booleanAssignment);
+        for (SelectableFeature selectableFeature : testConfiguration.getFeatures()) {
+            assertEquals(
+                    selectableFeature.getSelection(),
+                    convertedConfiguration
+                            .getSelectableFeature(selectableFeature.getName())
+                            .getSelection());
+        }
+
+        CompactConfiguration compactConfiguration = CompactConfiguration.of(testConfiguration);
+        CompactConfiguration convertedCompactConfiguration =
+                converter.toCompactConfiguration(converter.toBooleanAssignment(compactConfiguration));
+        for (int i = 0; i < compactConfiguration.getNumberOfFeatures(); i++) {
+            assertEquals(compactConfiguration.getSelection(i), convertedCompactConfiguration.getSelection(i));
+        }
+    }
+
+    @Test
+    public void testBooleanAssignmentConversionAfterRemoval() {
+        FeatureModel converterFeatureModel = createConverterFeatureModel();
+        BooleanAssignmentConverter converter =
+                new BooleanAssignmentConverter(converterFeatureModel, new VariableMap(List.of("root", "A", "B", "C")));
+        IFeature a = converterFeatureModel.getFeature("A").get();
+        assertEquals(converterFeatureModel.indexOf(a), converter.getFeatureIndex(2));
+        assertEquals(3, converter.getFeatureIndex(4));
+
+        converterFeatureModel.mutate().removeFeature(a);
+        assertEquals(
+                converterFeatureModel.indexOf(converterFeatureModel.getFeature("C").get()),
+                converter.getFeatureIndex(4));
+        assertThrows(FeatureNotFoundException.class, () -> converter.getFeatureIndex(2));
+        IllegalArgumentException exception =
+                assertThrows(IllegalArgumentException.class, () -> converter.getFeatureIndex(5));
+        assertTrue(exception.getMessage().contains("variable 5"), exception.getMessage());
+    }
+
+    @Test
+    public void testCompactConfigurationConversion() {
+        Configuration testConfiguration = configuration.clone();
+        testConfiguration.setManual("root", Selection.SELECTED);
+        testConfiguration.setAutomatic("Test1", Selection.SELECTED);
+        testConfiguration.setManual("Test2", Selection.SELECTED);
+        testConfiguration.setAutomatic("Test3", Selection.UNSELECTED);
+        testConfiguration.setManual("Test4", Selection.UNSELECTED);
+
+        CompactConfiguration compactConfiguration = CompactConfiguration.of(testConfiguration);
+        assertEquals(testConfiguration.getSelectedFeatureNames(), compactConfiguration.getSelectedFeatureNames());
+        assertEquals(testConfiguration.getUnselectedFeatureNames(), compactConfiguration.getUnselectedFeatureNames());
+        assertEquals(testConfiguration.getUndefinedFeatureNames(), compactConfiguration.getUndefinedFeatureNames());
+        assertEquals(testConfiguration.getSelectedFeatures(), compactConfiguration.getSelectedFeatures());
+        assertThrows(
+                AutomaticalSelectionNotPossibleException.class,
+                () -> compactConfiguration.setAutomatic("Test2", Selection.UNSELECTED));
+
+        Configuration convertedConfiguration = compactConfiguration.toConfiguration();
+        for (SelectableFeature selectableFeature : testConfiguration.getFeatures()) {
+            SelectableFeature convertedFeature =
+                    convertedConfiguration.getSelectableFeature(selectableFeature.getName());
+            assertEquals(selectableFeature.getManual(), convertedFeature.getManual());
+            assertEquals(selectableFeature.getAutomatic(), convertedFeature.getAutomatic());
+        }
+
+        testConfiguration.makeManual(true);
+        compactConfiguration.makeManual(true);
+        assertEquals(CompactConfiguration.of(testConfiguration), compactConfiguration);
+
+        compactConfiguration.resetValues();
+        assertEquals(featureModel.getNumberOfFeatures(), compactConfiguration.getUndefinedFeatureNames().size());
+    }
+
+    @Test
+    public void testFeatureIDEFormatStreaming() throws IOException {
+        Configuration testConfiguration1 = configuration.clone();
+        testConfiguration1.setManual("root", Selection.SELECTED);
+        testConfiguration1.setAutomatic("Test3", Selection.UNSELECTED);
+        Configuration testConfiguration2 = configuration.clone();
+        testConfiguration2.setManual("Test4", Selection.UNSELECTED);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (FeatureIDEFormatWriter writer = new FeatureIDEFormatWriter(outputStream)) {
+            writer.write(testConfiguration1);
+            writer.write(CompactConfiguration.of(testConfiguration2));
+        }
+        assertTrue(new String(outputStream.toByteArray(), StandardCharsets.UTF_8)
+                .startsWith(new FeatureIDEFormat().serialize(testConfiguration1).get()));
+
+        List<Result<Configuration>> configurations = new FeatureIDEFormatReader(featureModel)
+                .readAll(new InputStreamReader(
+                        new ByteArrayInputStream(outputStream.toByteArray()), StandardCharsets.UTF_8));
+        assertEquals(2, configurations.size());
+        assertTrue(configurations.get(0).getProblems().isEmpty());
+        assertEquals(CompactConfiguration.of(testConfiguration1), CompactConfiguration.of(configurations.get(0).get()));
+        assertEquals(CompactConfiguration.of(testConfiguration2), CompactConfiguration.of(configurations.get(1).get()));
+
+        List<Result<Configuration>> invalidConfigurations = new FeatureIDEFormatReader(featureModel)
+                .readAll(new StringReader("11root\n22Unknown\n32Test1\n"));
+        assertEquals(1, invalidConfigurations.size());
+        assertEquals(2, invalidConfigurations.get(0).getProblems().size());
+        assertEquals(
+                Selection.SELECTED,
+                invalidConfigurations.get(0).get().getSelectableFeature("root").getSelection());
+    }
+
+    @Test
+    public void testFeatureIDEFormatAfterRemoval() throws IOException {
+        FeatureModel changingFeatureModel = createConverterFeatureModel();
+        FeatureIDEFormatReader reader = new FeatureIDEFormatReader(changingFeatureModel);
+        CompactConfiguration compactConfiguration = new CompactConfiguration(changingFeatureModel);
+
+        changingFeatureModel
+                .mutate()
+                .removeFeature(changingFeatureModel.getFeature("A").get());
+        List<Result<Configuration>> configurations = reader.readAll(new StringReader("11C\n10A\n"));
+        assertEquals(1, configurations.size());
+        assertEquals(1, configurations.get(0).getProblems().size());
+        assertEquals(
+                Selection.SELECTED,
+                configurations.get(0).get().getSelectableFeature("C").getSelection());
+
+        FeatureIDEFormatWriter writer = new FeatureIDEFormatWriter(new ByteArrayOutputStream());
+        assertThrows(IllegalStateException.class, () -> writer.write(compactConfiguration));
+        Configuration unnamedConfiguration = new Configuration(changingFeatureModel);
+        unnamedConfiguration.getSelectableFeature("", true);
+        assertThrows(IllegalArgumentException.class, () -> writer.write(unnamedConfiguration));
+    }
+
+    @Test
+    public void testBinarySampleSet() throws IOException {
+        Configuration testConfiguration1 = configuration.clone();
+        testConfiguration1.setManual("root", Selection.SELECTED);
+        testConfiguration1.setAutomatic("Test3", Selection.UNSELECTED);
+        Configuration testConfiguration2 = configuration.clone();
+        testConfiguration2.setManual("Test4", Selection.UNSELECTED);
+
+        Path sampleSetFile = Files.createTempFile("samples", ".bin");
+        try {
+            try (BinarySampleSetWriter writer = BinarySampleSetWriter.append(sampleSetFile, featureModel)) {
+                writer.write(testConfiguration1);
+            }
+            try (BinarySampleSetWriter writer = BinarySampleSetWriter.append(sampleSetFile, featureModel)) {
+                writer.write(testConfiguration2);
+                writer.write(configuration);
+            }
+            MappedSampleSet sampleSet = MappedSampleSet.map(sampleSetFile, featureModel);
+            assertEquals(3, sampleSet.size());
+            assertEquals(CompactConfiguration.of(testConfiguration1), sampleSet.get(0));
+            assertEquals(CompactConfiguration.of(testConfiguration2), sampleSet.get(1));
+            assertEquals(CompactConfiguration.of(configuration), sampleSet.get(2));
+            assertEquals(
+                    testConfiguration1.getSelectedFeatureNames(),
+                    sampleSet.getConfiguration(0).getSelectedFeatureNames());
+            assertThrows(IndexOutOfBoundsException.class, () -> sampleSet.get(3));
+        } finally {
+            Files.deleteIfExists(sampleSetFile);
+        }
+    }
+
     @Test
     public void testSelectionAttributesSetterAndGetterOfAutomaticAndManual() {
         SelectableFeature testFeature = new SelectableFeature("testFeature");
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.data.Attribute;
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.base.io.input.FileInputMapper;
+import de.featjar.feature.model.Attributes;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.binary.BinaryFeatureModelFormat;
+import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.predicate.Literal;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class BinaryFeatureModelFormatTest {
+
+    @Test
+    void binaryFormatRoundTrip() throws IOException {
+        Path xmlFile = Path.of("src", "test", "resources", "xml", "car.xml");
+        IFeatureModel parsedFeatureModel = new XMLFeatureModelFormat()
+                .parse(new FileInputMapper(xmlFile, StandardCharsets.UTF_8))
+                .get();
+
+        IFeatureModel mappedFeatureModel = writeAndMap(parsedFeatureModel);
+        assertEquals(
+                new XMLFeatureModelFormat().serialize(parsedFeatureModel).get(),
+                new XMLFeatureModelFormat().serialize(mappedFeatureModel).get());
+    }
+
+    @Test
+    void constraintTagsAreKept() throws IOException {
+        FeatureModel featureModel = createFeatureModel();
+        IConstraint constraint =
+                featureModel.mutate().addConstraint(new Implies(new Literal("A"), new Literal("B")));
+        constraint.mutate().setTags(new LinkedHashSet<>(List.of("first", "second")));
+
+        IFeatureModel mappedFeatureModel = writeAndMap(featureModel);
+        assertEquals(
+                new LinkedHashSet<>(List.of("first", "second")),
+                mappedFeatureModel.getConstraints().iterator().next().getTags());
+    }
+
+    @Test
+    void unnamedFeaturesStayUnnamed() throws IOException {
+        FeatureModel featureModel = createFeatureModel();
+        featureModel.getFeature("B").get().mutate().removeAttributeValue(Attributes.NAME);
+
+        IFeatureModel mappedFeatureModel = writeAndMap(featureModel);
+        IFeature mappedFeature = mappedFeatureModel.getRoots().get(0).getChildren().get(1).getFeature();
+        assertFalse(mappedFeature.getAttributes().orElse(Map.of()).containsKey(Attributes.NAME));
+        assertEquals(Result.of("@" + mappedFeature.getIdentifier()), mappedFeature.getName());
+    }
+
+    @Test
+    void treeNodeAttributesAreRejected() {
+        FeatureModel featureModel = createFeatureModel();
+        Attribute<String> attribute = new Attribute<>("test", "label", String.class);
+        featureModel.getRoots().get(0).mutate().setAttributeValue(attribute, "value");
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> new BinaryFeatureModelFormat().write(featureModel, new ByteArrayOutputStream()));
+        assertTrue(exception.getMessage().contains("label"), exception.getMessage());
+    }
+
+    @Test
+    void structuredAttributeValuesAreRejected() {
+        FeatureModel featureModel = createFeatureModel();
+        @SuppressWarnings("rawtypes")
+        Attribute<ArrayList> attribute = new Attribute<>("test", "values", ArrayList.class);
+        featureModel.getFeature("A").get().mutate().setAttributeValue(attribute, new ArrayList<>(List.of(1, 2)));
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> new BinaryFeatureModelFormat().write(featureModel, new ByteArrayOutputStream()));
+        assertTrue(exception.getMessage().contains("values"), exception.getMessage());
+    }
+
+    private static FeatureModel createFeatureModel() {
+        FeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier());
+        IFeatureTree rootTree = featureModel.mutate().addFeatureTreeRoot(featureModel.mutate().addFeature("Root"));
+        for (String name : List.of("A", "B")) {
+            IFeature feature = featureModel.mutate().addFeature(name);
+            rootTree.mutate().addFeatureBelow(feature);
+        }
+        return featureModel;
+    }
+
+    private static IFeatureModel writeAndMap(IFeatureModel featureModel) throws IOException {
+        Path binaryFile = Files.createTempFile("model", "." + BinaryFeatureModelFormat.EXTENSION);
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(binaryFile)) {
+                new BinaryFeatureModelFormat().write(featureModel, outputStream);
+            }
+            Result<IFeatureModel> mappedFeatureModel =
+                    BinaryFeatureModelFormat.map(binaryFile).getFeatureModel();
+            assertTrue(mappedFeatureModel.isPresent(), Problem.printProblems(mappedFeatureModel.getProblems()));
+            return mappedFeatureModel.get();
+        } finally {
+            Files.deleteIfExists(binaryFile);
+        }
+    }
+}
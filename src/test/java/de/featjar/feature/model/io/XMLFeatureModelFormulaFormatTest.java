@@ -28,12 +28,16 @@ import de.featjar.base.data.Result;
 import de.featjar.base.data.Sets;
 import de.featjar.base.data.identifier.Identifiers;
 import de.featjar.base.io.format.IFormat;
+import de.featjar.base.io.format.ParseProblem;
 import de.featjar.base.io.input.FileInputMapper;
 import de.featjar.base.io.input.StringInputMapper;
+import de.featjar.feature.model.Benchmarks;
 import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.IConstraint;
 import de.featjar.feature.model.IFeature;
 import de.featjar.feature.model.IFeatureModel;
 import de.featjar.feature.model.IFeatureTree;
+import de.featjar.feature.model.io.xml.StreamingXMLFeatureModelFormat;
 import de.featjar.feature.model.io.xml.XMLFeatureModelFormat;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.*;
@@ -42,7 +46,10 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -152,6 +159,127 @@ public class XMLFeatureModelFormulaFormatTest extends Common {
                 "Serialized content does not match the original file content");
     }
 
+    @Test
+    void streamingParserMatchesDomParser() {
+        Path xmlFile = Path.of("src", "test", "resources", "xml", "car.xml");
+        Result<IFeatureModel> domResult =
+                new XMLFeatureModelFormat().parse(new FileInputMapper(xmlFile, StandardCharsets.UTF_8));
+        Result<IFeatureModel> streamingResult =
+                new StreamingXMLFeatureModelFormat().parse(new FileInputMapper(xmlFile, StandardCharsets.UTF_8));
+
+        assertSameResult(domResult, streamingResult);
+    }
+
+    @Test
+    void streamingParserMatchesDomParserForConstraintsBeforeStruct() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+                + "<featureModel>\n"
+                + "\t<constraints>\n"
+                + "\t\t<rule>\n"
+                + "\t\t\t<imp>\n"
+                + "\t\t\t\t<var>A</var>\n"
+                + "\t\t\t\t<var>B</var>\n"
+                + "\t\t\t</imp>\n"
+                + "\t\t</rule>\n"
+                + "\t\t<rule>\n"
+                + "\t\t\t<var>C</var>\n"
+                + "\t\t</rule>\n"
+                + "\t</constraints>\n"
+                + "\t<struct>\n"
+                + "\t\t<and name=\"Root\">\n"
+                + "\t\t\t<feature name=\"A\"/>\n"
+                + "\t\t\t<feature name=\"B\"/>\n"
+                + "\t\t</and>\n"
+                + "\t</struct>\n"
+                + "</featureModel>\n";
+        Result<IFeatureModel> domResult =
+                new XMLFeatureModelFormat().parse(new StringInputMapper(xml, StandardCharsets.UTF_8, "xml"));
+        Result<IFeatureModel> streamingResult =
+                new StreamingXMLFeatureModelFormat().parse(new StringInputMapper(xml, StandardCharsets.UTF_8, "xml"));
+
+        assertSameResult(domResult, streamingResult);
+        Assertions.assertTrue(streamingResult.get().getConstraints().stream()
+                .map(IConstraint::getFormula)
+                .anyMatch(new Implies(new Literal("A"), new Literal("B"))::equals));
+        Assertions.assertTrue(streamingResult.getProblems().stream()
+                .filter(problem -> problem.getMessage().contains("\"C\""))
+                .anyMatch(problem ->
+                        problem instanceof ParseProblem && ((ParseProblem) problem).getLineNumber() == 11));
+    }
+
+    @Test
+    void streamingParserIsFasterAndAllocatesLessThanDomParser() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+        xml.append("<featureModel>\n\t<struct>\n\t\t<and abstract=\"true\" mandatory=\"true\" name=\"Root\">\n");
+        for (int i = 0; i < 2000; i++) {
+            xml.append("\t\t\t<or name=\"G").append(i).append("\">\n");
+            for (int j = 0; j < 5; j++) {
+                xml.append("\t\t\t\t<feature name=\"F").append(i).append('_').append(j).append("\"/>\n");
+            }
+            xml.append("\t\t\t</or>\n");
+        }
+        xml.append("\t\t</and>\n\t</struct>\n\t<constraints>\n");
+        for (int i = 1; i < 2000; i++) {
+            xml.append("\t\t<rule>\n\t\t\t<imp>\n\t\t\t\t<var>F")
+                    .append(i)
+                    .append("_0</var>\n\t\t\t\t<var>G")
+                    .append(i - 1)
+                    .append("</var>\n\t\t\t</imp>\n\t\t</rule>\n");
+        }
+        xml.append("\t</constraints>\n</featureModel>\n");
+        Supplier<Result<IFeatureModel>> domParser = () -> new XMLFeatureModelFormat()
+                .parse(new StringInputMapper(xml.toString(), StandardCharsets.UTF_8, "xml"));
+        Supplier<Result<IFeatureModel>> streamingParser = () -> new StreamingXMLFeatureModelFormat()
+                .parse(new StringInputMapper(xml.toString(), StandardCharsets.UTF_8, "xml"));
+
+        assertSameResult(domParser.get(), streamingParser.get());
+        Benchmarks.assertFaster(streamingParser, domParser, 1);
+        Benchmarks.assertAllocatesLess(streamingParser, domParser, 1);
+    }
+
+    private static void assertSameResult(Result<IFeatureModel> domResult, Result<IFeatureModel> streamingResult) {
+        Assertions.assertTrue(streamingResult.isPresent(), Problem.printProblems(streamingResult.getProblems()));
+        assertEquals(describeProblems(domResult.getProblems()), describeProblems(streamingResult.getProblems()));
+        IFeatureModel domModel = domResult.get();
+        IFeatureModel streamingModel = streamingResult.get();
+        assertEquals(
+                domModel.getFeatureTreeStream()
+                        .map(tree -> tree.getFeature().getName().get() + tree.getGroups() + tree.isMandatory())
+                        .collect(Collectors.toList()),
+                streamingModel
+                        .getFeatureTreeStream()
+                        .map(tree -> tree.getFeature().getName().get() + tree.getGroups() + tree.isMandatory())
+                        .collect(Collectors.toList()));
+        List<IFormula> domConstraints =
+                domModel.getConstraints().stream().map(IConstraint::getFormula).collect(Collectors.toList());
+        List<IFormula> streamingConstraints =
+                streamingModel.getConstraints().stream().map(IConstraint::getFormula).collect(Collectors.toList());
+        assertEquals(domConstraints, streamingConstraints);
+    }
+
+    private static List<String> describeProblems(List<Problem> problems) {
+        return problems.stream()
+                .map(problem -> problem.getSeverity() + ": " + problem.getMessage() + " @"
+                        + (problem instanceof ParseProblem ? ((ParseProblem) problem).getLineNumber() : -1))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void streamingWriterMatchesDomWriter() throws IOException {
+        Path xmlFile = Path.of("src", "test", "resources", "xml", "car.xml");
+        String fileContent = new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8);
+        IFeatureModel parsedFeatureModel = new StreamingXMLFeatureModelFormat()
+                .parse(new FileInputMapper(xmlFile, StandardCharsets.UTF_8))
+                .get();
+
+        Result<String> domResult = new XMLFeatureModelFormat().serialize(parsedFeatureModel);
+        Result<String> streamingResult = new StreamingXMLFeatureModelFormat().serialize(parsedFeatureModel);
+
+        Assertions.assertTrue(streamingResult.isPresent(), Problem.printProblems(streamingResult.getProblems()));
+        assertEquals(domResult.get(), streamingResult.get());
+        assertEquals(fileContent.replaceAll("\r", ""), streamingResult.get().replaceAll("\r", ""));
+    }
+
     // TODO: Need to assert objects.equals for each featuremodel.element instead of for the featuremodel itself.
 
     // @Test
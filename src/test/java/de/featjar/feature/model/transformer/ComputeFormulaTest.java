@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.transformer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.feature.model.Benchmarks;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.FeatureTree.Group;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeatureModel;
+import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.Between;
+import de.featjar.formula.structure.connective.Choose;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.predicate.Literal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ComputeFormula}.
+ */
+public class ComputeFormulaTest {
+
+    static Result<IFormula> compute(IFeatureModel featureModel, boolean parallel) {
+        return new ComputeFormula(Computations.of(featureModel))
+                .compute(List.of(featureModel, parallel), new Progress());
+    }
+
+    private static List<? extends IExpression> getConstraints(IFormula formula) {
+        return formula.getChildren().get(0).getChildren();
+    }
+
+    private static String name(IFeatureTree tree) {
+        return tree.getFeature().getName().orElse("");
+    }
+
+    private static Set<IFormula> computePreviousConstraints(IFeatureModel featureModel) {
+        return new HashSet<>(computePreviousConstraintList(featureModel));
+    }
+
+    /**
+     * Computes the constraints of a feature model as the transformation did before it was rewritten as a single
+     * pass, which deduplicated group constraints by searching the list and omitted them for mandatory children.
+     */
+    private static List<IFormula> computePreviousConstraintList(IFeatureModel featureModel) {
+        List<IFormula> constraints = new ArrayList<>();
+        featureModel.getFeatureTreeStream().forEach(tree -> {
+            Literal literal = Expressions.literal(name(tree));
+            if (tree.getParent().isEmpty()) {
+                constraints.add(literal);
+                return;
+            }
+            IFeatureTree parentTree = tree.getParent().get();
+            Literal parentLiteral = Expressions.literal(name(parentTree));
+            constraints.add(new Implies(literal, parentLiteral));
+            for (Group group : parentTree.getGroups()) {
+                if (!group.isAnd() && !tree.isMandatory()) {
+                    List<IFormula> groupLiterals = new ArrayList<>();
+                    for (IFeatureTree childTree : parentTree.getChildren()) {
+                        if (childTree.getGroup() == group) {
+                            groupLiterals.add(Expressions.literal(name(childTree)));
+                        }
+                    }
+                    if (group.isOr()) {
+                        addIfAbsent(constraints, new Implies(parentLiteral, new Or(groupLiterals)));
+                    } else if (group.isAlternative()) {
+                        addIfAbsent(constraints, new Implies(parentLiteral, new Choose(1, groupLiterals)));
+                    } else {
+                        constraints.add(new Implies(
+                                parentLiteral,
+                                new Between(group.getLowerBound(), group.getUpperBound(), groupLiterals)));
+                    }
+                } else if (tree.isMandatory()) {
+                    addIfAbsent(constraints, new Implies(parentLiteral, literal));
+                }
+            }
+        });
+        featureModel.getConstraints().stream().map(IConstraint::getFormula).forEach(constraints::add);
+        return constraints;
+    }
+
+    private static void addIfAbsent(List<IFormula> constraints, IFormula constraint) {
+        if (!constraints.contains(constraint)) {
+            constraints.add(constraint);
+        }
+    }
+
+    static IMutableFeatureModel createFeatureModel() {
+        IMutableFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        IFeatureTree root = featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        IFeatureTree a = root.mutate().addFeatureBelow(featureModel.addFeature("a"));
+        IFeatureTree b = root.mutate().addFeatureBelow(featureModel.addFeature("b"));
+        root.mutate().addFeatureBelow(featureModel.addFeature("c"));
+        a.mutate().setAlternative();
+
+        a.mutate().addFeatureBelow(featureModel.addFeature("d")).mutate().setOr();
+        a.mutate().addFeatureBelow(featureModel.addFeature("e"));
+
+        IFeatureTree f = b.mutate().addFeatureBelow(featureModel.addFeature("f"));
+        b.mutate().addFeatureBelow(featureModel.addFeature("g"));
+        b.mutate().addFeatureBelow(featureModel.addFeature("h")).mutate().setMandatory();
+        f.mutate().setGroupRange(Range.of(1, 2));
+
+        featureModel.addConstraint(new Implies(Expressions.literal("d"), Expressions.literal("g")));
+        return featureModel;
+    }
+
+    @Test
+    public void formulaIsEquivalentToPreviousFormula() {
+        IMutableFeatureModel featureModel = createFeatureModel();
+        IFormula formula = compute(featureModel, false).get();
+        List<? extends IExpression> constraints = getConstraints(formula);
+        assertEquals(computePreviousConstraints(featureModel), new HashSet<>(constraints));
+        assertEquals(
+                featureModel.getConstraints().iterator().next().getFormula(), constraints.get(constraints.size() - 1));
+    }
+
+    @Test
+    public void groupConstraintsOfMandatoryChildren() {
+        IMutableFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        IFeatureTree root = featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        root.mutate().addFeatureBelow(featureModel.addFeature("a")).mutate().setMandatory();
+        IFeatureTree b = root.mutate().addFeatureBelow(featureModel.addFeature("b"));
+        b.mutate().setMandatory();
+        b.mutate().setOr();
+
+        Set<IExpression> constraints = new HashSet<>(getConstraints(compute(featureModel, false).get()));
+        Set<IFormula> previousConstraints = computePreviousConstraints(featureModel);
+        assertTrue(constraints.containsAll(previousConstraints));
+        constraints.removeAll(previousConstraints);
+        // implied by the mandatory children, so the formula is still equivalent
+        assertEquals(
+                Set.of(new Implies(
+                        Expressions.literal("root"),
+                        new Or(List.of(Expressions.literal("a"), Expressions.literal("b"))))),
+                constraints);
+    }
+
+    @Test
+    public void invalidGroupIDIsReported() {
+        IMutableFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        IFeatureTree root = featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        root.mutate().addGroup(1, 1);
+        root.mutate().addFeatureBelow(featureModel.addFeature("a"), 0, 1);
+        root.mutate().setGroups(List.of(new Group(Range.atLeast(0))));
+
+        Result<IFormula> formula = compute(featureModel, false);
+        assertTrue(formula.isEmpty());
+        assertTrue(formula.getProblems().get(0).getMessage().contains("group ID 1"));
+    }
+
+    private static IMutableFeatureModel createMultiRootFeatureModel() {
+        IMutableFeatureModel featureModel = createFeatureModel();
+        for (int i = 0; i < 5; i++) {
+            IFeatureTree root = featureModel.addFeatureTreeRoot(featureModel.addFeature("root" + i));
+            root.mutate().addFeatureBelow(featureModel.addFeature("child" + i)).mutate().setOr();
+            root.mutate().addFeatureBelow(featureModel.addFeature("mandatory" + i)).mutate().setMandatory();
+        }
+        return featureModel;
+    }
+
+    private static IMutableFeatureModel createWideFeatureModel() {
+        IMutableFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        IFeatureTree root = featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        root.mutate().addGroup(1, 1);
+        for (int i = 0; i < 500; i++) {
+            IFeatureTree child = root.mutate().addFeatureBelow(featureModel.addFeature("f" + i), i, i % 2);
+            if (i % 3 == 0) {
+                child.mutate().setMandatory();
+            }
+        }
+        return featureModel;
+    }
+
+    private static IMutableFeatureModel createDeepFeatureModel() {
+        IMutableFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        IFeatureTree tree = featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        for (int i = 0; i < 100; i++) {
+            IFeatureTree sibling = tree.mutate().addFeatureBelow(featureModel.addFeature("s" + i));
+            tree = tree.mutate().addFeatureBelow(featureModel.addFeature("f" + i));
+            if (i % 2 == 0) {
+                sibling.mutate().setAlternative();
+            }
+        }
+        return featureModel;
+    }
+
+    @Test
+    public void formulaIsComputedFasterThanPreviousFormula() {
+        IMutableFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        IFeatureTree root = featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        root.mutate().setOr();
+        for (int i = 0; i < 2000; i++) {
+            IFeatureTree child = root.mutate().addFeatureBelow(featureModel.addFeature("f" + i));
+            child.mutate().addFeatureBelow(featureModel.addFeature("g" + i)).mutate().setMandatory();
+        }
+        assertEquals(
+                computePreviousConstraints(featureModel),
+                new HashSet<>(getConstraints(compute(featureModel, false).get())));
+        Benchmarks.assertFaster(
+                () -> compute(featureModel, false).get(), () -> computePreviousConstraintList(featureModel), 5);
+    }
+
+    @Test
+    public void parallelFormulaIsIdenticalToSequentialFormula() {
+        // separate but equal feature models, so that each formula is computed anew
+        assertEquals(
+                compute(createMultiRootFeatureModel(), false).get(),
+                compute(createMultiRootFeatureModel(), true).get());
+        assertEquals(
+                compute(createWideFeatureModel(), false).get(),
+                compute(createWideFeatureModel(), true).get());
+        assertEquals(
+                compute(createDeepFeatureModel(), false).get(),
+                compute(createDeepFeatureModel(), true).get());
+    }
+
+    @Test
+    public void formulaFollowsModifications() {
+        IMutableFeatureModel featureModel = createFeatureModel();
+        IFormula formula = compute(featureModel, false).get();
+        assertEquals(formula, compute(featureModel, false).get());
+        assertNotSame(formula, compute(featureModel, false).get());
+
+        featureModel.getFeatureTree("a").get().mutate().addFeatureBelow(featureModel.addFeature("i"));
+        IFormula newFormula = compute(featureModel, false).get();
+        assertNotEquals(formula, newFormula);
+        assertTrue(getConstraints(newFormula)
+                .contains(new Implies(Expressions.literal("i"), Expressions.literal("a"))));
+        assertEquals(computePreviousConstraints(featureModel), new HashSet<>(getConstraints(newFormula)));
+        assertEquals(newFormula, compute(featureModel, true).get());
+    }
+}
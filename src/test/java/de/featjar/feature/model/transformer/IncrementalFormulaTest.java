@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2025 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-feature-model.
+ *
+ * feature-model is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * feature-model is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with feature-model. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-feature-model> for further information.
+ */
+package de.featjar.feature.model.transformer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.featjar.base.data.Range;
+import de.featjar.base.data.identifier.Identifiers;
+import de.featjar.feature.model.ConcurrentFeatureModel;
+import de.featjar.feature.model.FeatureModel;
+import de.featjar.feature.model.IConstraint;
+import de.featjar.feature.model.IFeature;
+import de.featjar.feature.model.IFeatureModel.IMutableFeatureModel;
+import de.featjar.feature.model.IFeatureTree;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.Implies;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link IncrementalFormula}.
+ */
+public class IncrementalFormulaTest {
+
+    private static void flatten(IExpression expression, List<IExpression> constraints) {
+        if (expression instanceof And) {
+            expression.getChildren().forEach(child -> flatten(child, constraints));
+        } else {
+            constraints.add(expression);
+        }
+    }
+
+    private static Map<IExpression, Long> getConstraints(IFormula formula) {
+        List<IExpression> constraints = new ArrayList<>();
+        flatten(formula.getChildren().get(0), constraints);
+        return constraints.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
+    private static void assertEquivalent(IMutableFeatureModel featureModel, IFormula formula) {
+        assertEquals(getConstraints(ComputeFormulaTest.compute(featureModel, false).get()), getConstraints(formula));
+    }
+
+    @Test
+    public void formulaFollowsMutations() {
+        IMutableFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        IFeatureTree rootTree = featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        IFeatureTree aTree = rootTree.mutate().addFeatureBelow(featureModel.addFeature("a"));
+        IFeatureTree bTree = rootTree.mutate().addFeatureBelow(featureModel.addFeature("b"));
+
+        try (IncrementalFormula incrementalFormula = new IncrementalFormula(featureModel)) {
+            IFormula formula = incrementalFormula.getCachedFormula();
+            assertEquivalent(featureModel, formula);
+            assertSame(formula, incrementalFormula.getCachedFormula());
+
+            // the top-level conjunction holds the root's subtree, which holds the root literal and both children
+            IExpression aFormula = formula.getChildren().get(0).getChildren().get(0).getChildren().get(1);
+            bTree.mutate().setMandatory();
+            formula = incrementalFormula.getCachedFormula();
+            assertEquivalent(featureModel, formula);
+            assertSame(aFormula, formula.getChildren().get(0).getChildren().get(0).getChildren().get(1));
+
+            IFeature c = featureModel.addFeature("c");
+            IFeatureTree cTree = aTree.mutate().addFeatureBelow(c);
+            aTree.mutate().addFeatureBelow(featureModel.addFeature("d"));
+            cTree.mutate().setGroupRange(Range.of(1, 2));
+            aTree.mutate().setOr();
+            assertEquivalent(featureModel, incrementalFormula.getFormula());
+
+            IConstraint constraint =
+                    featureModel.addConstraint(new Implies(Expressions.literal("c"), Expressions.literal("b")));
+            c.mutate().setName("e");
+            assertEquivalent(featureModel, incrementalFormula.getFormula());
+            constraint.mutate().setFormula(new Implies(Expressions.literal("e"), Expressions.literal("a")));
+            assertEquivalent(featureModel, incrementalFormula.getFormula());
+
+            constraint.mutate().remove();
+            bTree.mutate().removeFromTree();
+            assertEquivalent(featureModel, incrementalFormula.getFormula());
+
+            cTree.mutate().removeFromTree();
+            featureModel.addFeatureTreeRoot(featureModel.addFeature("root2"));
+            assertEquivalent(featureModel, incrementalFormula.getFormula());
+        }
+    }
+
+    @Test
+    public void formulaIsACopy() {
+        IMutableFeatureModel featureModel = new FeatureModel(Identifiers.newCounterIdentifier()).mutate();
+        featureModel.addFeatureTreeRoot(featureModel.addFeature("root"));
+        featureModel.addConstraint(Expressions.literal("root"));
+
+        try (IncrementalFormula incrementalFormula = new IncrementalFormula(featureModel)) {
+            IFormula formula = incrementalFormula.getFormula();
+            assertNotSame(formula, incrementalFormula.getFormula());
+            assertEquals(formula, incrementalFormula.getFormula());
+            // removing the root's subtree from the copy must not affect the cached formula
+            IExpression conjunction = formula.getChildren().get(0);
+            conjunction.removeChild(conjunction.getChildren().get(0));
+            assertEquivalent(featureModel, incrementalFormula.getFormula());
+        }
+    }
+
+    @Test
+    public void onlyFeatureModelsAreSupported() {
+        ConcurrentFeatureModel featureModel =
+                new ConcurrentFeatureModel(new FeatureModel(Identifiers.newCounterIdentifier()));
+        assertThrows(IllegalArgumentException.class, () -> new IncrementalFormula(featureModel));
+    }
+}